@@ -23,31 +23,24 @@ public abstract class BaseRobotImpl extends AbstractRobot implements BaseRobot {
 
     @Override
     public PendingResult grabControl(String cookie) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("grabControl")
-                .addArgument("cookie", cookie);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.GRAB_CONTROL)
+                .setString(0, cookie)
+                .build());
     }
 
     @Override
     public PendingResult requestControl() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("requestControl");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.REQUEST_CONTROL).build());
     }
 
     @Override
     public PendingResult fault() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("fault");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.FAULT).build());
     }
 
     @Override
     public PendingResult initializeBias() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("initializeBias");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.INITIALIZE_BIAS).build());
     }
 
     @Override
@@ -55,230 +48,187 @@ public abstract class BaseRobotImpl extends AbstractRobot implements BaseRobot {
                                      String type,
                                      String managerName,
                                      String bondId) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("loadNodelet")
-                .addArgument("nodeletName", nodeletName)
-                .addArgument("type", type)
-                .addArgument("managerName", managerName)
-                .addArgument("bondId", bondId);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.LOAD_NODELET)
+                .setString(0, nodeletName)
+                .setString(1, type)
+                .setString(2, managerName)
+                .setString(3, bondId)
+                .build());
     }
 
     @Override
     public PendingResult noOp() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("noOp");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.NO_OP).build());
     }
 
     @Override
     public PendingResult reacquirePosition() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("reacquirePosition");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.REACQUIRE_POSITION).build());
     }
 
     @Override
     public PendingResult resetEkf() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("resetEkf");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.RESET_EKF).build());
     }
 
     @Override
     public PendingResult shutdown() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("shutdown");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SHUTDOWN).build());
     }
 
     @Override
     public PendingResult switchLocalization(LocalizationMode mode) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("switchLocalization")
-                .addArgument("mode", mode);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SWITCH_LOCALIZATION)
+                .setEnum(0, mode)
+                .build());
     }
 
     @Override
     public PendingResult unloadNodelet(String nodeletName,
                                        String managerName) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("unloadNodelet")
-                .addArgument("nodeletName", nodeletName)
-                .addArgument("managerName", managerName);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.UNLOAD_NODELET)
+                .setString(0, nodeletName)
+                .setString(1, managerName)
+                .build());
     }
 
     @Override
     public PendingResult unterminate() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("unterminate");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.UNTERMINATE).build());
     }
 
     @Override
     public PendingResult wake(int berthNumber) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("wake")
-                .addArgument("berthNumber", berthNumber);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.WAKE)
+                .setInt(0, berthNumber)
+                .build());
     }
 
     @Override
     public PendingResult wakeSafe(int berthNumber) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("wakeSafe")
-                .addArgument("berthNumber", berthNumber);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.WAKE_SAFE)
+                .setInt(0, berthNumber)
+                .build());
     }
 
     @Override
     public PendingResult wipeHlp() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("wipeHlp");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.WIPE_HLP).build());
     }
 
     @Override
     public PendingResult armPanAndTilt(float pan,
                                        float tilt,
                                        ActionType which) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("armPanAndTilt")
-                .addArgument("pan", pan)
-                .addArgument("tilt", tilt)
-                .addArgument("which", which);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.ARM_PAN_AND_TILT)
+                .setFloat(0, pan)
+                .setFloat(1, tilt)
+                .setEnum(2, which)
+                .build());
     }
 
     @Override
     public PendingResult gripperControl(boolean open) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("gripperControl")
-                .addArgument("open", open);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.GRIPPER_CONTROL)
+                .setBoolean(0, open)
+                .build());
     }
 
     @Override
     public PendingResult stopArm() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("stopArm");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.STOP_ARM).build());
     }
 
     @Override
     public PendingResult stowArm() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("stowArm");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.STOW_ARM).build());
     }
 
     @Override
     public PendingResult clearData(DownloadMethod dataMethod) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("clearData")
-                .addArgument("dataMethod", dataMethod);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.CLEAR_DATA)
+                .setEnum(0, dataMethod)
+                .build());
     }
 
     @Override
     public PendingResult downloadData(DownloadMethod dataMethod) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("downloadData")
-                .addArgument("dataMethod", dataMethod);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.DOWNLOAD_DATA)
+                .setEnum(0, dataMethod)
+                .build());
     }
 
     @Override
     public PendingResult setDataToDisk() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setDataToDisk");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_DATA_TO_DISK).build());
     }
 
     @Override
     public PendingResult startRecording(String description) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("startRecording")
-                .addArgument("description", description);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.START_RECORDING)
+                .setString(0, description)
+                .build());
     }
 
     @Override
     public PendingResult stopDownload(DownloadMethod dataMethod) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("stopDownload")
-                .addArgument("dataMethod", dataMethod);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.STOP_DOWNLOAD)
+                .setEnum(0, dataMethod)
+                .build());
     }
 
     @Override
     public PendingResult stopRecording() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("stopRecording");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.STOP_RECORDING).build());
     }
 
     @Override
     public PendingResult customGuestScience(String apkName, String command) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("customGuestScience")
-                .addArgument("apkName", apkName)
-                .addArgument("command", command);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.CUSTOM_GUEST_SCIENCE)
+                .setString(0, apkName)
+                .setString(1, command)
+                .build());
     }
 
     @Override
     public PendingResult startGuestScience(String apkName) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("startGuestScience")
-                .addArgument("apkName", apkName);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.START_GUEST_SCIENCE)
+                .setString(0, apkName)
+                .build());
     }
 
     @Override
     public PendingResult stopGuestScience(String apkName) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("stopGuestScience")
-                .addArgument("apkName", apkName);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.STOP_GUEST_SCIENCE)
+                .setString(0, apkName)
+                .build());
     }
 
     @Override
     public PendingResult autoReturn() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("autoReturn");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.AUTO_RETURN).build());
     }
 
     @Override
     public PendingResult dock(int berthNumber) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("dock")
-                .addArgument("berthNumber", berthNumber);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.DOCK)
+                .setInt(0, berthNumber)
+                .build());
     }
 
     @Override
     public PendingResult idlePropulsion() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("idlePropulsion");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.IDLE_PROPULSION).build());
     }
 
     @Override
     public PendingResult perch() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("perch");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.PERCH).build());
     }
 
     @Override
     public PendingResult prepare() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("prepare");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.PREPARE).build());
     }
 
     @Override
@@ -286,95 +236,76 @@ public abstract class BaseRobotImpl extends AbstractRobot implements BaseRobot {
                                         Point xyz,
                                         Vec3d xyzTolerance,
                                         Quaternion rot) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("simpleMove6DOF")
-                .addArgument("referenceFrame", referenceFrame)
-                .addArgument("xyz", xyz)
-                .addArgument("xyzTolerance", xyzTolerance)
-                .addArgument("rot", rot);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SIMPLE_MOVE6DOF)
+                .setString(0, referenceFrame)
+                .setVec3d(1, xyz)
+                .setVec3d(2, xyzTolerance)
+                .setMat33f(3, rot)
+                .build());
     }
 
     @Override
     public PendingResult stopAllMotion() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("stopAllMotion");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.STOP_ALL_MOTION).build());
     }
 
     @Override
     public PendingResult undock() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("undock");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.UNDOCK).build());
     }
 
     @Override
     public PendingResult unperch() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("unperch");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.UNPERCH).build());
     }
 
     @Override
     public PendingResult pausePlan() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("pausePlan");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.PAUSE_PLAN).build());
     }
 
     @Override
     public PendingResult runPlan() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("runPlan");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.RUN_PLAN).build());
     }
 
     @Override
     public PendingResult setPlan() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setPlan");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_PLAN).build());
     }
 
     @Override
     public PendingResult skipPlanStep() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("skipPlanStep");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SKIP_PLAN_STEP).build());
     }
 
     @Override
     public PendingResult wait(float duration) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("wait")
-                .addArgument("duration", duration);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.WAIT)
+                .setFloat(0, duration)
+                .build());
     }
 
     @Override
     public PendingResult powerOffItem(PoweredComponent which) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("powerOffItem")
-                .addArgument("which", which);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.POWER_OFF_ITEM)
+                .setEnum(0, which)
+                .build());
     }
 
     @Override
     public PendingResult powerOnItem(PoweredComponent which) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("powerOnItem")
-                .addArgument("which", which);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.POWER_ON_ITEM)
+                .setEnum(0, which)
+                .build());
     }
 
     @Override
     public PendingResult genericCommand(String commandName, String param) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("genericCommand")
-                .addArgument("commandName", commandName)
-                .addArgument("param", param);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.GENERIC_COMMAND)
+                .setString(0, commandName)
+                .setString(1, param)
+                .build());
     }
 
     @Override
@@ -383,84 +314,75 @@ public abstract class BaseRobotImpl extends AbstractRobot implements BaseRobot {
                                    CameraResolution resolution,
                                    float frameRate,
                                    float bandwidth) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setCamera")
-                .addArgument("cameraName", cameraName)
-                .addArgument("cameraMode", cameraMode)
-                .addArgument("resolution", resolution)
-                .addArgument("frameRate", frameRate)
-                .addArgument("bandwidth", bandwidth);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_CAMERA)
+                .setEnum(0, cameraName)
+                .setEnum(1, cameraMode)
+                .setEnum(2, resolution)
+                .setFloat(3, frameRate)
+                .setFloat(4, bandwidth)
+                .build());
     }
 
     @Override
     public PendingResult setCameraRecording(CameraName cameraName,
                                             boolean record) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setCameraRecording")
-                .addArgument("cameraName", cameraName)
-                .addArgument("record", record);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_CAMERA_RECORDING)
+                .setEnum(0, cameraName)
+                .setBoolean(1, record)
+                .build());
     }
 
     @Override
     public PendingResult setCameraStreaming(CameraName cameraName,
                                             boolean stream) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setCameraStreaming")
-                .addArgument("cameraName", cameraName)
-                .addArgument("stream", stream);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_CAMERA_STREAMING)
+                .setEnum(0, cameraName)
+                .setBoolean(1, stream)
+                .build());
     }
 
     @Override
     public PendingResult setCheckObstacles(boolean checkObstacles) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setCheckObstacles")
-                .addArgument("checkObstacles", checkObstacles);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_CHECK_OBSTACLES)
+                .setBoolean(0, checkObstacles)
+                .build());
     }
 
     @Override
     public PendingResult setCheckZones(boolean checkZones) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setCheckZones")
-                .addArgument("checkZones", checkZones);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_CHECK_ZONES)
+                .setBoolean(0, checkZones)
+                .build());
     }
 
     @Override
     public PendingResult setEnableAutoReturn(boolean enableAutoReturn) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setEnableAutoReturn")
-                .addArgument("enableAutoReturn", enableAutoReturn);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_ENABLE_AUTO_RETURN)
+                .setBoolean(0, enableAutoReturn)
+                .build());
     }
 
     @Override
     public PendingResult setEnableImmediate(boolean enableImmediate) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setEnableImmediate")
-                .addArgument("enableImmediate", enableImmediate);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_ENABLE_IMMEDIATE)
+                .setBoolean(0, enableImmediate)
+                .build());
     }
 
     @Override
     public PendingResult setFlashlightBrightness(FlashlightLocation which,
                                                  float brightness) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setFlashlightBrightness")
-                .addArgument("which", which)
-                .addArgument("brightness", brightness);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_FLASHLIGHT_BRIGHTNESS)
+                .setEnum(0, which)
+                .setFloat(1, brightness)
+                .build());
     }
 
     @Override
     public PendingResult setHolonomicMode(boolean enableHolonomic) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setHolonomicMode")
-                .addArgument("enableHolonomic", enableHolonomic);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_HOLONOMIC_MODE)
+                .setBoolean(0, enableHolonomic)
+                .build());
     }
 
     @Override
@@ -468,13 +390,12 @@ public abstract class BaseRobotImpl extends AbstractRobot implements BaseRobot {
                                     float mass,
                                     Vec3d centerOfMass,
                                     Mat33f matrix) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setInertia")
-                .addArgument("name", name)
-                .addArgument("mass", mass)
-                .addArgument("centerOfMass", centerOfMass)
-                .addArgument("matrix", matrix);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_INERTIA)
+                .setString(0, name)
+                .setFloat(1, mass)
+                .setVec3d(2, centerOfMass)
+                .setMat33f(3, matrix)
+                .build());
     }
 
     @Override
@@ -485,49 +406,43 @@ public abstract class BaseRobotImpl extends AbstractRobot implements BaseRobot {
                                             float targetAngularVelocity,
                                             float targetAngularAcceleration,
                                             float collisionDistance) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setOperatingLimits")
-                .addArgument("profileName", profileName)
-                .addArgument("flightMode", flightMode)
-                .addArgument("targetLinearVelocity", targetLinearVelocity)
-                .addArgument("targetLinearAcceleration", targetLinearAcceleration)
-                .addArgument("targetAngularVelocity", targetAngularVelocity)
-                .addArgument("targetAngularAcceleration", targetAngularAcceleration)
-                .addArgument("collisionDistance", collisionDistance);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_OPERATING_LIMITS)
+                .setString(0, profileName)
+                .setEnum(1, flightMode)
+                .setFloat(2, targetLinearVelocity)
+                .setFloat(3, targetLinearAcceleration)
+                .setFloat(4, targetAngularVelocity)
+                .setFloat(5, targetAngularAcceleration)
+                .setFloat(6, collisionDistance)
+                .build());
     }
 
     @Override
     public PendingResult setPlanner(PlannerType planner) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setPlanner")
-                .addArgument("planner", planner);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_PLANNER)
+                .setEnum(0, planner)
+                .build());
     }
 
     @Override
     public PendingResult setTelemetryRate(TelemetryType telemetryName,
                                           float rate) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setTelemetryRate")
-                .addArgument("telemetryName", telemetryName)
-                .addArgument("rate", rate);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_TELEMETRY_RATE)
+                .setEnum(0, telemetryName)
+                .setFloat(1, rate)
+                .build());
     }
 
     @Override
     public PendingResult setTimeSync(boolean setTimeSync) {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setTimeSync")
-                .addArgument("setTimeSync", setTimeSync);
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_TIME_SYNC)
+                .setBoolean(0, setTimeSync)
+                .build());
     }
 
     @Override
     public PendingResult setZones() {
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("setZones");
-        return publish(builder.build());
+        return publish(makeCommandEncoder(CommandShapes.SET_ZONES).build());
     }
 
 }
@@ -0,0 +1,247 @@
+// Copyright 2017 Intelligent Robotics Group, NASA ARC
+
+package gov.nasa.arc.astrobee.internal;
+
+public final class CommandShapes {
+    private CommandShapes() { }
+
+    public static final CommandShape GRAB_CONTROL = new CommandShape("grabControl",
+            new String[]{"cookie"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape REQUEST_CONTROL = new CommandShape("requestControl",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape FAULT = new CommandShape("fault",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape INITIALIZE_BIAS = new CommandShape("initializeBias",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape LOAD_NODELET = new CommandShape("loadNodelet",
+            new String[]{"nodeletName", "type", "managerName", "bondId"},
+            new int[]{CommandShape.STRING, CommandShape.STRING, CommandShape.STRING, CommandShape.STRING});
+
+    public static final CommandShape NO_OP = new CommandShape("noOp",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape REACQUIRE_POSITION = new CommandShape("reacquirePosition",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape RESET_EKF = new CommandShape("resetEkf",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape SHUTDOWN = new CommandShape("shutdown",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape SWITCH_LOCALIZATION = new CommandShape("switchLocalization",
+            new String[]{"mode"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape UNLOAD_NODELET = new CommandShape("unloadNodelet",
+            new String[]{"nodeletName", "managerName"},
+            new int[]{CommandShape.STRING, CommandShape.STRING});
+
+    public static final CommandShape UNTERMINATE = new CommandShape("unterminate",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape WAKE = new CommandShape("wake",
+            new String[]{"berthNumber"},
+            new int[]{CommandShape.INT});
+
+    public static final CommandShape WAKE_SAFE = new CommandShape("wakeSafe",
+            new String[]{"berthNumber"},
+            new int[]{CommandShape.INT});
+
+    public static final CommandShape WIPE_HLP = new CommandShape("wipeHlp",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape ARM_PAN_AND_TILT = new CommandShape("armPanAndTilt",
+            new String[]{"pan", "tilt", "which"},
+            new int[]{CommandShape.FLOAT, CommandShape.FLOAT, CommandShape.STRING});
+
+    public static final CommandShape GRIPPER_CONTROL = new CommandShape("gripperControl",
+            new String[]{"open"},
+            new int[]{CommandShape.BOOLEAN});
+
+    public static final CommandShape STOP_ARM = new CommandShape("stopArm",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape STOW_ARM = new CommandShape("stowArm",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape CLEAR_DATA = new CommandShape("clearData",
+            new String[]{"dataMethod"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape DOWNLOAD_DATA = new CommandShape("downloadData",
+            new String[]{"dataMethod"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape SET_DATA_TO_DISK = new CommandShape("setDataToDisk",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape START_RECORDING = new CommandShape("startRecording",
+            new String[]{"description"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape STOP_DOWNLOAD = new CommandShape("stopDownload",
+            new String[]{"dataMethod"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape STOP_RECORDING = new CommandShape("stopRecording",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape CUSTOM_GUEST_SCIENCE = new CommandShape("customGuestScience",
+            new String[]{"apkName", "command"},
+            new int[]{CommandShape.STRING, CommandShape.STRING});
+
+    public static final CommandShape START_GUEST_SCIENCE = new CommandShape("startGuestScience",
+            new String[]{"apkName"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape STOP_GUEST_SCIENCE = new CommandShape("stopGuestScience",
+            new String[]{"apkName"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape AUTO_RETURN = new CommandShape("autoReturn",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape DOCK = new CommandShape("dock",
+            new String[]{"berthNumber"},
+            new int[]{CommandShape.INT});
+
+    public static final CommandShape IDLE_PROPULSION = new CommandShape("idlePropulsion",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape PERCH = new CommandShape("perch",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape PREPARE = new CommandShape("prepare",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape SIMPLE_MOVE6DOF = new CommandShape("simpleMove6DOF",
+            new String[]{"referenceFrame", "xyz", "xyzTolerance", "rot"},
+            new int[]{CommandShape.STRING, CommandShape.VEC3D, CommandShape.VEC3D, CommandShape.MAT33F});
+
+    public static final CommandShape STOP_ALL_MOTION = new CommandShape("stopAllMotion",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape UNDOCK = new CommandShape("undock",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape UNPERCH = new CommandShape("unperch",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape PAUSE_PLAN = new CommandShape("pausePlan",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape RUN_PLAN = new CommandShape("runPlan",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape SET_PLAN = new CommandShape("setPlan",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape SKIP_PLAN_STEP = new CommandShape("skipPlanStep",
+            new String[]{},
+            new int[]{});
+
+    public static final CommandShape WAIT = new CommandShape("wait",
+            new String[]{"duration"},
+            new int[]{CommandShape.FLOAT});
+
+    public static final CommandShape POWER_OFF_ITEM = new CommandShape("powerOffItem",
+            new String[]{"which"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape POWER_ON_ITEM = new CommandShape("powerOnItem",
+            new String[]{"which"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape GENERIC_COMMAND = new CommandShape("genericCommand",
+            new String[]{"commandName", "param"},
+            new int[]{CommandShape.STRING, CommandShape.STRING});
+
+    public static final CommandShape SET_CAMERA = new CommandShape("setCamera",
+            new String[]{"cameraName", "cameraMode", "resolution", "frameRate", "bandwidth"},
+            new int[]{CommandShape.STRING, CommandShape.STRING, CommandShape.STRING, CommandShape.FLOAT, CommandShape.FLOAT});
+
+    public static final CommandShape SET_CAMERA_RECORDING = new CommandShape("setCameraRecording",
+            new String[]{"cameraName", "record"},
+            new int[]{CommandShape.STRING, CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_CAMERA_STREAMING = new CommandShape("setCameraStreaming",
+            new String[]{"cameraName", "stream"},
+            new int[]{CommandShape.STRING, CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_CHECK_OBSTACLES = new CommandShape("setCheckObstacles",
+            new String[]{"checkObstacles"},
+            new int[]{CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_CHECK_ZONES = new CommandShape("setCheckZones",
+            new String[]{"checkZones"},
+            new int[]{CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_ENABLE_AUTO_RETURN = new CommandShape("setEnableAutoReturn",
+            new String[]{"enableAutoReturn"},
+            new int[]{CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_ENABLE_IMMEDIATE = new CommandShape("setEnableImmediate",
+            new String[]{"enableImmediate"},
+            new int[]{CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_FLASHLIGHT_BRIGHTNESS = new CommandShape("setFlashlightBrightness",
+            new String[]{"which", "brightness"},
+            new int[]{CommandShape.STRING, CommandShape.FLOAT});
+
+    public static final CommandShape SET_HOLONOMIC_MODE = new CommandShape("setHolonomicMode",
+            new String[]{"enableHolonomic"},
+            new int[]{CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_INERTIA = new CommandShape("setInertia",
+            new String[]{"name", "mass", "centerOfMass", "matrix"},
+            new int[]{CommandShape.STRING, CommandShape.FLOAT, CommandShape.VEC3D, CommandShape.MAT33F});
+
+    public static final CommandShape SET_OPERATING_LIMITS = new CommandShape("setOperatingLimits",
+            new String[]{"profileName", "flightMode", "targetLinearVelocity", "targetLinearAcceleration", "targetAngularVelocity", "targetAngularAcceleration", "collisionDistance"},
+            new int[]{CommandShape.STRING, CommandShape.STRING, CommandShape.FLOAT, CommandShape.FLOAT, CommandShape.FLOAT, CommandShape.FLOAT, CommandShape.FLOAT});
+
+    public static final CommandShape SET_PLANNER = new CommandShape("setPlanner",
+            new String[]{"planner"},
+            new int[]{CommandShape.STRING});
+
+    public static final CommandShape SET_TELEMETRY_RATE = new CommandShape("setTelemetryRate",
+            new String[]{"telemetryName", "rate"},
+            new int[]{CommandShape.STRING, CommandShape.FLOAT});
+
+    public static final CommandShape SET_TIME_SYNC = new CommandShape("setTimeSync",
+            new String[]{"setTimeSync"},
+            new int[]{CommandShape.BOOLEAN});
+
+    public static final CommandShape SET_ZONES = new CommandShape("setZones",
+            new String[]{},
+            new int[]{});
+}
@@ -0,0 +1,85 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The commands of a submitted {@link CommandBatch}, taken together. The
+ * batch succeeds once every command has completed successfully, and fails
+ * as soon as any one of them fails: completes without success, times out,
+ * is cancelled or errors. Commands after a failed one are not cancelled;
+ * their {@link PendingResult}s keep following them.
+ */
+public interface BatchResult {
+    /**
+     * Notified once, when the batch succeeds or fails.
+     */
+    interface Callback {
+        void onSucceeded(BatchResult batch);
+
+        /**
+         * @param batch The {@link BatchResult} that failed.
+         * @param index The index of the command that failed first.
+         */
+        void onFailed(BatchResult batch, int index);
+    }
+
+    /**
+     * @return The {@link PendingResult} of each command, in the order they
+     *         were added to the batch.
+     */
+    List<PendingResult> getResults();
+
+    /**
+     * @return {@code true} once every command succeeded, or one failed.
+     */
+    boolean isFinished();
+
+    /**
+     * @return The index of the command that failed first, or -1 if none
+     *         has failed so far.
+     */
+    int getFirstFailure();
+
+    /**
+     * Wait until every command succeeded, or one failed.
+     *
+     * @return The index of the command that failed first, or -1 if they all
+     *         succeeded.
+     */
+    int await() throws InterruptedException;
+
+    /**
+     * Wait at most {@code timeout} for every command to succeed, or one to
+     * fail.
+     *
+     * @return The index of the command that failed first, or -1 if they all
+     *         succeeded.
+     */
+    int await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException;
+
+    /**
+     * Run {@code callback} on {@code executor} when the batch succeeds or
+     * fails. If it already has, the callback is dispatched right away.
+     */
+    void addCallback(Callback callback, Executor executor);
+}
@@ -0,0 +1,52 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+import gov.nasa.arc.astrobee.internal.BaseRobot;
+
+/**
+ * Several commands sent together, for independent commands such as the
+ * configuration before a move, which would otherwise each wait for the
+ * last to be sent.
+ *
+ * Calling a command on a batch adds it to the batch rather than sending
+ * it. The {@link PendingResult} returned stays {@link PendingResult.Status#QUEUED}
+ * until {@link #submit()}, then follows the command as usual; callbacks,
+ * listeners and timeouts may be added to it before then. Cancelling it
+ * before {@link #submit()} keeps the command from being sent at all.
+ *
+ * A batch is sent once. It is safe to add commands from several threads.
+ *
+ * @see Robot#newBatch()
+ */
+public interface CommandBatch extends BaseRobot {
+
+    /**
+     * @return How many commands have been added.
+     */
+    int size();
+
+    /**
+     * Send every command in the batch, back to back and in the order they
+     * were added. The executive still runs them one after the other.
+     *
+     * @return A {@link BatchResult} following all of them.
+     * @throws IllegalStateException If the batch was already submitted.
+     */
+    BatchResult submit();
+}
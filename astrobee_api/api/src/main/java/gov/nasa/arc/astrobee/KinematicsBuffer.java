@@ -0,0 +1,103 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+/**
+ * The latest kinematic state of Astrobee, readable without allocating.
+ * Where {@link Kinematics} hands out objects, this copies primitives into
+ * arrays owned by the caller, so it can be read at EKF rate without
+ * creating garbage.
+ *
+ * Each accessor returns a consistent copy of the values it covers. To get
+ * every value from the same update, use {@link #read(double[])}.
+ */
+public interface KinematicsBuffer {
+
+    /** Offset of the (x, y, z) position in a {@link #read(double[])} snapshot. */
+    int POSITION = 0;
+
+    /** Offset of the (x, y, z, w) orientation in a snapshot. */
+    int ORIENTATION = 3;
+
+    /** Offset of the (x, y, z) linear velocity in a snapshot. */
+    int LINEAR_VELOCITY = 7;
+
+    /** Offset of the (x, y, z) angular velocity in a snapshot. */
+    int ANGULAR_VELOCITY = 10;
+
+    /** Offset of the (x, y, z) linear acceleration in a snapshot. */
+    int LINEAR_ACCELERATION = 13;
+
+    /**
+     * Offset of the {@link Kinematics.Confidence} in a snapshot, stored as
+     * its ordinal.
+     */
+    int CONFIDENCE = 16;
+
+    /** Number of values in a snapshot. */
+    int SIZE = 17;
+
+    /**
+     * Get a number that changes every time the state is updated. Comparing
+     * it with an earlier value is the cheapest way to know whether anything
+     * changed.
+     *
+     * @return The update sequence number.
+     */
+    long getSequence();
+
+    /**
+     * Copy every value from a single update into {@code out}, laid out as
+     * described by the offsets of this interface.
+     *
+     * @param out An array of at least {@link #SIZE} values.
+     * @return The sequence number of the update that was copied.
+     */
+    long read(double[] out);
+
+    /**
+     * @return The {@link Kinematics.Confidence} of the latest update.
+     */
+    Kinematics.Confidence getConfidence();
+
+    /**
+     * @param out An array of at least 3 values, receiving (x, y, z).
+     */
+    void getPosition(double[] out);
+
+    /**
+     * @param out An array of at least 4 values, receiving (x, y, z, w).
+     */
+    void getOrientation(double[] out);
+
+    /**
+     * @param out An array of at least 3 values, receiving (x, y, z).
+     */
+    void getLinearVelocity(double[] out);
+
+    /**
+     * @param out An array of at least 3 values, receiving (x, y, z).
+     */
+    void getAngularVelocity(double[] out);
+
+    /**
+     * @param out An array of at least 3 values, receiving (x, y, z).
+     */
+    void getLinearAcceleration(double[] out);
+
+}
@@ -0,0 +1,36 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+/**
+ * Receives kinematic updates pushed by a {@link Robot}.
+ *
+ * @see Robot#addKinematicsListener(KinematicsListener, float, java.util.concurrent.Executor)
+ */
+public interface KinematicsListener {
+
+    /**
+     * Called with the newest kinematic state of the robot. Updates that
+     * arrive while a previous call is still pending are folded into one, so
+     * this is always the latest state, never a backlog.
+     *
+     * @param kinematics The latest {@link Kinematics}.
+     */
+    void onKinematicsChanged(Kinematics kinematics);
+
+}
@@ -0,0 +1,36 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+/**
+ * A condition on the kinematic state of a {@link Robot}, to wait for.
+ *
+ * @see Robot#awaitKinematics(KinematicsPredicate, long, java.util.concurrent.TimeUnit)
+ */
+public interface KinematicsPredicate {
+
+    /**
+     * Called with each kinematic update until it returns {@code true}. This
+     * runs on the thread receiving updates, so it should be quick.
+     *
+     * @param kinematics The latest {@link Kinematics}.
+     * @return {@code true} if the state is what we are waiting for.
+     */
+    boolean matches(Kinematics kinematics);
+
+}
@@ -18,6 +18,8 @@
 
 package gov.nasa.arc.astrobee;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -52,11 +54,116 @@ public interface PendingResult {
         }
     }
 
+    /**
+     * Notified once when the command finishes, either with a {@link Result}
+     * or with the exception that ended it.
+     */
+    interface Callback {
+        /**
+         * The command completed and the robot reported a {@link Result}.
+         * Check {@link Result#hasSucceeded()} to know how it went.
+         *
+         * @param result The {@link Result} of the command.
+         */
+        void onResult(Result result);
+
+        /**
+         * The command could not be completed by the robot.
+         *
+         * @param exception Why the command never got a {@link Result}.
+         */
+        void onError(AstrobeeException exception);
+    }
+
+    /**
+     * Notified each time the {@link Status} of a command changes.
+     */
+    interface StatusListener {
+        /**
+         * @param pending The {@link PendingResult} whose status changed.
+         * @param status The new {@link Status}.
+         */
+        void onStatusChanged(PendingResult pending, Status status);
+    }
+
+    /**
+     * @return {@code true} once the command has a {@link Result}, or has
+     *         failed, timed out or been cancelled.
+     */
     boolean isFinished();
 
     Status getStatus();
 
     Result getResult() throws AstrobeeException, InterruptedException;
 
+    /**
+     * Wait at most {@code timeout} for the {@link Result}.
+     *
+     * Note: On timeout this returns {@code null} rather than throwing, so it
+     * can be called in a loop while doing something else in between. Use
+     * {@link #asFuture()} for a wait that throws {@link TimeoutException}.
+     *
+     * @return The {@link Result}, or {@code null} if there was none in time.
+     */
     Result getResult(long timeout, TimeUnit unit) throws AstrobeeException, InterruptedException, TimeoutException;
+
+    /**
+     * Run {@code callback} on {@code executor} when the command finishes. If
+     * it has already finished, the callback is dispatched right away.
+     *
+     * @param callback The {@link Callback} to notify.
+     * @param executor Where to run the callback.
+     */
+    void addCallback(Callback callback, Executor executor);
+
+    /**
+     * Run {@code listener} on {@code executor} for every status change of
+     * this command. The listener is first told the current status, so it
+     * never misses where the command is.
+     *
+     * Note: Notifications are only delivered in order if {@code executor}
+     * runs its tasks in order.
+     *
+     * @param listener The {@link StatusListener} to notify.
+     * @param executor Where to run the listener.
+     */
+    void addStatusListener(StatusListener listener, Executor executor);
+
+    /**
+     * Remove a {@link StatusListener} added with
+     * {@link #addStatusListener(StatusListener, Executor)}.
+     *
+     * @param listener The {@link StatusListener} to remove.
+     */
+    void removeStatusListener(StatusListener listener);
+
+    /**
+     * Stop waiting for this command. Anyone waiting on the result, and any
+     * {@link Callback}, gets a {@link CommandCancelledException}.
+     *
+     * Note: The robot is not told; it may still execute the command. Use
+     * {@link Robot#stopAllMotion()} or similar to actually stop it.
+     *
+     * @return {@code false} if the command had already finished.
+     */
+    boolean cancel();
+
+    /**
+     * Give up on this command if it has not completed {@code timeout} from
+     * now, failing it with a {@link CommandTimeoutException}. This replaces
+     * any earlier deadline, including the default one.
+     *
+     * @param timeout How long to wait from now.
+     * @param unit The unit of {@code timeout}.
+     */
+    void setTimeout(long timeout, TimeUnit unit);
+
+    /**
+     * Get a {@link Future} view of this result, for code that composes
+     * futures. An {@link AstrobeeException} is reported as the cause of an
+     * {@link java.util.concurrent.ExecutionException}.
+     *
+     * @return A {@link Future} completing with the {@link Result}.
+     */
+    Future<Result> asFuture();
 }
@@ -22,6 +22,11 @@ import gov.nasa.arc.astrobee.internal.BaseRobot;
 import gov.nasa.arc.astrobee.types.Point;
 import gov.nasa.arc.astrobee.types.Quaternion;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 public interface Robot extends BaseRobot {
 
     /**
@@ -35,6 +40,51 @@ public interface Robot extends BaseRobot {
      */
     PendingResult simpleMove6DOF(Point xyz, Quaternion rot);
 
+    /**
+     * Fly through a sequence of waypoints, one move at a time. Each move is
+     * sent as soon as the previous one completes.
+     *
+     * @param points The positions to go through, in order.
+     * @param orientations The orientation at each position.
+     * @return A {@link TrajectoryExecution} to follow or abort the trajectory.
+     * @see #executeTrajectory(List, List, int, TrajectoryListener, Executor)
+     */
+    TrajectoryExecution executeTrajectory(List<Point> points, List<Quaternion> orientations);
+
+    /**
+     * Fly through a sequence of waypoints, sending up to {@code maxInFlight}
+     * moves ahead of completion so the executive can prepare the next leg
+     * while the robot flies the current one.
+     *
+     * If the executive refuses a move sent ahead of time, the moves already
+     * sent are waited out, then the trajectory goes on from the refused move
+     * one move at a time, sending the moves after it again so the waypoints
+     * are flown in order. The trajectory stops at the first move that fails
+     * otherwise.
+     *
+     * @param points The positions to go through, in order.
+     * @param orientations The orientation at each position.
+     * @param maxInFlight How many moves may be outstanding at once; 1 to
+     *                    send each move when the previous one completes.
+     * @param listener The {@link TrajectoryListener} to notify of progress,
+     *                 or {@code null}.
+     * @param executor Where to run the listener.
+     * @return A {@link TrajectoryExecution} to follow or abort the trajectory.
+     */
+    TrajectoryExecution executeTrajectory(List<Point> points,
+                                          List<Quaternion> orientations,
+                                          int maxInFlight,
+                                          TrajectoryListener listener,
+                                          Executor executor);
+
+    /**
+     * Start a batch of commands, to be sent together with
+     * {@link CommandBatch#submit()}.
+     *
+     * @return An empty {@link CommandBatch}.
+     */
+    CommandBatch newBatch();
+
     /**
      * Get the last received kinematic state of the robot. (That is: pose,
      * velocity and acceleration.)
@@ -46,4 +96,64 @@ public interface Robot extends BaseRobot {
      */
     Kinematics getCurrentKinematics();
 
+    /**
+     * Get a view of the latest kinematic state of the robot that can be read
+     * without allocating. The returned buffer is live: it always reflects the
+     * newest update.
+     *
+     * @return The {@link KinematicsBuffer}
+     */
+    KinematicsBuffer getKinematicsBuffer();
+
+    /**
+     * Get kinematic updates pushed to {@code listener} as they arrive,
+     * instead of polling {@link #getCurrentKinematics()}.
+     *
+     * Updates are decimated so the listener is called at most
+     * {@code maxRateHz} times a second, and conflated so a slow listener
+     * only ever sees the latest state rather than a backlog.
+     *
+     * @param listener The {@link KinematicsListener} to notify.
+     * @param maxRateHz The most updates per second to deliver, or 0 for
+     *                  every update.
+     * @param executor Where to run the listener.
+     */
+    void addKinematicsListener(KinematicsListener listener, float maxRateHz, Executor executor);
+
+    /**
+     * Stop delivering updates to a listener added with
+     * {@link #addKinematicsListener(KinematicsListener, float, Executor)}.
+     *
+     * @param listener The {@link KinematicsListener} to remove.
+     */
+    void removeKinematicsListener(KinematicsListener listener);
+
+    /**
+     * Wait until the robot is localized at least as well as
+     * {@code confidence}, e.g. {@link Kinematics.Confidence#GOOD} before
+     * moving. Returns as soon as an update says so, without polling.
+     *
+     * @param confidence The worst {@link Kinematics.Confidence} to accept.
+     * @param timeout How long to wait at most.
+     * @param unit The unit of {@code timeout}.
+     * @return The first {@link Kinematics} that was good enough.
+     * @throws TimeoutException If no update was good enough in time.
+     */
+    Kinematics awaitConfidence(Kinematics.Confidence confidence, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException;
+
+    /**
+     * Wait until the kinematic state of the robot matches
+     * {@code predicate}. The latest state is checked first, then every
+     * update as it arrives.
+     *
+     * @param predicate The {@link KinematicsPredicate} to wait for.
+     * @param timeout How long to wait at most.
+     * @param unit The unit of {@code timeout}.
+     * @return The first {@link Kinematics} that matched.
+     * @throws TimeoutException If nothing matched in time.
+     */
+    Kinematics awaitKinematics(KinematicsPredicate predicate, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException;
+
 }
@@ -93,4 +93,12 @@ public interface RobotFactory {
      * Shut down the internal machinery, allowing Java to exit cleanly.
      */
     void shutdown();
+
+    /**
+     * Stop talking to one robot, leaving any others alone. Getting that
+     * robot again reconnects to it.
+     *
+     * @param name The name of the robot or {@code null} for "this" robot.
+     */
+    void shutdown(String name);
 }
@@ -0,0 +1,420 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+import gov.nasa.arc.astrobee.types.TelemetryType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the telemetry rates of a robot in line with what is consumed,
+ * through {@link Robot#setTelemetryRate(TelemetryType, float)}.
+ *
+ * Consumers register a {@link Demand} for the rate they need. Each type of
+ * telemetry is sent at the highest rate demanded, or at its base rate if
+ * that is higher. Rates go up as soon as they are demanded, but only come
+ * down once the demand has stayed lower for a while, and by more than a
+ * small margin, so consumers coming and going do not flood the executive
+ * with commands.
+ *
+ * Each type starts out at the rate the robot sends it at by default, which
+ * is also its base rate, so demand only ever raises it. Types nobody has
+ * demanded are left alone. Once a type has been demanded, it drops back to
+ * its base rate when the last demand is released. Only
+ * {@link #setBaseRate(TelemetryType, float)} goes below the default.
+ */
+public class TelemetryRateManager {
+    public static final long DEFAULT_LOWER_DELAY_MILLIS = 5000;
+    public static final float DEFAULT_DEADBAND = 0.2f;
+    // What the robot is taken to send each type at, unless told otherwise
+    public static final float DEFAULT_ROBOT_RATE = 1.0f;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * A consumer's need for one type of telemetry, held until released.
+     */
+    public interface Demand {
+        TelemetryType getType();
+
+        float getRate();
+
+        /**
+         * Change the rate this consumer needs, in Hz.
+         */
+        void setRate(float rateHz);
+
+        /**
+         * Give up the demand. It cannot be used again.
+         */
+        void release();
+    }
+
+    private final Robot m_robot;
+    private final ScheduledExecutorService m_scheduler;
+    private final Map<TelemetryType, Float> m_defaultRates;
+
+    // All guarded by this
+    private final Map<TelemetryType, Channel> m_channels = new EnumMap<>(TelemetryType.class);
+    private long m_lowerDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LOWER_DELAY_MILLIS);
+    private float m_deadband = DEFAULT_DEADBAND;
+    private boolean m_shutdown = false;
+    // Rates decided but not yet sent, in order, sent with nothing locked
+    private final ArrayDeque<Change> m_changes = new ArrayDeque<>();
+    private boolean m_sending = false;
+
+    private static final class Change {
+        final Channel channel;
+        final float rate;
+
+        Change(final Channel channel, float rate) {
+            this.channel = channel;
+            this.rate = rate;
+        }
+    }
+
+    private final class Channel {
+        final TelemetryType type;
+        final List<DefaultDemand> demands = new ArrayList<>();
+        float baseRate;
+        // The rate last asked of the robot, NaN if not known
+        float applied;
+        // Whether anyone ever demanded this type or set its base
+        boolean managed = false;
+        ScheduledFuture<?> lowering = null;
+
+        Channel(final TelemetryType type, float defaultRate) {
+            this.type = type;
+            baseRate = defaultRate;
+            applied = defaultRate;
+        }
+
+        float target() {
+            float target = baseRate;
+            for (DefaultDemand d : demands)
+                target = Math.max(target, d.rate);
+            return target;
+        }
+    }
+
+    private final class DefaultDemand implements Demand {
+        private final Channel m_channel;
+        // Guarded by the manager
+        float rate;
+        private boolean m_released = false;
+
+        DefaultDemand(final Channel channel, float rate) {
+            m_channel = channel;
+            this.rate = rate;
+        }
+
+        @Override
+        public TelemetryType getType() {
+            return m_channel.type;
+        }
+
+        @Override
+        public float getRate() {
+            synchronized (TelemetryRateManager.this) {
+                return rate;
+            }
+        }
+
+        @Override
+        public void setRate(float rateHz) {
+            checkRate(rateHz);
+            synchronized (TelemetryRateManager.this) {
+                if (m_released)
+                    throw new IllegalStateException("Demand was released");
+                rate = rateHz;
+                update(m_channel);
+            }
+            send();
+        }
+
+        @Override
+        public void release() {
+            synchronized (TelemetryRateManager.this) {
+                if (m_released)
+                    return;
+                m_released = true;
+                m_channel.demands.remove(this);
+                update(m_channel);
+            }
+            send();
+        }
+    }
+
+    /**
+     * Assumes the robot sends every type at {@link #DEFAULT_ROBOT_RATE}.
+     *
+     * @param robot The robot whose rates to set.
+     * @param scheduler Where to wait before lowering a rate.
+     */
+    public TelemetryRateManager(final Robot robot, final ScheduledExecutorService scheduler) {
+        this(robot, scheduler, new EnumMap<TelemetryType, Float>(TelemetryType.class));
+    }
+
+    /**
+     * @param robot The robot whose rates to set.
+     * @param scheduler Where to wait before lowering a rate.
+     * @param defaultRates The rates the robot sends types at by default, in
+     *                     Hz. Types left out are taken to be sent at
+     *                     {@link #DEFAULT_ROBOT_RATE}.
+     */
+    public TelemetryRateManager(final Robot robot,
+                                final ScheduledExecutorService scheduler,
+                                final Map<TelemetryType, Float> defaultRates) {
+        if (robot == null || scheduler == null || defaultRates == null)
+            throw new NullPointerException("robot, scheduler and default rates may not be null");
+        for (Float rate : defaultRates.values())
+            checkRate(rate);
+        m_robot = robot;
+        m_scheduler = scheduler;
+        m_defaultRates = new EnumMap<>(TelemetryType.class);
+        m_defaultRates.putAll(defaultRates);
+    }
+
+    private static void checkRate(float rateHz) {
+        if (!(rateHz >= 0) || Float.isInfinite(rateHz))
+            throw new IllegalArgumentException("rate may not be negative");
+    }
+
+    private float defaultRate(final TelemetryType type) {
+        final Float rate = m_defaultRates.get(type);
+        return rate == null ? DEFAULT_ROBOT_RATE : rate;
+    }
+
+    private Channel channel(final TelemetryType type) {
+        if (type == null)
+            throw new NullPointerException("type may not be null");
+        Channel c = m_channels.get(type);
+        if (c == null) {
+            c = new Channel(type, defaultRate(type));
+            m_channels.put(type, c);
+        }
+        return c;
+    }
+
+    /**
+     * Set the rate a type of telemetry is sent at when nobody demands
+     * more, e.g. what the ground needs. The robot's default rate unless
+     * set; setting it lower is the only way to go below that.
+     */
+    public TelemetryRateManager setBaseRate(final TelemetryType type, float rateHz) {
+        checkRate(rateHz);
+        synchronized (this) {
+            final Channel c = channel(type);
+            c.baseRate = rateHz;
+            c.managed = true;
+            update(c);
+        }
+        send();
+        return this;
+    }
+
+    /**
+     * Set how long demand has to stay lower before a rate is lowered.
+     */
+    public synchronized TelemetryRateManager setLowerDelay(long delay, final TimeUnit unit) {
+        if (delay < 0)
+            throw new IllegalArgumentException("delay may not be negative");
+        m_lowerDelayNanos = unit.toNanos(delay);
+        return this;
+    }
+
+    /**
+     * Set by how much, as a fraction of the current rate, demand has to
+     * drop before the rate is lowered.
+     */
+    public synchronized TelemetryRateManager setDeadband(float fraction) {
+        if (!(fraction >= 0 && fraction < 1))
+            throw new IllegalArgumentException("fraction must be at least 0 and below 1");
+        m_deadband = fraction;
+        return this;
+    }
+
+    /**
+     * Ask for a type of telemetry to be sent at least {@code rateHz} times
+     * a second, until the returned {@link Demand} is released.
+     */
+    public Demand addDemand(final TelemetryType type, float rateHz) {
+        checkRate(rateHz);
+        final DefaultDemand demand;
+        synchronized (this) {
+            if (m_shutdown)
+                throw new IllegalStateException("Manager was shut down");
+            final Channel c = channel(type);
+            demand = new DefaultDemand(c, rateHz);
+            c.demands.add(demand);
+            c.managed = true;
+            update(c);
+        }
+        send();
+        return demand;
+    }
+
+    /**
+     * @return The rate last asked of the robot, the robot's default rate if
+     *         none was, or NaN if the last one was refused.
+     */
+    public synchronized float getRate(final TelemetryType type) {
+        final Channel c = m_channels.get(type);
+        return c == null ? defaultRate(type) : c.applied;
+    }
+
+    /**
+     * @return The rate currently demanded, including the base rate.
+     */
+    public synchronized float getDemand(final TelemetryType type) {
+        final Channel c = m_channels.get(type);
+        return c == null ? defaultRate(type) : c.target();
+    }
+
+    /**
+     * Stop changing rates. They are left as they are.
+     */
+    public synchronized void shutdown() {
+        m_shutdown = true;
+        for (Channel c : m_channels.values())
+            cancelLowering(c);
+    }
+
+    private void update(final Channel c) {
+        if (m_shutdown || !c.managed)
+            return;
+        final float target = c.target();
+        // Not known after a refusal, so send what we want again
+        if (Float.isNaN(c.applied) || target > c.applied) {
+            cancelLowering(c);
+            apply(c, target);
+            return;
+        }
+        if (target >= c.applied * (1 - m_deadband)) {
+            // Close enough to what we send, and any pending drop is off
+            cancelLowering(c);
+            return;
+        }
+        if (c.lowering != null)
+            return;
+        c.lowering = m_scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (TelemetryRateManager.this) {
+                    c.lowering = null;
+                    if (m_shutdown)
+                        return;
+                    final float target = c.target();
+                    if (target < c.applied * (1 - m_deadband))
+                        apply(c, target);
+                }
+                send();
+            }
+        }, m_lowerDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancelLowering(final Channel c) {
+        if (c.lowering == null)
+            return;
+        c.lowering.cancel(false);
+        c.lowering = null;
+    }
+
+    /**
+     * Only decides the rate; {@link #send()} tells the robot once unlocked,
+     * as with a full command queue that may wait.
+     */
+    private void apply(final Channel c, final float rate) {
+        c.applied = rate;
+        m_changes.add(new Change(c, rate));
+    }
+
+    /**
+     * Send the rates decided so far, in order, unless another thread is
+     * already at it, in which case it sends ours too.
+     */
+    private void send() {
+        while (true) {
+            final Change change;
+            synchronized (this) {
+                if (m_sending)
+                    return;
+                change = m_changes.poll();
+                if (change == null)
+                    return;
+                // Already overtaken by a later decision, or refused
+                if (change.channel.applied != change.rate)
+                    continue;
+                m_sending = true;
+            }
+            try {
+                sendRate(change.channel, change.rate);
+            } finally {
+                synchronized (this) {
+                    m_sending = false;
+                }
+            }
+        }
+    }
+
+    private void sendRate(final Channel c, final float rate) {
+        final PendingResult pending;
+        try {
+            pending = m_robot.setTelemetryRate(c.type, rate);
+        } catch (RuntimeException e) {
+            // Sent again on the next change of demand
+            synchronized (this) {
+                if (c.applied == rate)
+                    c.applied = Float.NaN;
+            }
+            return;
+        }
+        pending.addCallback(new PendingResult.Callback() {
+            @Override
+            public void onResult(final Result result) {
+                if (!result.hasSucceeded())
+                    refused();
+            }
+
+            @Override
+            public void onError(final AstrobeeException e) {
+                refused();
+            }
+
+            private void refused() {
+                synchronized (TelemetryRateManager.this) {
+                    if (c.applied == rate)
+                        c.applied = Float.NaN;
+                }
+            }
+        }, DIRECT);
+    }
+}
@@ -0,0 +1,71 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A trajectory being run by a {@link Robot}.
+ *
+ * @see Robot#executeTrajectory(java.util.List, java.util.List, int, TrajectoryListener, java.util.concurrent.Executor)
+ */
+public interface TrajectoryExecution {
+
+    /**
+     * @return How many waypoints the trajectory has.
+     */
+    int getWaypointCount();
+
+    /**
+     * @return How many waypoints have been reached so far.
+     */
+    int getReachedCount();
+
+    boolean isFinished();
+
+    /**
+     * Stop the trajectory: moves not yet acknowledged are cancelled, no
+     * more are sent, and the robot is told to stop all motion.
+     *
+     * @return {@code false} if the trajectory had already finished.
+     */
+    boolean abort();
+
+    /**
+     * Wait for the trajectory to finish.
+     *
+     * @return The {@link Result} of the last move, the one that failed, or a
+     *         {@link Result.Status#CANCELED} result if it was aborted.
+     * @throws AstrobeeException If a move never got a {@link Result}.
+     */
+    Result getResult() throws AstrobeeException, InterruptedException;
+
+    /**
+     * Wait at most {@code timeout} for the trajectory to finish.
+     *
+     * Note: Unlike {@link PendingResult#getResult(long, TimeUnit)}, this
+     * throws on timeout rather than returning {@code null}.
+     *
+     * @return As {@link #getResult()}.
+     * @throws TimeoutException If it did not finish in time.
+     */
+    Result getResult(long timeout, TimeUnit unit)
+            throws AstrobeeException, InterruptedException, TimeoutException;
+
+}
@@ -0,0 +1,62 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee;
+
+/**
+ * Receives progress of a trajectory run with
+ * {@link Robot#executeTrajectory(java.util.List, java.util.List, int, TrajectoryListener, java.util.concurrent.Executor)}.
+ *
+ * Waypoints are numbered from 0, in the order they were given.
+ */
+public interface TrajectoryListener {
+
+    /**
+     * The robot started moving to a waypoint.
+     *
+     * @param index The waypoint.
+     */
+    void onWaypointStarted(int index);
+
+    /**
+     * The robot reached a waypoint.
+     *
+     * @param index The waypoint.
+     * @param result The {@link Result} of the move.
+     */
+    void onWaypointReached(int index, Result result);
+
+    /**
+     * The trajectory is over, because every waypoint was reached, because a
+     * move failed, or because it was aborted.
+     *
+     * @param result The {@link Result} of the last move, the one that
+     *               failed, or a {@link Result.Status#CANCELED} result if it
+     *               was aborted.
+     */
+    void onTrajectoryFinished(Result result);
+
+    /**
+     * The trajectory could not be completed because a move never got a
+     * {@link Result}, e.g. it timed out.
+     *
+     * @param index The waypoint being moved to.
+     * @param exception What went wrong.
+     */
+    void onTrajectoryError(int index, AstrobeeException exception);
+
+}
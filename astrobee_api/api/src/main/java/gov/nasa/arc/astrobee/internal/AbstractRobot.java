@@ -20,9 +20,33 @@ package gov.nasa.arc.astrobee.internal;
 
 import gov.nasa.arc.astrobee.PendingResult;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public abstract class AbstractRobot {
 
     protected abstract CommandBuilder makeCommandBuilder();
 
+    /**
+     * Make an encoder for one command of this shape. Implementations that
+     * can lay commands out ahead of time should override this; by default
+     * it goes through {@link #makeCommandBuilder()}.
+     */
+    protected CommandEncoder makeCommandEncoder(final CommandShape shape) {
+        return new BuilderCommandEncoder(makeCommandBuilder(), shape);
+    }
+
     protected abstract PendingResult publish(Publishable cmd);
+
+    /**
+     * Publish several commands back to back, in order. Implementations that
+     * can do so in one pass should override this; by default it goes
+     * through {@link #publish(Publishable)} one command at a time.
+     */
+    protected List<PendingResult> publishAll(final List<Publishable> cmds) {
+        final List<PendingResult> results = new ArrayList<>(cmds.size());
+        for (Publishable cmd : cmds)
+            results.add(publish(cmd));
+        return results;
+    }
 }
@@ -0,0 +1,110 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.internal;
+
+import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.BatchResult;
+import gov.nasa.arc.astrobee.CommandBatch;
+import gov.nasa.arc.astrobee.PendingResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the commands of a {@link CommandBatch}, handing out a
+ * {@link BatchedResult} for each, and publishes them all through its owner
+ * once submitted.
+ */
+final class BatchRobot extends BaseRobotImpl implements CommandBatch {
+    private final AbstractRobot m_owner;
+
+    // Guarded by this
+    private final List<Publishable> m_commands = new ArrayList<>();
+    private final List<BatchedResult> m_results = new ArrayList<>();
+    private boolean m_submitted = false;
+
+    BatchRobot(final AbstractRobot owner) {
+        m_owner = owner;
+    }
+
+    @Override
+    protected CommandBuilder makeCommandBuilder() {
+        return m_owner.makeCommandBuilder();
+    }
+
+    @Override
+    protected CommandEncoder makeCommandEncoder(final CommandShape shape) {
+        return m_owner.makeCommandEncoder(shape);
+    }
+
+    @Override
+    protected synchronized PendingResult publish(final Publishable cmd) {
+        if (m_submitted)
+            throw new IllegalStateException("Batch was already submitted");
+        final BatchedResult result = new BatchedResult();
+        m_commands.add(cmd);
+        m_results.add(result);
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        return m_commands.size();
+    }
+
+    @Override
+    public BatchResult submit() {
+        final List<Publishable> commands;
+        final List<BatchedResult> results;
+        synchronized (this) {
+            if (m_submitted)
+                throw new IllegalStateException("Batch was already submitted");
+            m_submitted = true;
+            commands = new ArrayList<>(m_commands);
+            results = new ArrayList<>(m_results);
+        }
+
+        // Leave out whatever was cancelled before we got here
+        final List<Publishable> send = new ArrayList<>(commands.size());
+        final List<BatchedResult> sent = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            if (results.get(i).isFailed())
+                continue;
+            send.add(commands.get(i));
+            sent.add(results.get(i));
+        }
+
+        final DefaultBatchResult batch = new DefaultBatchResult(
+                new ArrayList<PendingResult>(results));
+        if (!send.isEmpty()) {
+            final List<PendingResult> published;
+            try {
+                published = m_owner.publishAll(send);
+            } catch (RuntimeException e) {
+                final AstrobeeException failure =
+                        new AstrobeeException("Unable to submit batch", e);
+                for (BatchedResult r : sent)
+                    r.fail(failure);
+                throw e;
+            }
+            for (int i = 0; i < sent.size(); i++)
+                sent.get(i).bind(published.get(i));
+        }
+        return batch;
+    }
+}
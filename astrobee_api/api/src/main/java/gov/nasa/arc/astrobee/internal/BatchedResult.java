@@ -0,0 +1,316 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.internal;
+
+import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.CommandCancelledException;
+import gov.nasa.arc.astrobee.PendingResult;
+import gov.nasa.arc.astrobee.Result;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The {@link PendingResult} of a command in a batch that has not been sent
+ * yet. Callbacks, listeners and the timeout are held on to until the batch
+ * is submitted and the command gets its real result, which everything is
+ * then handed over to.
+ */
+final class BatchedResult implements PendingResult {
+    private final CountDownLatch m_settled = new CountDownLatch(1);
+
+    // All guarded by this, and only written until settled
+    private PendingResult m_target = null;
+    private AstrobeeException m_failure = null;
+    private final List<CallbackEntry> m_callbacks = new ArrayList<>();
+    // Listeners by what they were added as, with their forwarders
+    private final Map<StatusListener, ListenerEntry> m_listeners = new HashMap<>();
+    private long m_timeoutDeadline = 0;
+    private boolean m_hasTimeout = false;
+
+    private static final class CallbackEntry {
+        final Callback callback;
+        final Executor executor;
+
+        CallbackEntry(final Callback callback, final Executor executor) {
+            this.callback = callback;
+            this.executor = executor;
+        }
+    }
+
+    private static final class ListenerEntry {
+        final StatusListener forward;
+        final Executor executor;
+
+        ListenerEntry(final StatusListener forward, final Executor executor) {
+            this.forward = forward;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Hand over to the real result, once the command has been sent.
+     */
+    void bind(final PendingResult target) {
+        final List<CallbackEntry> callbacks;
+        final boolean cancelled;
+        synchronized (this) {
+            if (m_target != null)
+                return;
+            cancelled = m_failure instanceof CommandCancelledException;
+            if (m_failure != null) {
+                callbacks = null;
+            } else {
+                m_target = target;
+                if (m_hasTimeout)
+                    target.setTimeout(Math.max(1, m_timeoutDeadline - System.nanoTime()),
+                            TimeUnit.NANOSECONDS);
+                for (ListenerEntry e : m_listeners.values())
+                    target.addStatusListener(e.forward, e.executor);
+                callbacks = new ArrayList<>(m_callbacks);
+                m_callbacks.clear();
+            }
+        }
+        if (callbacks == null) {
+            // Cancelled while the batch was being sent. The robot got it
+            // anyway, so stop tracking the real result as well.
+            if (cancelled)
+                target.cancel();
+            return;
+        }
+        m_settled.countDown();
+        for (CallbackEntry e : callbacks)
+            target.addCallback(e.callback, e.executor);
+    }
+
+    /**
+     * The command will never be sent.
+     *
+     * @return {@code false} if it already had a result or failed.
+     */
+    boolean fail(final AstrobeeException failure) {
+        final List<CallbackEntry> callbacks;
+        synchronized (this) {
+            if (m_target != null || m_failure != null)
+                return false;
+            m_failure = failure;
+            callbacks = new ArrayList<>(m_callbacks);
+            m_callbacks.clear();
+            m_listeners.clear();
+        }
+        m_settled.countDown();
+        for (CallbackEntry e : callbacks)
+            dispatchError(e.callback, e.executor);
+        return true;
+    }
+
+    synchronized boolean isFailed() {
+        return m_failure != null;
+    }
+
+    private synchronized PendingResult target() {
+        return m_target;
+    }
+
+    private void dispatchError(final Callback callback, final Executor executor) {
+        final AstrobeeException failure = m_failure;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onError(failure);
+            }
+        });
+    }
+
+    @Override
+    public boolean isFinished() {
+        final PendingResult target = target();
+        return target != null ? target.isFinished() : isFailed();
+    }
+
+    @Override
+    public Status getStatus() {
+        final PendingResult target = target();
+        return target != null ? target.getStatus() : Status.QUEUED;
+    }
+
+    @Override
+    public Result getResult() throws AstrobeeException, InterruptedException {
+        m_settled.await();
+        final PendingResult target = target();
+        if (target == null)
+            throw m_failure;
+        return target.getResult();
+    }
+
+    /**
+     * Like the real result, {@code null} on timeout, whether or not the
+     * batch was submitted in time.
+     */
+    @Override
+    public Result getResult(long timeout, final TimeUnit unit)
+            throws AstrobeeException, InterruptedException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!m_settled.await(timeout, unit))
+            return null;
+        final PendingResult target = target();
+        if (target == null)
+            throw m_failure;
+        return target.getResult(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void addCallback(final Callback callback, final Executor executor) {
+        if (callback == null || executor == null)
+            throw new NullPointerException("callback and executor may not be null");
+        final PendingResult target;
+        synchronized (this) {
+            if (m_target == null && m_failure == null) {
+                m_callbacks.add(new CallbackEntry(callback, executor));
+                return;
+            }
+            target = m_target;
+        }
+        if (target != null)
+            target.addCallback(callback, executor);
+        else
+            dispatchError(callback, executor);
+    }
+
+    @Override
+    public void addStatusListener(final StatusListener listener, final Executor executor) {
+        if (listener == null || executor == null)
+            throw new NullPointerException("listener and executor may not be null");
+        // Listeners are told about us, not about the result behind us
+        final StatusListener forward = new StatusListener() {
+            @Override
+            public void onStatusChanged(PendingResult pending, Status status) {
+                listener.onStatusChanged(BatchedResult.this, status);
+            }
+        };
+        final PendingResult target;
+        synchronized (this) {
+            target = m_target;
+            if (target == null && m_failure != null)
+                return;
+            m_listeners.put(listener, new ListenerEntry(forward, executor));
+            if (target == null) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onStatusChanged(BatchedResult.this, Status.QUEUED);
+                    }
+                });
+                return;
+            }
+        }
+        target.addStatusListener(forward, executor);
+    }
+
+    @Override
+    public void removeStatusListener(final StatusListener listener) {
+        final ListenerEntry entry;
+        final PendingResult target;
+        synchronized (this) {
+            entry = m_listeners.remove(listener);
+            target = m_target;
+        }
+        if (entry != null && target != null)
+            target.removeStatusListener(entry.forward);
+    }
+
+    @Override
+    public boolean cancel() {
+        final PendingResult target = target();
+        if (target != null)
+            return target.cancel();
+        if (fail(new CommandCancelledException("Command was cancelled before its batch was sent")))
+            return true;
+        // Submitted meanwhile
+        final PendingResult bound = target();
+        return bound != null && bound.cancel();
+    }
+
+    @Override
+    public void setTimeout(long timeout, final TimeUnit unit) {
+        final PendingResult target;
+        synchronized (this) {
+            target = m_target;
+            if (target == null) {
+                m_hasTimeout = true;
+                m_timeoutDeadline = System.nanoTime() + unit.toNanos(timeout);
+                return;
+            }
+        }
+        target.setTimeout(timeout, unit);
+    }
+
+    @Override
+    public Future<Result> asFuture() {
+        return new Future<Result>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return BatchedResult.this.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                final PendingResult target = target();
+                if (target != null)
+                    return target.asFuture().isCancelled();
+                synchronized (BatchedResult.this) {
+                    return m_failure instanceof CommandCancelledException;
+                }
+            }
+
+            @Override
+            public boolean isDone() {
+                return isFinished();
+            }
+
+            @Override
+            public Result get() throws InterruptedException, ExecutionException {
+                try {
+                    return getResult();
+                } catch (AstrobeeException e) {
+                    throw new ExecutionException(e);
+                }
+            }
+
+            @Override
+            public Result get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                final long deadline = System.nanoTime() + unit.toNanos(timeout);
+                if (!m_settled.await(timeout, unit))
+                    throw new TimeoutException("Batch was not submitted in time");
+                final PendingResult target = target();
+                if (target == null)
+                    throw new ExecutionException(m_failure);
+                return target.asFuture().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.internal;
+
+import gov.nasa.arc.astrobee.types.Mat33f;
+import gov.nasa.arc.astrobee.types.Vec3d;
+
+/**
+ * A {@link CommandEncoder} on top of a {@link CommandBuilder}, for
+ * implementations that have no encoder of their own.
+ */
+final class BuilderCommandEncoder implements CommandEncoder {
+    private final CommandBuilder m_builder;
+    private final CommandShape m_shape;
+    private int m_next = 0;
+
+    BuilderCommandEncoder(final CommandBuilder builder, final CommandShape shape) {
+        m_builder = builder;
+        m_shape = shape;
+        m_builder.setName(shape.getName());
+    }
+
+    private String next(int index) {
+        if (index != m_next)
+            throw new IllegalStateException("argument " + index + " of "
+                    + m_shape.getName() + " set out of order");
+        m_next++;
+        return m_shape.getArgName(index);
+    }
+
+    @Override
+    public CommandEncoder setBoolean(int index, boolean value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setDouble(int index, double value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setFloat(int index, float value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setInt(int index, int value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setLong(int index, long value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setString(int index, final String value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setVec3d(int index, final Vec3d value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setMat33f(int index, final Mat33f value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public <E extends Enum<E>> CommandEncoder setEnum(int index, final E value) {
+        m_builder.addArgument(next(index), value);
+        return this;
+    }
+
+    @Override
+    public Publishable build() {
+        if (m_next != m_shape.getArgCount())
+            throw new IllegalStateException(m_shape.getName() + " needs "
+                    + m_shape.getArgCount() + " arguments, got " + m_next);
+        return m_builder.build();
+    }
+}
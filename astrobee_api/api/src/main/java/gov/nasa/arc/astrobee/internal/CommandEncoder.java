@@ -0,0 +1,56 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.internal;
+
+import gov.nasa.arc.astrobee.types.Mat33f;
+import gov.nasa.arc.astrobee.types.Vec3d;
+
+/**
+ * Fills in one command of a known {@link CommandShape}, by argument index
+ * rather than by name. Each argument must be set, once, with the setter
+ * for the type the shape gives it, and in order.
+ *
+ * Unlike a {@link CommandBuilder}, an encoder never has to work out where
+ * an argument goes or what it is, so implementations can write values
+ * straight into a command that was laid out ahead of time.
+ */
+public interface CommandEncoder {
+    CommandEncoder setBoolean(int index, boolean value);
+
+    CommandEncoder setDouble(int index, double value);
+
+    CommandEncoder setFloat(int index, float value);
+
+    CommandEncoder setInt(int index, int value);
+
+    CommandEncoder setLong(int index, long value);
+
+    CommandEncoder setString(int index, String value);
+
+    CommandEncoder setVec3d(int index, Vec3d value);
+
+    CommandEncoder setMat33f(int index, Mat33f value);
+
+    /**
+     * Set an enumerated argument, by its {@link Enum#toString()}.
+     */
+    <E extends Enum<E>>
+    CommandEncoder setEnum(int index, E value);
+
+    Publishable build();
+}
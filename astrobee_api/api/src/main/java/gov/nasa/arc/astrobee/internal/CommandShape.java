@@ -0,0 +1,81 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.internal;
+
+/**
+ * The name of a command and the names and types of its arguments, in
+ * order, known when the code is generated. Implementations use it to set
+ * up a command with every argument already in place, see
+ * {@link CommandEncoder}.
+ */
+public final class CommandShape {
+    public static final int BOOLEAN = 0;
+    public static final int DOUBLE = 1;
+    public static final int FLOAT = 2;
+    public static final int INT = 3;
+    public static final int LONG = 4;
+    public static final int STRING = 5;
+    public static final int VEC3D = 6;
+    public static final int MAT33F = 7;
+
+    private final String m_name;
+    private final String[] m_argNames;
+    private final int[] m_argTypes;
+
+    /**
+     * @param name The name of the command.
+     * @param argNames The names of the arguments, in order.
+     * @param argTypes The types of the arguments, in order, one of the
+     *                 constants above. Enumerated arguments are
+     *                 {@link #STRING}s.
+     */
+    public CommandShape(final String name, final String[] argNames, final int[] argTypes) {
+        if (name == null || argNames == null || argTypes == null)
+            throw new NullPointerException("name and arguments may not be null");
+        if (argNames.length != argTypes.length)
+            throw new IllegalArgumentException("need as many argument names as types");
+        for (int type : argTypes) {
+            if (type < BOOLEAN || type > MAT33F)
+                throw new IllegalArgumentException("invalid argument type " + type);
+        }
+        m_name = name;
+        m_argNames = argNames.clone();
+        m_argTypes = argTypes.clone();
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    public int getArgCount() {
+        return m_argTypes.length;
+    }
+
+    public String getArgName(int index) {
+        return m_argNames[index];
+    }
+
+    public int getArgType(int index) {
+        return m_argTypes[index];
+    }
+
+    @Override
+    public String toString() {
+        return "CommandShape{" + m_name + ", " + m_argTypes.length + " args}";
+    }
+}
@@ -0,0 +1,168 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.internal;
+
+import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.BatchResult;
+import gov.nasa.arc.astrobee.PendingResult;
+import gov.nasa.arc.astrobee.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Follows the results of a batch, finishing once they have all succeeded
+ * or as soon as one fails, whichever comes first.
+ */
+final class DefaultBatchResult implements BatchResult {
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    private final List<PendingResult> m_results;
+    private final AtomicInteger m_remaining;
+    private final AtomicInteger m_firstFailure = new AtomicInteger(-1);
+    private final CountDownLatch m_latch = new CountDownLatch(1);
+
+    // Guarded by this, null once finished
+    private List<CallbackEntry> m_callbacks = new ArrayList<>();
+
+    private static final class CallbackEntry {
+        final Callback callback;
+        final Executor executor;
+
+        CallbackEntry(final Callback callback, final Executor executor) {
+            this.callback = callback;
+            this.executor = executor;
+        }
+    }
+
+    DefaultBatchResult(final List<PendingResult> results) {
+        m_results = Collections.unmodifiableList(results);
+        m_remaining = new AtomicInteger(results.size());
+        if (results.isEmpty()) {
+            finish();
+            return;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            final int index = i;
+            results.get(i).addCallback(new PendingResult.Callback() {
+                @Override
+                public void onResult(final Result result) {
+                    if (result.hasSucceeded())
+                        succeeded();
+                    else
+                        failed(index);
+                }
+
+                @Override
+                public void onError(final AstrobeeException e) {
+                    failed(index);
+                }
+            }, DIRECT);
+        }
+    }
+
+    private void succeeded() {
+        if (m_remaining.decrementAndGet() == 0 && m_firstFailure.get() < 0)
+            finish();
+    }
+
+    private void failed(int index) {
+        if (m_firstFailure.compareAndSet(-1, index))
+            finish();
+    }
+
+    private void finish() {
+        final List<CallbackEntry> callbacks;
+        synchronized (this) {
+            if (m_callbacks == null)
+                return;
+            callbacks = m_callbacks;
+            m_callbacks = null;
+        }
+        m_latch.countDown();
+        for (CallbackEntry e : callbacks)
+            dispatch(e);
+    }
+
+    private void dispatch(final CallbackEntry e) {
+        final int failure = m_firstFailure.get();
+        e.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (failure < 0)
+                    e.callback.onSucceeded(DefaultBatchResult.this);
+                else
+                    e.callback.onFailed(DefaultBatchResult.this, failure);
+            }
+        });
+    }
+
+    @Override
+    public List<PendingResult> getResults() {
+        return m_results;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return m_latch.getCount() == 0;
+    }
+
+    @Override
+    public int getFirstFailure() {
+        return m_firstFailure.get();
+    }
+
+    @Override
+    public int await() throws InterruptedException {
+        m_latch.await();
+        return m_firstFailure.get();
+    }
+
+    @Override
+    public int await(long timeout, final TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (!m_latch.await(timeout, unit))
+            throw new TimeoutException("Batch did not finish in time");
+        return m_firstFailure.get();
+    }
+
+    @Override
+    public void addCallback(final Callback callback, final Executor executor) {
+        if (callback == null || executor == null)
+            throw new NullPointerException("callback and executor may not be null");
+        final CallbackEntry entry = new CallbackEntry(callback, executor);
+        synchronized (this) {
+            if (m_callbacks != null) {
+                m_callbacks.add(entry);
+                return;
+            }
+        }
+        dispatch(entry);
+    }
+}
@@ -18,12 +18,22 @@
 
 package gov.nasa.arc.astrobee.internal;
 
+import gov.nasa.arc.astrobee.CommandBatch;
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsPredicate;
 import gov.nasa.arc.astrobee.PendingResult;
 import gov.nasa.arc.astrobee.Robot;
+import gov.nasa.arc.astrobee.TrajectoryExecution;
+import gov.nasa.arc.astrobee.TrajectoryListener;
 import gov.nasa.arc.astrobee.types.Point;
 import gov.nasa.arc.astrobee.types.Quaternion;
 import gov.nasa.arc.astrobee.types.Vec3d;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 public abstract class RobotImpl extends BaseRobotImpl implements Robot {
     private static final String REFERENCE_FRAME = "ISS";
     private static final Vec3d TOLERANCE = new Vec3d(0, 0, 0);
@@ -33,4 +43,42 @@ public abstract class RobotImpl extends BaseRobotImpl implements Robot {
         return simpleMove6DOF(REFERENCE_FRAME, xyz, TOLERANCE, rot);
     }
 
+    @Override
+    public TrajectoryExecution executeTrajectory(List<Point> points, List<Quaternion> orientations) {
+        return executeTrajectory(points, orientations, 1, null, null);
+    }
+
+    @Override
+    public TrajectoryExecution executeTrajectory(List<Point> points,
+                                                 List<Quaternion> orientations,
+                                                 int maxInFlight,
+                                                 TrajectoryListener listener,
+                                                 Executor executor) {
+        final TrajectoryRunner runner = new TrajectoryRunner(
+                this, points, orientations, maxInFlight, listener, executor);
+        runner.start();
+        return runner;
+    }
+
+    @Override
+    public CommandBatch newBatch() {
+        return new BatchRobot(this);
+    }
+
+    @Override
+    public Kinematics awaitConfidence(final Kinematics.Confidence confidence,
+                                      long timeout,
+                                      final TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (confidence == null)
+            throw new NullPointerException("confidence may not be null");
+        // Confidence goes from GOOD to LOST
+        return awaitKinematics(new KinematicsPredicate() {
+            @Override
+            public boolean matches(final Kinematics kinematics) {
+                return kinematics.getConfidence().compareTo(confidence) <= 0;
+            }
+        }, timeout, unit);
+    }
+
 }
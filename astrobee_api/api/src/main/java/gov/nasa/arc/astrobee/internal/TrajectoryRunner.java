@@ -0,0 +1,321 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.internal;
+
+import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.PendingResult;
+import gov.nasa.arc.astrobee.Result;
+import gov.nasa.arc.astrobee.Robot;
+import gov.nasa.arc.astrobee.TrajectoryExecution;
+import gov.nasa.arc.astrobee.TrajectoryListener;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a trajectory as a chain of {@code simpleMove6DOF} commands, driven
+ * entirely by their completion callbacks: the next move goes out from the
+ * ack of the previous one, with no caller thread to wake up in between.
+ *
+ * Up to {@code maxInFlight} moves are outstanding at once, so the executive
+ * can plan the next leg while the robot flies the current one. If it rejects
+ * a move sent ahead of time, the moves still outstanding are waited out,
+ * and the trajectory goes on from the rejected move, one move at a time.
+ * Moves sent after the rejected one are sent again, so the waypoints are
+ * always flown in order, even if one of them was flown out of turn.
+ */
+final class TrajectoryRunner implements TrajectoryExecution {
+    // Our own bookkeeping is cheap enough to run on the ack thread
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final Result ABORTED = new Result() {
+        @Override
+        public String getMessage() {
+            return "Trajectory aborted";
+        }
+
+        @Override
+        public Status getStatus() {
+            return Status.CANCELED;
+        }
+
+        @Override
+        public boolean hasSucceeded() {
+            return false;
+        }
+    };
+
+    private final Robot m_robot;
+    private final List<Point> m_points;
+    private final List<Quaternion> m_orientations;
+    private final TrajectoryListener m_listener;
+    private final Executor m_executor;
+
+    // Everything below is guarded by this
+    private final PendingResult[] m_pending;
+    private final boolean[] m_sentAhead;
+    private final boolean[] m_retried;
+    private final boolean[] m_announced;
+    private int m_maxInFlight;
+    private int m_next = 0;
+    // Where to go on from once nothing is in flight, -1 unless rewinding
+    private int m_resumeFrom = -1;
+    private int m_inFlight = 0;
+    private int m_reached = 0;
+    private boolean m_finished = false;
+    private Result m_result = null;
+    private AstrobeeException m_exception = null;
+
+    private final CountDownLatch m_done = new CountDownLatch(1);
+
+    TrajectoryRunner(final Robot robot,
+                     final List<Point> points,
+                     final List<Quaternion> orientations,
+                     int maxInFlight,
+                     final TrajectoryListener listener,
+                     final Executor executor) {
+        if (points.isEmpty())
+            throw new IllegalArgumentException("A trajectory needs at least one waypoint");
+        if (points.size() != orientations.size())
+            throw new IllegalArgumentException("Need exactly one orientation per point");
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        if (listener != null && executor == null)
+            throw new NullPointerException("executor may not be null with a listener");
+
+        m_robot = robot;
+        m_points = new ArrayList<>(points);
+        m_orientations = new ArrayList<>(orientations);
+        m_maxInFlight = maxInFlight;
+        m_listener = listener;
+        m_executor = executor;
+
+        final int n = m_points.size();
+        m_pending = new PendingResult[n];
+        m_sentAhead = new boolean[n];
+        m_retried = new boolean[n];
+        m_announced = new boolean[n];
+    }
+
+    synchronized void start() {
+        fill();
+    }
+
+    /**
+     * Send moves until {@code m_maxInFlight} are outstanding, or, after a
+     * rejected move, go back to it once nothing is in flight.
+     */
+    private void fill() {
+        if (m_resumeFrom >= 0) {
+            if (m_inFlight > 0)
+                return;
+            for (int i = m_resumeFrom; i < m_next; i++)
+                m_pending[i] = null;
+            m_next = m_resumeFrom;
+            m_resumeFrom = -1;
+        }
+        while (!m_finished && m_inFlight < m_maxInFlight && m_next < m_points.size())
+            send(m_next++);
+    }
+
+    /**
+     * @return Whether a move will be sent again anyway, so what became of
+     *         it does not matter.
+     */
+    private boolean isStale(final int index) {
+        return m_resumeFrom >= 0 && index > m_resumeFrom;
+    }
+
+    private void send(final int index) {
+        m_sentAhead[index] = m_inFlight > 0;
+        m_inFlight++;
+
+        final PendingResult pr;
+        try {
+            pr = m_robot.simpleMove6DOF(m_points.get(index), m_orientations.get(index));
+        } catch (RuntimeException e) {
+            m_inFlight--;
+            fail(index, new AstrobeeException("Unable to send move to waypoint " + index, e));
+            return;
+        }
+        m_pending[index] = pr;
+        if (index == m_reached)
+            announce(index);
+
+        // May call straight back if the move already finished
+        pr.addCallback(new PendingResult.Callback() {
+            @Override
+            public void onResult(final Result result) {
+                onMoveResult(index, result);
+            }
+
+            @Override
+            public void onError(final AstrobeeException exception) {
+                onMoveError(index, exception);
+            }
+        }, DIRECT);
+    }
+
+    private synchronized void onMoveResult(final int index, final Result result) {
+        if (m_finished)
+            return;
+        m_inFlight--;
+
+        if (isStale(index)) {
+            fill();
+        } else if (result.hasSucceeded()) {
+            m_reached++;
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    m_listener.onWaypointReached(index, result);
+                }
+            });
+            if (m_reached == m_points.size()) {
+                finish(result, null, index);
+                return;
+            }
+            if (m_pending[m_reached] != null)
+                announce(m_reached);
+            fill();
+        } else if (m_sentAhead[index] && !m_retried[index]
+                && result.getStatus() == Result.Status.EXEC_FAILED) {
+            // Most likely refused because the robot was busy. Whatever was
+            // sent after it may already be flying, so wait for that to end
+            // before going on from here.
+            m_retried[index] = true;
+            m_pending[index] = null;
+            m_maxInFlight = 1;
+            m_resumeFrom = m_resumeFrom < 0 ? index : Math.min(m_resumeFrom, index);
+            fill();
+        } else {
+            finish(result, null, index);
+        }
+    }
+
+    private synchronized void onMoveError(final int index, final AstrobeeException exception) {
+        // Our own cancellations land here once we are finished
+        if (m_finished)
+            return;
+        m_inFlight--;
+        if (isStale(index))
+            fill();
+        else
+            fail(index, exception);
+    }
+
+    private void fail(final int index, final AstrobeeException exception) {
+        finish(null, exception, index);
+    }
+
+    private void announce(final int index) {
+        if (m_announced[index])
+            return;
+        m_announced[index] = true;
+        post(new Runnable() {
+            @Override
+            public void run() {
+                m_listener.onWaypointStarted(index);
+            }
+        });
+    }
+
+    private void finish(final Result result, final AstrobeeException exception, final int index) {
+        m_finished = true;
+        m_result = result;
+        m_exception = exception;
+        m_done.countDown();
+
+        for (PendingResult pr : m_pending) {
+            if (pr != null && !pr.isFinished())
+                pr.cancel();
+        }
+
+        post(new Runnable() {
+            @Override
+            public void run() {
+                if (exception != null)
+                    m_listener.onTrajectoryError(index, exception);
+                else
+                    m_listener.onTrajectoryFinished(result);
+            }
+        });
+    }
+
+    private void post(final Runnable event) {
+        if (m_listener != null)
+            m_executor.execute(event);
+    }
+
+    @Override
+    public int getWaypointCount() {
+        return m_points.size();
+    }
+
+    @Override
+    public synchronized int getReachedCount() {
+        return m_reached;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return m_done.getCount() == 0;
+    }
+
+    @Override
+    public boolean abort() {
+        synchronized (this) {
+            if (m_finished)
+                return false;
+            finish(ABORTED, null, m_reached);
+        }
+        m_robot.stopAllMotion();
+        return true;
+    }
+
+    @Override
+    public Result getResult() throws AstrobeeException, InterruptedException {
+        m_done.await();
+        return result();
+    }
+
+    @Override
+    public Result getResult(long timeout, final TimeUnit unit)
+            throws AstrobeeException, InterruptedException, TimeoutException {
+        if (!m_done.await(timeout, unit))
+            throw new TimeoutException("Timed out waiting for the trajectory");
+        return result();
+    }
+
+    private synchronized Result result() throws AstrobeeException {
+        if (m_exception != null)
+            throw m_exception;
+        return m_result;
+    }
+}
@@ -32,4 +32,14 @@ public class Mat33f {
     public float[] toArray() {
         return m_vec.clone();
     }
+
+    /**
+     * Copy all nine values into {@code out} without allocating.
+     *
+     * @param out Where to copy the values.
+     * @param offset Where in {@code out} to start.
+     */
+    public void toArray(final float[] out, int offset) {
+        System.arraycopy(m_vec, 0, out, offset, 9);
+    }
 }
@@ -59,6 +59,20 @@ public class Quaternion extends Mat33f {
         return m_vec[3];
     }
 
+    /**
+     * Copy (x, y, z, w) into {@code out} without allocating, ready for use
+     * with {@link Quaternions}.
+     *
+     * @param out Where to copy the values.
+     * @param offset Where in {@code out} to start.
+     */
+    public void toArray(final double[] out, int offset) {
+        out[offset] = m_vec[0];
+        out[offset + 1] = m_vec[1];
+        out[offset + 2] = m_vec[2];
+        out[offset + 3] = m_vec[3];
+    }
+
     private static final DecimalFormat s_decimalFormatter = new DecimalFormat("#.###");
 
     @Override
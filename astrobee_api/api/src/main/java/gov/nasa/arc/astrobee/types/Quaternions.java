@@ -0,0 +1,314 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.types;
+
+/**
+ * Quaternion math, with quaternions ordered (x, y, z, w) as they are
+ * everywhere else in Astrobee. Rotations use the Hamilton convention, and
+ * matrices are 3x3, row-major.
+ *
+ * Like {@link Vectors}, most operations work on primitive {@code double}
+ * arrays at an offset, never allocate, and allow the output to alias an
+ * input. The {@link Quaternion} overloads are for convenience and allocate
+ * their result.
+ */
+public final class Quaternions {
+    private Quaternions() { }
+
+    // Above this dot product the rotations are so close that slerp would
+    // divide by almost zero, so it falls back to a normalized lerp
+    private static final double SLERP_THRESHOLD = 0.9995;
+
+    public static void identity(final double[] out, int oo) {
+        out[oo] = 0;
+        out[oo + 1] = 0;
+        out[oo + 2] = 0;
+        out[oo + 3] = 1;
+    }
+
+    /**
+     * {@code out = a * b}, i.e. rotate by {@code b}, then by {@code a}.
+     */
+    public static void multiply(final double[] a, int ao,
+                                final double[] b, int bo,
+                                final double[] out, int oo) {
+        final double ax = a[ao], ay = a[ao + 1], az = a[ao + 2], aw = a[ao + 3];
+        final double bx = b[bo], by = b[bo + 1], bz = b[bo + 2], bw = b[bo + 3];
+        out[oo] = aw * bx + ax * bw + ay * bz - az * by;
+        out[oo + 1] = aw * by - ax * bz + ay * bw + az * bx;
+        out[oo + 2] = aw * bz + ax * by - ay * bx + az * bw;
+        out[oo + 3] = aw * bw - ax * bx - ay * by - az * bz;
+    }
+
+    public static void conjugate(final double[] q, int qo, final double[] out, int oo) {
+        out[oo] = -q[qo];
+        out[oo + 1] = -q[qo + 1];
+        out[oo + 2] = -q[qo + 2];
+        out[oo + 3] = q[qo + 3];
+    }
+
+    public static double norm(final double[] q, int qo) {
+        final double x = q[qo], y = q[qo + 1], z = q[qo + 2], w = q[qo + 3];
+        return Math.sqrt(x * x + y * y + z * z + w * w);
+    }
+
+    /**
+     * Scale {@code q} to unit length into {@code out}. A zero quaternion
+     * becomes the identity.
+     */
+    public static void normalize(final double[] q, int qo, final double[] out, int oo) {
+        final double n = norm(q, qo);
+        if (n == 0) {
+            identity(out, oo);
+            return;
+        }
+        out[oo] = q[qo] / n;
+        out[oo + 1] = q[qo + 1] / n;
+        out[oo + 2] = q[qo + 2] / n;
+        out[oo + 3] = q[qo + 3] / n;
+    }
+
+    /**
+     * Rotate the 3-vector {@code v} by the unit quaternion {@code q}.
+     */
+    public static void rotate(final double[] q, int qo,
+                              final double[] v, int vo,
+                              final double[] out, int oo) {
+        final double qx = q[qo], qy = q[qo + 1], qz = q[qo + 2], qw = q[qo + 3];
+        final double vx = v[vo], vy = v[vo + 1], vz = v[vo + 2];
+        // t = 2 * (q.xyz x v); v' = v + w * t + q.xyz x t
+        final double tx = 2 * (qy * vz - qz * vy);
+        final double ty = 2 * (qz * vx - qx * vz);
+        final double tz = 2 * (qx * vy - qy * vx);
+        out[oo] = vx + qw * tx + (qy * tz - qz * ty);
+        out[oo + 1] = vy + qw * ty + (qz * tx - qx * tz);
+        out[oo + 2] = vz + qw * tz + (qx * ty - qy * tx);
+    }
+
+    /**
+     * Rotate {@code count} packed 3-vectors by the unit quaternion {@code q}.
+     */
+    public static void rotate(final double[] q, int qo,
+                              final double[] vectors, final double[] out, int count) {
+        for (int i = 0; i < count; i++)
+            rotate(q, qo, vectors, i * 3, out, i * 3);
+    }
+
+    /**
+     * Spherical linear interpolation between unit quaternions, always taking
+     * the shorter path.
+     *
+     * @param t 0 gives {@code a}, 1 gives {@code b}.
+     */
+    public static void slerp(final double[] a, int ao,
+                             final double[] b, int bo,
+                             double t,
+                             final double[] out, int oo) {
+        slerp(a, ao, b[bo], b[bo + 1], b[bo + 2], b[bo + 3], t, out, oo);
+    }
+
+    /**
+     * Spherical linear interpolation between unit quaternions, with the
+     * second one given component by component.
+     *
+     * @see #slerp(double[], int, double[], int, double, double[], int)
+     */
+    public static void slerp(final double[] a, int ao,
+                             double bx, double by, double bz, double bw,
+                             double t,
+                             final double[] out, int oo) {
+        final double ax = a[ao], ay = a[ao + 1], az = a[ao + 2], aw = a[ao + 3];
+        double dot = ax * bx + ay * by + az * bz + aw * bw;
+        if (dot < 0) {
+            dot = -dot;
+            bx = -bx;
+            by = -by;
+            bz = -bz;
+            bw = -bw;
+        }
+
+        final double s0, s1;
+        if (dot > SLERP_THRESHOLD) {
+            s0 = 1 - t;
+            s1 = t;
+        } else {
+            final double theta0 = Math.acos(dot);
+            final double sinTheta0 = Math.sin(theta0);
+            s0 = Math.sin((1 - t) * theta0) / sinTheta0;
+            s1 = Math.sin(t * theta0) / sinTheta0;
+        }
+
+        out[oo] = s0 * ax + s1 * bx;
+        out[oo + 1] = s0 * ay + s1 * by;
+        out[oo + 2] = s0 * az + s1 * bz;
+        out[oo + 3] = s0 * aw + s1 * bw;
+        normalize(out, oo, out, oo);
+    }
+
+    /**
+     * @param axis A unit 3-vector.
+     * @param angle The rotation about {@code axis}, in radians.
+     */
+    public static void fromAxisAngle(final double[] axis, int ao, double angle,
+                                     final double[] out, int oo) {
+        final double s = Math.sin(angle / 2);
+        final double c = Math.cos(angle / 2);
+        out[oo] = axis[ao] * s;
+        out[oo + 1] = axis[ao + 1] * s;
+        out[oo + 2] = axis[ao + 2] * s;
+        out[oo + 3] = c;
+    }
+
+    /**
+     * Convert a unit quaternion to a unit axis and an angle.
+     *
+     * @param out Receives (x, y, z, angle), with the angle in radians. When
+     *            there is no rotation the axis is +X.
+     */
+    public static void toAxisAngle(final double[] q, int qo, final double[] out, int oo) {
+        final double w = Math.max(-1.0, Math.min(1.0, q[qo + 3]));
+        final double s = Math.sqrt(1 - w * w);
+        final double x = q[qo], y = q[qo + 1], z = q[qo + 2];
+        if (s < 1e-9) {
+            out[oo] = 1;
+            out[oo + 1] = 0;
+            out[oo + 2] = 0;
+        } else {
+            out[oo] = x / s;
+            out[oo + 1] = y / s;
+            out[oo + 2] = z / s;
+        }
+        out[oo + 3] = 2 * Math.acos(w);
+    }
+
+    /**
+     * Convert a unit quaternion to a 3x3 row-major rotation matrix.
+     */
+    public static void toMatrix(final double[] q, int qo, final double[] m, int mo) {
+        final double x = q[qo], y = q[qo + 1], z = q[qo + 2], w = q[qo + 3];
+        final double xx = x * x, yy = y * y, zz = z * z;
+        final double xy = x * y, xz = x * z, yz = y * z;
+        final double xw = x * w, yw = y * w, zw = z * w;
+        m[mo] = 1 - 2 * (yy + zz);
+        m[mo + 1] = 2 * (xy - zw);
+        m[mo + 2] = 2 * (xz + yw);
+        m[mo + 3] = 2 * (xy + zw);
+        m[mo + 4] = 1 - 2 * (xx + zz);
+        m[mo + 5] = 2 * (yz - xw);
+        m[mo + 6] = 2 * (xz - yw);
+        m[mo + 7] = 2 * (yz + xw);
+        m[mo + 8] = 1 - 2 * (xx + yy);
+    }
+
+    /**
+     * Convert a 3x3 row-major rotation matrix to a unit quaternion.
+     */
+    public static void fromMatrix(final double[] m, int mo, final double[] out, int oo) {
+        final double m00 = m[mo], m01 = m[mo + 1], m02 = m[mo + 2];
+        final double m10 = m[mo + 3], m11 = m[mo + 4], m12 = m[mo + 5];
+        final double m20 = m[mo + 6], m21 = m[mo + 7], m22 = m[mo + 8];
+        final double trace = m00 + m11 + m22;
+        double x, y, z, w, s;
+        if (trace > 0) {
+            s = 0.5 / Math.sqrt(trace + 1);
+            w = 0.25 / s;
+            x = (m21 - m12) * s;
+            y = (m02 - m20) * s;
+            z = (m10 - m01) * s;
+        } else if (m00 > m11 && m00 > m22) {
+            s = 2 * Math.sqrt(1 + m00 - m11 - m22);
+            w = (m21 - m12) / s;
+            x = 0.25 * s;
+            y = (m01 + m10) / s;
+            z = (m02 + m20) / s;
+        } else if (m11 > m22) {
+            s = 2 * Math.sqrt(1 + m11 - m00 - m22);
+            w = (m02 - m20) / s;
+            x = (m01 + m10) / s;
+            y = 0.25 * s;
+            z = (m12 + m21) / s;
+        } else {
+            s = 2 * Math.sqrt(1 + m22 - m00 - m11);
+            w = (m10 - m01) / s;
+            x = (m02 + m20) / s;
+            y = (m12 + m21) / s;
+            z = 0.25 * s;
+        }
+        out[oo] = x;
+        out[oo + 1] = y;
+        out[oo + 2] = z;
+        out[oo + 3] = w;
+        normalize(out, oo, out, oo);
+    }
+
+    private static double[] toDoubles(final Quaternion q) {
+        return new double[]{ q.m_vec[0], q.m_vec[1], q.m_vec[2], q.m_vec[3] };
+    }
+
+    private static Quaternion toQuaternion(final double[] q) {
+        return new Quaternion((float) q[0], (float) q[1], (float) q[2], (float) q[3]);
+    }
+
+    public static Quaternion multiply(final Quaternion a, final Quaternion b) {
+        final double[] out = toDoubles(a);
+        multiply(out, 0, toDoubles(b), 0, out, 0);
+        return toQuaternion(out);
+    }
+
+    public static Quaternion conjugate(final Quaternion q) {
+        return new Quaternion(-q.getX(), -q.getY(), -q.getZ(), q.getW());
+    }
+
+    public static Vec3d rotate(final Quaternion q, final Vec3d v) {
+        final double[] out = new double[3];
+        rotate(toDoubles(q), 0, v.m_vec, 0, out, 0);
+        return new Vec3d(out[0], out[1], out[2]);
+    }
+
+    public static Quaternion slerp(final Quaternion a, final Quaternion b, double t) {
+        final double[] out = toDoubles(a);
+        slerp(out, 0, toDoubles(b), 0, t, out, 0);
+        return toQuaternion(out);
+    }
+
+    public static Quaternion fromAxisAngle(final Vec3d axis, double angle) {
+        final double[] out = new double[4];
+        final double[] unit = new double[3];
+        Vectors.normalize(axis.m_vec, 0, unit, 0);
+        fromAxisAngle(unit, 0, angle, out, 0);
+        return toQuaternion(out);
+    }
+
+    public static Mat33f toMatrix(final Quaternion q) {
+        final double[] m = new double[9];
+        toMatrix(toDoubles(q), 0, m, 0);
+        final float[] f = new float[9];
+        for (int i = 0; i < 9; i++)
+            f[i] = (float) m[i];
+        return new Mat33f(f);
+    }
+
+    public static Quaternion fromMatrix(final Mat33f m) {
+        final double[] d = new double[9];
+        for (int i = 0; i < 9; i++)
+            d[i] = m.m_vec[i];
+        final double[] out = new double[4];
+        fromMatrix(d, 0, out, 0);
+        return toQuaternion(out);
+    }
+}
@@ -43,6 +43,18 @@ public class Vec3d {
         return m_vec.clone();
     }
 
+    /**
+     * Copy (x, y, z) into {@code out} without allocating.
+     *
+     * @param out Where to copy the values.
+     * @param offset Where in {@code out} to start.
+     */
+    public void toArray(final double[] out, int offset) {
+        out[offset] = m_vec[0];
+        out[offset + 1] = m_vec[1];
+        out[offset + 2] = m_vec[2];
+    }
+
     private static final DecimalFormat s_decimalFormatter = new DecimalFormat("#.###");
 
     @Override
@@ -0,0 +1,193 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.types;
+
+/**
+ * Vector math for 3-vectors.
+ *
+ * Most operations work on primitive {@code double} arrays, where a vector is
+ * three consecutive values starting at an offset. These never allocate, and
+ * the output may alias either input, so they can be used in place. The
+ * batch variants work on arrays of packed (x, y, z) triples.
+ *
+ * The {@link Vec3d} overloads are for convenience; those that return a
+ * vector allocate it.
+ */
+public final class Vectors {
+    private Vectors() { }
+
+    public static void add(final double[] a, int ao,
+                           final double[] b, int bo,
+                           final double[] out, int oo) {
+        final double x = a[ao] + b[bo];
+        final double y = a[ao + 1] + b[bo + 1];
+        final double z = a[ao + 2] + b[bo + 2];
+        out[oo] = x;
+        out[oo + 1] = y;
+        out[oo + 2] = z;
+    }
+
+    public static void sub(final double[] a, int ao,
+                           final double[] b, int bo,
+                           final double[] out, int oo) {
+        final double x = a[ao] - b[bo];
+        final double y = a[ao + 1] - b[bo + 1];
+        final double z = a[ao + 2] - b[bo + 2];
+        out[oo] = x;
+        out[oo + 1] = y;
+        out[oo + 2] = z;
+    }
+
+    public static void scale(final double[] a, int ao, double s,
+                             final double[] out, int oo) {
+        out[oo] = a[ao] * s;
+        out[oo + 1] = a[ao + 1] * s;
+        out[oo + 2] = a[ao + 2] * s;
+    }
+
+    public static double dot(final double[] a, int ao, final double[] b, int bo) {
+        return a[ao] * b[bo] + a[ao + 1] * b[bo + 1] + a[ao + 2] * b[bo + 2];
+    }
+
+    public static void cross(final double[] a, int ao,
+                             final double[] b, int bo,
+                             final double[] out, int oo) {
+        final double x = a[ao + 1] * b[bo + 2] - a[ao + 2] * b[bo + 1];
+        final double y = a[ao + 2] * b[bo] - a[ao] * b[bo + 2];
+        final double z = a[ao] * b[bo + 1] - a[ao + 1] * b[bo];
+        out[oo] = x;
+        out[oo + 1] = y;
+        out[oo + 2] = z;
+    }
+
+    public static double norm(final double[] a, int ao) {
+        return Math.sqrt(dot(a, ao, a, ao));
+    }
+
+    /**
+     * Scale {@code a} to unit length into {@code out}. A zero vector is
+     * copied unchanged.
+     *
+     * @return The length {@code a} had.
+     */
+    public static double normalize(final double[] a, int ao, final double[] out, int oo) {
+        final double n = norm(a, ao);
+        scale(a, ao, n > 0 ? 1.0 / n : 1.0, out, oo);
+        return n;
+    }
+
+    public static double distance(final double[] a, int ao, final double[] b, int bo) {
+        final double dx = a[ao] - b[bo];
+        final double dy = a[ao + 1] - b[bo + 1];
+        final double dz = a[ao + 2] - b[bo + 2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * {@code out[i] = a[i] + b[i]} for {@code count} packed vectors.
+     */
+    public static void add(final double[] a, final double[] b, final double[] out, int count) {
+        for (int i = 0, n = count * 3; i < n; i++)
+            out[i] = a[i] + b[i];
+    }
+
+    /**
+     * {@code out[i] = a[i] - b[i]} for {@code count} packed vectors.
+     */
+    public static void sub(final double[] a, final double[] b, final double[] out, int count) {
+        for (int i = 0, n = count * 3; i < n; i++)
+            out[i] = a[i] - b[i];
+    }
+
+    /**
+     * {@code out[i] = a[i] * s} for {@code count} packed vectors.
+     */
+    public static void scale(final double[] a, double s, final double[] out, int count) {
+        for (int i = 0, n = count * 3; i < n; i++)
+            out[i] = a[i] * s;
+    }
+
+    /**
+     * {@code out[i] = a[i] . b[i]} for {@code count} packed vectors.
+     */
+    public static void dot(final double[] a, final double[] b, final double[] out, int count) {
+        for (int i = 0; i < count; i++)
+            out[i] = dot(a, i * 3, b, i * 3);
+    }
+
+    /**
+     * {@code out[i] = |a[i]|} for {@code count} packed vectors.
+     */
+    public static void norm(final double[] a, final double[] out, int count) {
+        for (int i = 0; i < count; i++)
+            out[i] = norm(a, i * 3);
+    }
+
+    /**
+     * {@code out[i] = |a[i] - b[i]|} for {@code count} packed vectors.
+     */
+    public static void distance(final double[] a, final double[] b, final double[] out, int count) {
+        for (int i = 0; i < count; i++)
+            out[i] = distance(a, i * 3, b, i * 3);
+    }
+
+    /**
+     * @return The total length of the path through {@code count} packed
+     *         points, in order.
+     */
+    public static double pathLength(final double[] points, int count) {
+        double length = 0;
+        for (int i = 1; i < count; i++)
+            length += distance(points, (i - 1) * 3, points, i * 3);
+        return length;
+    }
+
+    public static Vec3d add(final Vec3d a, final Vec3d b) {
+        final double[] out = new double[3];
+        add(a.m_vec, 0, b.m_vec, 0, out, 0);
+        return new Vec3d(out[0], out[1], out[2]);
+    }
+
+    public static Vec3d sub(final Vec3d a, final Vec3d b) {
+        final double[] out = new double[3];
+        sub(a.m_vec, 0, b.m_vec, 0, out, 0);
+        return new Vec3d(out[0], out[1], out[2]);
+    }
+
+    public static Vec3d scale(final Vec3d a, double s) {
+        return new Vec3d(a.m_vec[0] * s, a.m_vec[1] * s, a.m_vec[2] * s);
+    }
+
+    public static Vec3d cross(final Vec3d a, final Vec3d b) {
+        final double[] out = new double[3];
+        cross(a.m_vec, 0, b.m_vec, 0, out, 0);
+        return new Vec3d(out[0], out[1], out[2]);
+    }
+
+    public static double dot(final Vec3d a, final Vec3d b) {
+        return dot(a.m_vec, 0, b.m_vec, 0);
+    }
+
+    public static double norm(final Vec3d a) {
+        return norm(a.m_vec, 0);
+    }
+
+    public static double distance(final Vec3d a, final Vec3d b) {
+        return distance(a.m_vec, 0, b.m_vec, 0);
+    }
+}
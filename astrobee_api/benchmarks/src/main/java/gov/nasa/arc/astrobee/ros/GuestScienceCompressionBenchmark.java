@@ -0,0 +1,148 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * The CPU cost of {@link GuestScienceDataCompression} on payloads like the
+ * ones guest science apks send, against plain deflate with no dictionary.
+ * The sizes before and after come out as the secondary results
+ * {@code originalBytes} and {@code compressedBytes}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GuestScienceCompressionBenchmark {
+    @Param({"summary", "status", "log"})
+    public String m_payload;
+
+    private byte[] m_data;
+    private byte[] m_compressed;
+    private final Deflater m_plain = new Deflater(Deflater.BEST_COMPRESSION, true);
+    private final byte[] m_out = new byte[64 * 1024];
+
+    /**
+     * JMH adds events up over every measured iteration of every fork, so
+     * each iteration reports its share of the size, and the total is the
+     * size of one payload.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+        public double originalBytes;
+        public double compressedBytes;
+        private double m_share;
+
+        @Setup(Level.Iteration)
+        public void reset(final BenchmarkParams benchmark, final IterationParams iteration) {
+            originalBytes = 0;
+            compressedBytes = 0;
+            m_share = 1.0 / (iteration.getCount() * Math.max(1, benchmark.getForks()));
+        }
+
+        void record(int original, int compressed) {
+            originalBytes = original * m_share;
+            compressedBytes = compressed * m_share;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        m_data = payload(m_payload).getBytes(Charset.forName("UTF-8"));
+        m_compressed = GuestScienceDataCompression.compress(m_data);
+    }
+
+    private static String payload(final String name) {
+        switch (name) {
+            case "summary":
+                // What most apks send on start, stop and every command
+                return "{\"Summary\": \"Received Custom Command\"}";
+            case "status":
+                // A gripper status update, sent on every step
+                return "{\"Gripper Status\": {\"Adhesive Engage\": true, " +
+                        "\"Wrist Lock\": false, \"Automatic Mode Enable\": false, " +
+                        "\"Experiment in Progress\": true, \"Error Status\": 0, " +
+                        "\"Last Status Read Time\": 1523.25, \"Experiment Idx\": 12, " +
+                        "\"Position\": 0.25, \"Feedback\": 1, \"Delay\": 50}}";
+            case "log":
+                // A batch of readings, too big to send uncompressed
+                final StringBuilder sb = new StringBuilder("{\"Summary\": [");
+                for (int i = 0; i < 60; i++) {
+                    if (i > 0)
+                        sb.append(", ");
+                    sb.append("{\"Experiment Idx\": ").append(i)
+                            .append(", \"Position\": ").append(i * 0.125)
+                            .append(", \"Status\": \"ok\"}");
+                }
+                return sb.append("]}").toString();
+            default:
+                throw new IllegalArgumentException("Unknown payload " + name);
+        }
+    }
+
+    private int compressPlain() {
+        m_plain.reset();
+        m_plain.setInput(m_data);
+        m_plain.finish();
+        int size = 0;
+        while (!m_plain.finished())
+            size += m_plain.deflate(m_out, size, m_out.length - size);
+        return size;
+    }
+
+    @Benchmark
+    public byte[] compress(final Sizes sizes) {
+        final byte[] compressed = GuestScienceDataCompression.compress(m_data);
+        sizes.record(m_data.length, compressed.length);
+        return compressed;
+    }
+
+    @Benchmark
+    public int compressWithoutDictionary(final Sizes sizes) {
+        final int size = compressPlain();
+        sizes.record(m_data.length, size);
+        return size;
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return GuestScienceDataCompression.decompress(m_compressed);
+    }
+}
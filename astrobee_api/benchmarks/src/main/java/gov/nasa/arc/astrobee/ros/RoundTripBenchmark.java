@@ -0,0 +1,90 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import gov.nasa.arc.astrobee.Result;
+import gov.nasa.arc.astrobee.Robot;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import gov.nasa.arc.astrobee.types.Vec3d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full round trips over real rosjava transport: a command goes from
+ * {@link Robot} through {@link DefaultRobotFactory}'s node to a
+ * {@link SimulatedExecutive} that acks straight away and plans nothing, and
+ * the ack comes back, all through the in-process ROS master of a
+ * {@link LocalSimulation}. Needs no network and no simulator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RoundTripBenchmark {
+    private LocalSimulation m_local;
+    private Robot m_robot;
+
+    private final Point m_xyz = new Point(1.0, 2.0, 3.0);
+    private final Vec3d m_tolerance = new Vec3d(0.1, 0.1, 0.1);
+    private final Quaternion m_rot = new Quaternion(0, 0, 0.7071068f, 0.7071068f);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        m_local = new LocalSimulation(new SimulatedExecutive(new SimulatedExecutiveConfiguration()
+                .setAckDelay(0, 0, TimeUnit.MILLISECONDS)
+                .setPlanningTime(0, TimeUnit.MILLISECONDS)));
+        m_robot = m_local.getRobot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        m_local.shutdown();
+    }
+
+    @Benchmark
+    public Result noOp() throws Exception {
+        return m_robot.noOp().getResult();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Result noOp4Threads() throws Exception {
+        return m_robot.noOp().getResult();
+    }
+
+    @Benchmark
+    public Result simpleMove6Dof() throws Exception {
+        return m_robot.simpleMove6DOF("world", m_xyz, m_tolerance, m_rot).getResult();
+    }
+}
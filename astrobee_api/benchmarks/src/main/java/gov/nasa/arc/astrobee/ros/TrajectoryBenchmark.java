@@ -0,0 +1,111 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import gov.nasa.arc.astrobee.Result;
+import gov.nasa.arc.astrobee.Robot;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total time to fly an eight leg square-ish mission against a
+ * {@link SimulatedExecutive} that takes 20 ms to plan and 50 ms to fly each
+ * one meter leg:
+ * blocking on each move in turn, as the example apps do, against
+ * {@link Robot#executeTrajectory} with one and with two moves in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TrajectoryBenchmark {
+    private static final long PLAN_MILLIS = 20;
+    private static final long MOVE_MILLIS = 50;
+    // Fine enough steps not to round the moves up by much
+    private static final double EKF_RATE_HZ = 200;
+
+    private LocalSimulation m_local;
+    private Robot m_robot;
+
+    private final List<Point> m_points = new ArrayList<>();
+    private final List<Quaternion> m_orientations = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final Quaternion rot = new Quaternion(0, 0, 0, 1);
+        for (int i = 0; i < 8; i++) {
+            final double x = (i & 2) == 0 ? 10.0 : 11.0;
+            final double y = ((i + 1) & 2) == 0 ? -9.0 : -8.0;
+            m_points.add(new Point(x, y, 4.5));
+            m_orientations.add(rot);
+        }
+
+        // Start where the mission ends, so every leg is as long
+        m_local = new LocalSimulation(new SimulatedExecutive(new SimulatedExecutiveConfiguration()
+                .setAckDelay(0, 0, TimeUnit.MILLISECONDS)
+                .setPlanningTime(PLAN_MILLIS, TimeUnit.MILLISECONDS)
+                .setLinearSpeed(1000.0 / MOVE_MILLIS)
+                .setEkfRate(EKF_RATE_HZ)
+                .setStartPose(m_points.get(m_points.size() - 1), rot)));
+        m_robot = m_local.getRobot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        m_local.shutdown();
+    }
+
+    @Benchmark
+    public Result blocking() throws Exception {
+        Result result = null;
+        for (int i = 0; i < m_points.size(); i++) {
+            result = m_robot.simpleMove6DOF(m_points.get(i), m_orientations.get(i)).getResult();
+            if (!result.hasSucceeded())
+                break;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Result pipelined1() throws Exception {
+        return m_robot.executeTrajectory(m_points, m_orientations, 1, null, null).getResult();
+    }
+
+    @Benchmark
+    public Result pipelined2() throws Exception {
+        return m_robot.executeTrajectory(m_points, m_orientations, 2, null, null).getResult();
+    }
+}
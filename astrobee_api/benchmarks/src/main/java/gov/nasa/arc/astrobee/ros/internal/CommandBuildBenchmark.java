@@ -0,0 +1,173 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.CommandArg;
+import ff_msgs.CommandStamped;
+import gov.nasa.arc.astrobee.internal.CommandBuilder;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import gov.nasa.arc.astrobee.types.Vec3d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros.message.MessageFactory;
+import std_msgs.Header;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building {@code noOp} and {@code simpleMove6DOF} commands: the
+ * way it used to be done (a new message per argument and a random UUID),
+ * with generated IDs, and with generated IDs plus pooled messages. Pooled
+ * commands are released right after being built, as the ack for them would.
+ *
+ * Run with {@code -prof gc} to see the allocation rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBuildBenchmark {
+    private MessageFactory m_messageFactory;
+    private CommandIdGenerator m_ids;
+    private CommandPool m_pool;
+
+    private final Point m_xyz = new Point(1.0, 2.0, 3.0);
+    private final Vec3d m_tolerance = new Vec3d(0.1, 0.1, 0.1);
+    private final Quaternion m_rot = new Quaternion(0, 0, 0.7071068f, 0.7071068f);
+
+    @Setup
+    public void setUp() {
+        m_messageFactory = new LoopbackNode().getMessageFactory();
+        m_ids = new CommandIdGenerator("bsharp");
+        m_pool = new CommandPool(CommandPool.DEFAULT_SIZE);
+    }
+
+    @Benchmark
+    public String idUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String idGenerated() {
+        return m_ids.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String idUuid4Threads() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String idGenerated4Threads() {
+        return m_ids.next();
+    }
+
+    @Benchmark
+    public CommandStamped noOpLegacy() {
+        return legacyCommand("noOp", new ArrayList<CommandArg>());
+    }
+
+    @Benchmark
+    public CommandStamped noOpGeneratedId() {
+        return build(new DefaultCommandBuilder(m_messageFactory, m_ids).setName("noOp"));
+    }
+
+    @Benchmark
+    public CommandStamped noOpPooled() {
+        return buildAndRelease(
+                new DefaultCommandBuilder(m_messageFactory, m_ids, m_pool).setName("noOp"));
+    }
+
+    @Benchmark
+    public CommandStamped simpleMove6DofLegacy() {
+        final List<CommandArg> args = new ArrayList<>();
+        CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_STRING);
+        arg.setS("world");
+        args.add(arg);
+        arg = m_messageFactory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_VEC3d);
+        arg.setVec3d(m_xyz.toArray());
+        args.add(arg);
+        arg = m_messageFactory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_VEC3d);
+        arg.setVec3d(m_tolerance.toArray());
+        args.add(arg);
+        arg = m_messageFactory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_MAT33f);
+        arg.setMat33f(m_rot.toArray());
+        args.add(arg);
+        return legacyCommand("simpleMove6DOF", args);
+    }
+
+    @Benchmark
+    public CommandStamped simpleMove6DofGeneratedId() {
+        return build(simpleMove6Dof(new DefaultCommandBuilder(m_messageFactory, m_ids)));
+    }
+
+    @Benchmark
+    public CommandStamped simpleMove6DofPooled() {
+        return buildAndRelease(
+                simpleMove6Dof(new DefaultCommandBuilder(m_messageFactory, m_ids, m_pool)));
+    }
+
+    private CommandBuilder simpleMove6Dof(final CommandBuilder builder) {
+        return builder.setName("simpleMove6DOF")
+                .addArgument("referenceFrame", "world")
+                .addArgument("xyz", m_xyz)
+                .addArgument("xyzTolerance", m_tolerance)
+                .addArgument("rot", m_rot);
+    }
+
+    private CommandStamped legacyCommand(final String name, final List<CommandArg> args) {
+        final CommandStamped cmd = m_messageFactory.newFromType(CommandStamped._TYPE);
+        cmd.setHeader((Header) m_messageFactory.newFromType(Header._TYPE));
+        cmd.setCmdOrigin("guest_science");
+        cmd.setCmdName(name);
+        cmd.setCmdId(UUID.randomUUID().toString());
+        cmd.setArgs(args);
+        return cmd;
+    }
+
+    private static CommandStamped build(final CommandBuilder builder) {
+        return ((CommandHolder) builder.build()).getCommand();
+    }
+
+    private CommandStamped buildAndRelease(final CommandBuilder builder) {
+        final CommandStamped cmd = build(builder);
+        m_pool.release(cmd);
+        return cmd;
+    }
+}
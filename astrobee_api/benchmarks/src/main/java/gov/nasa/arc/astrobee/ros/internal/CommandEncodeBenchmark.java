@@ -0,0 +1,172 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.CommandStamped;
+import gov.nasa.arc.astrobee.internal.CommandBuilder;
+import gov.nasa.arc.astrobee.internal.CommandShape;
+import gov.nasa.arc.astrobee.internal.CommandShapes;
+import gov.nasa.arc.astrobee.internal.Publishable;
+import gov.nasa.arc.astrobee.types.PlannerType;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import gov.nasa.arc.astrobee.types.Vec3d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros.message.MessageFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generic {@link DefaultCommandBuilder} against the generated encoders
+ * ({@link DefaultCommandEncoder} filled in as {@code BaseRobotImpl} does),
+ * for {@code noOp}, {@code setPlanner} and {@code simpleMove6DOF}. Both are
+ * measured with and without a {@link CommandPool}; pooled commands are
+ * released right after being built, as the ack for them would.
+ *
+ * Run with {@code -prof gc} to compare the allocation of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandEncodeBenchmark {
+    private MessageFactory m_messageFactory;
+    private CommandIdGenerator m_ids;
+    private CommandPool m_pool;
+
+    private final Point m_xyz = new Point(1.0, 2.0, 3.0);
+    private final Vec3d m_tolerance = new Vec3d(0.1, 0.1, 0.1);
+    private final Quaternion m_rot = new Quaternion(0, 0, 0.7071068f, 0.7071068f);
+
+    @Setup
+    public void setUp() {
+        m_messageFactory = new LoopbackNode().getMessageFactory();
+        m_ids = new CommandIdGenerator("bsharp");
+        m_pool = new CommandPool(CommandPool.DEFAULT_SIZE);
+    }
+
+    private DefaultCommandBuilder builder(final CommandPool pool) {
+        return new DefaultCommandBuilder(m_messageFactory, m_ids, pool);
+    }
+
+    private DefaultCommandEncoder encoder(final CommandPool pool,
+                                          final CommandShape shape) {
+        return new DefaultCommandEncoder(m_messageFactory, m_ids, pool, shape);
+    }
+
+    private static CommandStamped command(final Publishable built) {
+        return ((CommandHolder) built).getCommand();
+    }
+
+    private CommandStamped release(final Publishable built) {
+        final CommandStamped cmd = command(built);
+        m_pool.release(cmd);
+        return cmd;
+    }
+
+    private CommandBuilder simpleMove6Dof(final CommandBuilder builder) {
+        return builder.setName("simpleMove6DOF")
+                .addArgument("referenceFrame", "world")
+                .addArgument("xyz", m_xyz)
+                .addArgument("xyzTolerance", m_tolerance)
+                .addArgument("rot", m_rot);
+    }
+
+    private Publishable simpleMove6Dof(final DefaultCommandEncoder encoder) {
+        return encoder.setString(0, "world")
+                .setVec3d(1, m_xyz)
+                .setVec3d(2, m_tolerance)
+                .setMat33f(3, m_rot)
+                .build();
+    }
+
+    @Benchmark
+    public CommandStamped noOpBuilder() {
+        return command(builder(null).setName("noOp").build());
+    }
+
+    @Benchmark
+    public CommandStamped noOpEncoder() {
+        return command(encoder(null, CommandShapes.NO_OP).build());
+    }
+
+    @Benchmark
+    public CommandStamped noOpBuilderPooled() {
+        return release(builder(m_pool).setName("noOp").build());
+    }
+
+    @Benchmark
+    public CommandStamped noOpEncoderPooled() {
+        return release(encoder(m_pool, CommandShapes.NO_OP).build());
+    }
+
+    @Benchmark
+    public CommandStamped setPlannerBuilder() {
+        return command(builder(null).setName("setPlanner")
+                .addArgument("planner", PlannerType.TRAPEZOIDAL).build());
+    }
+
+    @Benchmark
+    public CommandStamped setPlannerEncoder() {
+        return command(encoder(null, CommandShapes.SET_PLANNER)
+                .setEnum(0, PlannerType.TRAPEZOIDAL).build());
+    }
+
+    @Benchmark
+    public CommandStamped setPlannerBuilderPooled() {
+        return release(builder(m_pool).setName("setPlanner")
+                .addArgument("planner", PlannerType.TRAPEZOIDAL).build());
+    }
+
+    @Benchmark
+    public CommandStamped setPlannerEncoderPooled() {
+        return release(encoder(m_pool, CommandShapes.SET_PLANNER)
+                .setEnum(0, PlannerType.TRAPEZOIDAL).build());
+    }
+
+    @Benchmark
+    public CommandStamped simpleMove6DofBuilder() {
+        return command(simpleMove6Dof(builder(null)).build());
+    }
+
+    @Benchmark
+    public CommandStamped simpleMove6DofEncoder() {
+        return command(simpleMove6Dof(encoder(null, CommandShapes.SIMPLE_MOVE6DOF)));
+    }
+
+    @Benchmark
+    public CommandStamped simpleMove6DofBuilderPooled() {
+        return release(simpleMove6Dof(builder(m_pool)).build());
+    }
+
+    @Benchmark
+    public CommandStamped simpleMove6DofEncoderPooled() {
+        return release(simpleMove6Dof(encoder(m_pool, CommandShapes.SIMPLE_MOVE6DOF)));
+    }
+}
@@ -0,0 +1,112 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.EkfState;
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsBuffer;
+import gov.nasa.arc.astrobee.ros.DefaultKinematics;
+import gov.nasa.arc.astrobee.ros.DefaultKinematicsBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting from an {@link EkfState} to a {@link Kinematics}: building
+ * {@link DefaultKinematics} straight from the message or from a buffer
+ * snapshot, decoding into the {@link DefaultKinematicsBuffer}, and the EKF
+ * subscriber plus {@link RobotNodeMain#getKinematics()} as a whole.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KinematicsBenchmark {
+    private static final String EKF_TOPIC = "gnc/ekf";
+
+    private LoopbackNode m_loopback;
+    private RobotNodeMain m_nodeMain;
+    private EkfState m_ekf;
+
+    private final DefaultKinematicsBuffer m_buffer = new DefaultKinematicsBuffer();
+    private final double[] m_snapshot = new double[KinematicsBuffer.SIZE];
+
+    @Setup
+    public void setUp() {
+        m_loopback = new LoopbackNode();
+        m_ekf = m_loopback.getMessageFactory().newFromType(EkfState._TYPE);
+        m_ekf.getPose().getPosition().setX(1.0);
+        m_ekf.getPose().getPosition().setY(-2.0);
+        m_ekf.getPose().getPosition().setZ(4.5);
+        m_ekf.getPose().getOrientation().setZ(0.7071068);
+        m_ekf.getPose().getOrientation().setW(0.7071068);
+        m_ekf.getVelocity().setX(0.1);
+        m_ekf.getOmega().setZ(0.05);
+        m_ekf.getAccel().setY(0.01);
+        m_ekf.setConfidence(EkfState.CONFIDENCE_GOOD);
+
+        m_buffer.update(m_ekf);
+
+        m_nodeMain = new RobotNodeMain();
+        m_nodeMain.onStart(m_loopback.getNode());
+    }
+
+    @Benchmark
+    public Kinematics fromEkfState() {
+        return new DefaultKinematics(m_ekf);
+    }
+
+    @Benchmark
+    public Kinematics fromSnapshot() {
+        m_buffer.read(m_snapshot);
+        return new DefaultKinematics(m_snapshot);
+    }
+
+    @Benchmark
+    public long bufferUpdate() {
+        m_buffer.update(m_ekf);
+        return m_buffer.getSequence();
+    }
+
+    @Benchmark
+    public long bufferRead() {
+        return m_buffer.read(m_snapshot);
+    }
+
+    @Benchmark
+    public Kinematics receiveAndGet() {
+        m_loopback.deliver(EKF_TOPIC, m_ekf);
+        return m_nodeMain.getKinematics();
+    }
+
+    @Benchmark
+    public Kinematics getUnchanged() {
+        return m_nodeMain.getKinematics();
+    }
+}
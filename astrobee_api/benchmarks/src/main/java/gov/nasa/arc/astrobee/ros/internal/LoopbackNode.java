@@ -0,0 +1,209 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import org.ros.message.MessageFactory;
+import org.ros.message.MessageListener;
+import org.ros.message.Time;
+import org.ros.node.ConnectedNode;
+import org.ros.node.NodeConfiguration;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.PublisherListener;
+import org.ros.node.topic.Subscriber;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An in-process stand-in for a rosjava {@link ConnectedNode}, so node mains
+ * can be driven without a ROS master. Messages published by the node are
+ * handed to whatever handler is registered for the topic, and messages are
+ * fed to the node's subscribers with {@link #deliver(String, Object)}.
+ *
+ * Publishers report a subscriber as soon as a listener is added to them.
+ */
+final class LoopbackNode {
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread t = new Thread(r, "loopback-scheduler");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    private final MessageFactory m_messageFactory =
+            NodeConfiguration.newPrivate().getTopicMessageFactory();
+
+    private final ConcurrentMap<String, MessageListener<Object>> m_handlers =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<MessageListener<Object>>> m_subscribers =
+            new ConcurrentHashMap<>();
+
+    private final ConnectedNode m_node = (ConnectedNode) Proxy.newProxyInstance(
+            LoopbackNode.class.getClassLoader(),
+            new Class<?>[]{ ConnectedNode.class },
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    switch (method.getName()) {
+                        case "newPublisher":
+                            return newPublisher(args[0].toString(), (String) args[1]);
+                        case "newSubscriber":
+                            return newSubscriber(args[0].toString());
+                        case "getCurrentTime":
+                            return Time.fromNano(System.nanoTime());
+                        case "getTopicMessageFactory":
+                            return m_messageFactory;
+                        case "getScheduledExecutorService":
+                            return SCHEDULER;
+                        default:
+                            return defaultValue(proxy, method, args);
+                    }
+                }
+            });
+
+    ConnectedNode getNode() {
+        return m_node;
+    }
+
+    MessageFactory getMessageFactory() {
+        return m_messageFactory;
+    }
+
+    /**
+     * Set what happens to messages the node publishes on {@code topic}.
+     */
+    @SuppressWarnings("unchecked")
+    void setHandler(final String topic, final MessageListener<?> handler) {
+        m_handlers.put(topic, (MessageListener<Object>) handler);
+    }
+
+    /**
+     * Hand {@code message} to every listener the node has on {@code topic},
+     * on the calling thread.
+     */
+    void deliver(final String topic, final Object message) {
+        final List<MessageListener<Object>> listeners = m_subscribers.get(topic);
+        if (listeners == null)
+            return;
+        for (MessageListener<Object> l : listeners)
+            l.onNewMessage(message);
+    }
+
+    private List<MessageListener<Object>> listenersFor(final String topic) {
+        List<MessageListener<Object>> listeners = m_subscribers.get(topic);
+        if (listeners == null) {
+            m_subscribers.putIfAbsent(topic, new CopyOnWriteArrayList<MessageListener<Object>>());
+            listeners = m_subscribers.get(topic);
+        }
+        return listeners;
+    }
+
+    private Object newPublisher(final String topic, final String type) {
+        return Proxy.newProxyInstance(
+                LoopbackNode.class.getClassLoader(),
+                new Class<?>[]{ Publisher.class },
+                new InvocationHandler() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "publish":
+                                final MessageListener<Object> handler = m_handlers.get(topic);
+                                if (handler != null)
+                                    handler.onNewMessage(args[0]);
+                                return null;
+                            case "newMessage":
+                                return m_messageFactory.newFromType(type);
+                            case "addListener":
+                                ((PublisherListener<Object>) args[0])
+                                        .onNewSubscriber((Publisher<Object>) proxy, null);
+                                return null;
+                            case "hasSubscribers":
+                                return true;
+                            case "getNumberOfSubscribers":
+                                return 1;
+                            default:
+                                return defaultValue(proxy, method, args);
+                        }
+                    }
+                });
+    }
+
+    private Object newSubscriber(final String topic) {
+        final List<MessageListener<Object>> listeners = listenersFor(topic);
+        return Proxy.newProxyInstance(
+                LoopbackNode.class.getClassLoader(),
+                new Class<?>[]{ Subscriber.class },
+                new InvocationHandler() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "addMessageListener":
+                                listeners.add((MessageListener<Object>) args[0]);
+                                return null;
+                            case "removeMessageListener":
+                                return listeners.remove(args[0]);
+                            default:
+                                return defaultValue(proxy, method, args);
+                        }
+                    }
+                });
+    }
+
+    private static Object defaultValue(final Object proxy, final Method method, final Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "LoopbackNode$" + method.getDeclaringClass().getSimpleName();
+        }
+
+        final Class<?> type = method.getReturnType();
+        if (!type.isPrimitive() || type == void.class)
+            return null;
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return '\0';
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == short.class)
+            return (short) 0;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == float.class)
+            return 0.0f;
+        return 0.0;
+    }
+}
@@ -0,0 +1,152 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.AckCompletedStatus;
+import ff_msgs.AckStamped;
+import ff_msgs.AckStatus;
+import ff_msgs.CommandStamped;
+import gov.nasa.arc.astrobee.PendingResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros.message.MessageFactory;
+import org.ros.message.MessageListener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commands per second through {@link RobotNodeMain#publish(CommandStamped)}
+ * as the number of publishing threads grows. A single "subscriber" thread
+ * acks every command as COMPLETED, the way the rosjava ack subscriber would,
+ * so publishers and ack dispatch run against each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishAckBenchmark {
+    private static final String ACK_TOPIC = "mgt/ack";
+
+    private LoopbackNode m_loopback;
+    private RobotNodeMain m_nodeMain;
+    private MessageFactory m_messageFactory;
+
+    private final BlockingQueue<String> m_unacked = new ArrayBlockingQueue<>(4096);
+    private Thread m_ackThread;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        m_loopback = new LoopbackNode();
+        m_messageFactory = m_loopback.getMessageFactory();
+        m_loopback.setHandler("command", new MessageListener<CommandStamped>() {
+            @Override
+            public void onNewMessage(CommandStamped cmd) {
+                try {
+                    m_unacked.put(cmd.getCmdId());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        m_nodeMain = new RobotNodeMain();
+        m_nodeMain.onStart(m_loopback.getNode());
+
+        m_ackThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true)
+                        m_loopback.deliver(ACK_TOPIC, completedAck(m_unacked.take()));
+                } catch (InterruptedException e) {
+                    // Done
+                }
+            }
+        }, "Ack Subscriber");
+        m_ackThread.setDaemon(true);
+        m_ackThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        m_ackThread.interrupt();
+        m_ackThread.join();
+        m_nodeMain.onShutdown(m_loopback.getNode());
+    }
+
+    private AckStamped completedAck(final String cmdId) {
+        final AckStamped ack = m_messageFactory.newFromType(AckStamped._TYPE);
+        ack.setCmdId(cmdId);
+        ack.setMessage("");
+
+        final AckStatus status = m_messageFactory.newFromType(AckStatus._TYPE);
+        status.setStatus(AckStatus.COMPLETED);
+        ack.setStatus(status);
+
+        final AckCompletedStatus completed = m_messageFactory.newFromType(AckCompletedStatus._TYPE);
+        completed.setStatus(AckCompletedStatus.OK);
+        ack.setCompletedStatus(completed);
+        return ack;
+    }
+
+    private PendingResult publishNoOp() {
+        final CommandHolder holder = (CommandHolder) m_nodeMain.newCommandBuilder()
+                .setName("noOp")
+                .build();
+        return m_nodeMain.publish(holder.getCommand());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public PendingResult publish1Thread() {
+        return publishNoOp();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public PendingResult publish2Threads() {
+        return publishNoOp();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PendingResult publish4Threads() {
+        return publishNoOp();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public PendingResult publish8Threads() {
+        return publishNoOp();
+    }
+}
@@ -0,0 +1,111 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal.util;
+
+import ff_msgs.AckCompletedStatus;
+import ff_msgs.AckStamped;
+import ff_msgs.AckStatus;
+import ff_msgs.CommandArg;
+import ff_msgs.CommandStamped;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros.message.MessageFactory;
+import org.ros.node.NodeConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Stringer} formatting of the messages logged on the command path,
+ * which is paid on every command whenever debug logging is on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringerBenchmark {
+    private CommandStamped m_noOp;
+    private CommandStamped m_simpleMove6Dof;
+    private AckStamped m_ack;
+
+    @Setup
+    public void setUp() {
+        final MessageFactory factory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+
+        m_noOp = factory.newFromType(CommandStamped._TYPE);
+        m_noOp.setCmdId("bsharp/5f3a9c21e0b4-1");
+        m_noOp.setCmdName("noOp");
+        m_noOp.setCmdOrigin("guest_science");
+
+        final List<CommandArg> args = new ArrayList<>();
+        CommandArg arg = factory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_STRING);
+        arg.setS("world");
+        args.add(arg);
+        arg = factory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_VEC3d);
+        arg.setVec3d(new double[]{ 1.0, 2.0, 3.0 });
+        args.add(arg);
+        arg = factory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_VEC3d);
+        arg.setVec3d(new double[]{ 0.1, 0.1, 0.1 });
+        args.add(arg);
+        arg = factory.newFromType(CommandArg._TYPE);
+        arg.setDataType(CommandArg.DATA_TYPE_MAT33f);
+        arg.setMat33f(new float[]{ 0, 0, 0.7071068f, 0.7071068f, 0, 0, 0, 0, 0 });
+        args.add(arg);
+
+        m_simpleMove6Dof = factory.newFromType(CommandStamped._TYPE);
+        m_simpleMove6Dof.setCmdId("bsharp/5f3a9c21e0b4-2");
+        m_simpleMove6Dof.setCmdName("simpleMove6DOF");
+        m_simpleMove6Dof.setCmdOrigin("guest_science");
+        m_simpleMove6Dof.setArgs(args);
+
+        m_ack = factory.newFromType(AckStamped._TYPE);
+        m_ack.setCmdId("bsharp/5f3a9c21e0b4-2");
+        m_ack.getStatus().setStatus(AckStatus.COMPLETED);
+        m_ack.getCompletedStatus().setStatus(AckCompletedStatus.OK);
+        m_ack.setMessage("");
+    }
+
+    @Benchmark
+    public String noOp() {
+        return Stringer.toString(m_noOp);
+    }
+
+    @Benchmark
+    public String simpleMove6Dof() {
+        return Stringer.toString(m_simpleMove6Dof);
+    }
+
+    @Benchmark
+    public String ack() {
+        return Stringer.toString(m_ack);
+    }
+}
@@ -0,0 +1,125 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.types;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typical trajectory math done the way guest science apps do it today,
+ * cloning through {@code toArray()} and allocating a new object for every
+ * intermediate value, against the same math done with {@link Vectors} and
+ * {@link Quaternions} over packed primitive arrays.
+ *
+ * Run with {@code -prof gc} to see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeometryBenchmark {
+    @Param({"100", "10000"})
+    public int m_count;
+
+    private Point[] m_points;
+    private Quaternion m_rotation;
+
+    private double[] m_packed;
+    private double[] m_quat;
+    private double[] m_rotated;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        m_points = new Point[m_count];
+        m_packed = new double[m_count * 3];
+        m_rotated = new double[m_count * 3];
+        for (int i = 0; i < m_count; i++) {
+            m_points[i] = new Point(random.nextDouble(), random.nextDouble(),
+                    random.nextDouble());
+            m_points[i].toArray(m_packed, i * 3);
+        }
+
+        m_rotation = Quaternions.fromAxisAngle(new Vec3d(1, 2, 3), 0.5);
+        m_quat = new double[4];
+        m_rotation.toArray(m_quat, 0);
+    }
+
+    @Benchmark
+    public double pathLengthCloning() {
+        double length = 0;
+        for (int i = 1; i < m_count; i++) {
+            final double[] p = m_points[i - 1].toArray();
+            final double[] q = m_points[i].toArray();
+            final Vec3d d = new Vec3d(q[0] - p[0], q[1] - p[1], q[2] - p[2]);
+            final double[] v = d.toArray();
+            length += Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+        }
+        return length;
+    }
+
+    @Benchmark
+    public double pathLengthPacked() {
+        return Vectors.pathLength(m_packed, m_count);
+    }
+
+    @Benchmark
+    public double rotateCloning() {
+        // v' = q * (v, 0) * q^-1, one object per step
+        final float[] q = m_rotation.toArray();
+        double sum = 0;
+        for (int i = 0; i < m_count; i++) {
+            final double[] v = m_points[i].toArray();
+            final Quaternion p = new Quaternion((float) v[0], (float) v[1], (float) v[2], 0);
+            final Quaternion qc = new Quaternion(-q[0], -q[1], -q[2], q[3]);
+            final Quaternion r = hamilton(hamilton(m_rotation, p), qc);
+            sum += r.toArray()[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double rotatePacked() {
+        Quaternions.rotate(m_quat, 0, m_packed, m_rotated, m_count);
+        return m_rotated[0];
+    }
+
+    private static Quaternion hamilton(final Quaternion a, final Quaternion b) {
+        final float[] l = a.toArray();
+        final float[] r = b.toArray();
+        return new Quaternion(
+                l[3] * r[0] + l[0] * r[3] + l[1] * r[2] - l[2] * r[1],
+                l[3] * r[1] - l[0] * r[2] + l[1] * r[3] + l[2] * r[0],
+                l[3] * r[2] + l[0] * r[1] - l[1] * r[0] + l[2] * r[3],
+                l[3] * r[3] - l[0] * r[0] - l[1] * r[1] - l[2] * r[2]);
+    }
+}
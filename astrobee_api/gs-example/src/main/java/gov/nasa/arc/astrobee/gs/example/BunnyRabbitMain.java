@@ -17,7 +17,6 @@ public class BunnyRabbitMain {
         String xmlFilePath = System.getProperty("user.dir") + File.separator + "/gs-example/src/main/resources/bunny_commands.xml";
         BunnyRabbitApplication mrNibbles = new BunnyRabbitApplication(xmlFilePath);
 
-        Thread.sleep(2000);
         manager.acceptApplication(mrNibbles);
     }
 
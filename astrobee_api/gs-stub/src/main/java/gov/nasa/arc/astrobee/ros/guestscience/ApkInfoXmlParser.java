@@ -16,13 +16,36 @@ import java.util.List;
 public class ApkInfoXmlParser {
     private static final Log logger = LogFactory.getLog(ApkInfoXmlParser.class);
 
+    // Looking up the implementation is the slow part, so only do it once
+    private static DocumentBuilderFactory s_dbFactory = null;
+
+        /**
+         * Look up the XML parser, so the first file parses faster. May be
+         * called from any thread.
+         */
+        public static void warmUp() {
+            try {
+                newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                logger.error("Unable to warm up the XML parser", e);
+            }
+        }
+
+        // Factories are not thread safe, the builders they make are ours
+        private static synchronized DocumentBuilder newDocumentBuilder()
+                throws ParserConfigurationException {
+            if (s_dbFactory == null) {
+                s_dbFactory = DocumentBuilderFactory.newInstance();
+            }
+            return s_dbFactory.newDocumentBuilder();
+        }
+
         public static ApkInfo parseFile(String filePath) {
             File xmlFile = new File(filePath);
 
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
             DocumentBuilder dBuilder;
             try {
-                dBuilder = dbFactory.newDocumentBuilder();
+                dBuilder = newDocumentBuilder();
                 Document doc = dBuilder.parse(xmlFile);
                 doc.getDocumentElement().normalize();
                 NodeList nodeList = doc.getElementsByTagName("apkInfo");
@@ -0,0 +1,341 @@
+package gov.nasa.arc.astrobee.ros.guestscience;
+
+import ff_msgs.AckCompletedStatus;
+import gov.nasa.arc.astrobee.ros.LatencyHistogram;
+import gov.nasa.arc.astrobee.ros.OverflowPolicy;
+import gov.nasa.arc.astrobee.ros.internal.util.CmdInfo;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One guest science application hosted by a {@link GuestScienceNodeMain},
+ * with its own state and its own threads, so a slow or broken application
+ * cannot hold up the others or the node.
+ *
+ * Custom commands go through a bounded queue to a worker thread, one at a
+ * time. Start and stop go through a lane of their own, so they get to the
+ * application even while a custom command is still being handled, and
+ * its stop handler can end a long custom command.
+ */
+class GuestScienceApp implements GuestScienceAppGauges {
+    private final Log logger = LogFactory.getLog(GuestScienceApp.class);
+
+    private final GuestScienceNodeMain m_owner;
+    private final StartGuestScienceService m_app;
+    private final String m_fullName;
+
+    // Start and stop, which are rare, so unbounded
+    private final ExecutorService m_control;
+
+    // Custom commands waiting for the worker
+    private final ReentrantLock m_lock = new ReentrantLock();
+    private final Condition m_notEmpty = m_lock.newCondition();
+    private final ArrayDeque<Work> m_queue;
+    private final int m_capacity;
+    private final OverflowPolicy m_policy;
+    private boolean m_shutdown = false;
+    private final Thread m_worker;
+
+    private final AtomicLong m_completed = new AtomicLong();
+    private final AtomicLong m_failed = new AtomicLong();
+    private final AtomicLong m_dropped = new AtomicLong();
+    private final AtomicLong m_cancelled = new AtomicLong();
+    private final LatencyHistogram m_queueLatency = new LatencyHistogram();
+    private final LatencyHistogram m_handlerLatency = new LatencyHistogram();
+
+    // Only touched with the node main locked
+    private final CmdInfo m_cmdInfo = new CmdInfo();
+    private boolean m_running = false;
+
+    private static final class Work {
+        final String cmdId;
+        final String command;
+        final long queuedNanos = System.nanoTime();
+
+        Work(String cmdId, String command) {
+            this.cmdId = cmdId;
+            this.command = command;
+        }
+    }
+
+    GuestScienceApp(final GuestScienceNodeMain owner,
+                    final StartGuestScienceService app,
+                    int capacity,
+                    final OverflowPolicy policy) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        checkPolicy(policy);
+        m_owner = owner;
+        m_app = app;
+        m_fullName = app.getFullName();
+        m_capacity = capacity;
+        m_policy = policy;
+        m_queue = new ArrayDeque<>(capacity);
+
+        final String threadName = "gs-" + app.getShortName();
+        m_control = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, threadName + "-control");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        m_worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, threadName);
+        m_worker.setDaemon(true);
+        m_worker.start();
+    }
+
+    /**
+     * Commands are queued on the thread that delivers every command, start
+     * and stop included, so waiting for room there would hold up a stop
+     * behind the very command it is meant to end.
+     */
+    static void checkPolicy(final OverflowPolicy policy) {
+        if (policy == null)
+            throw new NullPointerException("policy may not be null");
+        if (policy == OverflowPolicy.BLOCK)
+            throw new IllegalArgumentException("Guest science command queues may not block");
+    }
+
+    StartGuestScienceService getApplication() {
+        return m_app;
+    }
+
+    String getFullName() {
+        return m_fullName;
+    }
+
+    CmdInfo getCmdInfo() {
+        return m_cmdInfo;
+    }
+
+    boolean isRunning() {
+        return m_running;
+    }
+
+    void setRunning(boolean running) {
+        m_running = running;
+    }
+
+    void onStart() {
+        control(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    m_app.onGuestScienceStart();
+                } catch (RuntimeException e) {
+                    logger.error("Apk " + m_fullName + " failed to start", e);
+                    m_owner.ackGuestScienceStart(false, m_fullName, "Apk " + m_fullName +
+                            " failed to start: " + e);
+                    return;
+                }
+                m_owner.ackGuestScienceStart(true, m_fullName, "");
+            }
+        });
+    }
+
+    void onStop() {
+        // Whatever was queued was meant for the run that is ending
+        for (Work w : cancelQueued()) {
+            m_cancelled.incrementAndGet();
+            m_owner.sendAck(w.cmdId, AckCompletedStatus.CANCELED,
+                    "Apk " + m_fullName + " was stopped.");
+        }
+        control(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    m_app.onGuestScienceStop();
+                } catch (RuntimeException e) {
+                    logger.error("Apk " + m_fullName + " failed to stop", e);
+                    m_owner.ackGuestScienceStop(false, m_fullName, "Apk " + m_fullName +
+                            " failed to stop: " + e);
+                    return;
+                }
+                m_owner.ackGuestScienceStop(true, m_fullName, "");
+            }
+        });
+    }
+
+    /**
+     * Queue a custom command for the application, without waiting.
+     *
+     * @return {@code false} if the command was refused, and acked as such.
+     */
+    boolean submit(final String cmdId, final String command) {
+        final Work work = new Work(cmdId, command);
+        Work dropped = null;
+        // Acked once unlocked, as acking locks the node main, which locks
+        // this in turn when removing the application
+        String refusal = null;
+        m_lock.lock();
+        try {
+            if (m_shutdown) {
+                refusal = "Apk " + m_fullName + " was removed.";
+            } else if (m_queue.size() >= m_capacity) {
+                if (m_policy == OverflowPolicy.DROP_OLDEST) {
+                    dropped = m_queue.poll();
+                } else {
+                    refusal = "Command queue of apk " + m_fullName + " is full (" +
+                            m_capacity + " commands).";
+                }
+            }
+            if (refusal == null) {
+                m_queue.add(work);
+                m_notEmpty.signal();
+            }
+        } finally {
+            m_lock.unlock();
+        }
+
+        if (refusal != null) {
+            refuse(work, refusal);
+            return false;
+        }
+        if (dropped != null)
+            refuse(dropped, "Dropped from the full command queue of apk " + m_fullName + ".");
+        return true;
+    }
+
+    private void refuse(final Work work, final String message) {
+        m_dropped.incrementAndGet();
+        m_owner.sendAck(work.cmdId, AckCompletedStatus.EXEC_FAILED, message);
+    }
+
+    private List<Work> cancelQueued() {
+        m_lock.lock();
+        try {
+            final List<Work> cancelled = new ArrayList<>(m_queue);
+            m_queue.clear();
+            return cancelled;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    private Work take() throws InterruptedException {
+        m_lock.lockInterruptibly();
+        try {
+            while (m_queue.isEmpty()) {
+                if (m_shutdown)
+                    return null;
+                m_notEmpty.await();
+            }
+            return m_queue.poll();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    private void work() {
+        try {
+            Work work;
+            while ((work = take()) != null) {
+                final long start = System.nanoTime();
+                m_queueLatency.record(start - work.queuedNanos);
+                try {
+                    m_app.onGuestScienceCustomCmd(work.command);
+                } catch (RuntimeException e) {
+                    m_handlerLatency.record(System.nanoTime() - start);
+                    m_failed.incrementAndGet();
+                    logger.error("Apk " + m_fullName + " failed handling a command", e);
+                    m_owner.sendAck(work.cmdId, AckCompletedStatus.EXEC_FAILED,
+                            "Apk " + m_fullName + " failed handling the command: " + e);
+                    continue;
+                }
+                m_handlerLatency.record(System.nanoTime() - start);
+                m_completed.incrementAndGet();
+                m_owner.sendAck(work.cmdId);
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        } catch (RuntimeException e) {
+            // Most likely the node went away under us
+            logger.error("Worker of apk " + m_fullName + " stopped", e);
+        }
+    }
+
+    /**
+     * Stop taking commands. Those already queued are still handled.
+     */
+    void shutdown() {
+        m_lock.lock();
+        try {
+            m_shutdown = true;
+            m_notEmpty.signalAll();
+        } finally {
+            m_lock.unlock();
+        }
+        m_control.shutdown();
+    }
+
+    private void control(final Runnable callback) {
+        try {
+            m_control.execute(callback);
+        } catch (RejectedExecutionException e) {
+            logger.error("Apk " + m_fullName + " was removed, dropping command");
+        }
+    }
+
+    @Override
+    public String getApkName() {
+        return m_fullName;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        m_lock.lock();
+        try {
+            return m_queue.size();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    @Override
+    public long getCompleted() {
+        return m_completed.get();
+    }
+
+    @Override
+    public long getFailed() {
+        return m_failed.get();
+    }
+
+    @Override
+    public long getDropped() {
+        return m_dropped.get();
+    }
+
+    @Override
+    public long getCancelled() {
+        return m_cancelled.get();
+    }
+
+    @Override
+    public LatencyHistogram getQueueLatency() {
+        return m_queueLatency;
+    }
+
+    @Override
+    public LatencyHistogram getHandlerLatency() {
+        return m_handlerLatency;
+    }
+}
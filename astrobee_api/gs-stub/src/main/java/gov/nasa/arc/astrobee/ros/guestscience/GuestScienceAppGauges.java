@@ -0,0 +1,48 @@
+package gov.nasa.arc.astrobee.ros.guestscience;
+
+import gov.nasa.arc.astrobee.ros.LatencyHistogram;
+
+/**
+ * How the custom commands of one hosted application are getting on. Queue
+ * depth is a current value; the counts go up from when the application was
+ * accepted.
+ */
+public interface GuestScienceAppGauges {
+    String getApkName();
+
+    /**
+     * @return How many custom commands are waiting for the application.
+     */
+    int getQueueDepth();
+
+    /**
+     * @return How many custom commands the application handled.
+     */
+    long getCompleted();
+
+    /**
+     * @return How many custom commands the application threw on.
+     */
+    long getFailed();
+
+    /**
+     * @return How many custom commands were dropped or refused because the
+     *         queue was full.
+     */
+    long getDropped();
+
+    /**
+     * @return How many queued custom commands were cancelled by a stop.
+     */
+    long getCancelled();
+
+    /**
+     * @return How long custom commands waited before being handled.
+     */
+    LatencyHistogram getQueueLatency();
+
+    /**
+     * @return How long the application took to handle custom commands.
+     */
+    LatencyHistogram getHandlerLatency();
+}
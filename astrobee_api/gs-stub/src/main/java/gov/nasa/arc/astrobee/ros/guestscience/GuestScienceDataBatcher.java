@@ -0,0 +1,151 @@
+package gov.nasa.arc.astrobee.ros.guestscience;
+
+import gov.nasa.arc.astrobee.ros.GuestScienceDataFrame;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs the small payloads an application sends on one topic into
+ * {@link GuestScienceDataFrame}s, sent once full or once the first payload
+ * in them has waited long enough. Payloads too big to share a frame are
+ * sent as they are, after whatever was waiting ahead of them.
+ */
+class GuestScienceDataBatcher {
+    private final Log logger = LogFactory.getLog(GuestScienceDataBatcher.class);
+
+    interface Sink {
+        void publish(String apkName, String topic, byte dataType, byte[] data);
+    }
+
+    private final Sink m_sink;
+    private final ScheduledExecutorService m_executor;
+    private final long m_maxDelayNanos;
+
+    // Guarded by this
+    private final Map<Key, Batch> m_batches = new LinkedHashMap<>();
+
+    private static final class Key {
+        final String apkName;
+        final String topic;
+        final byte dataType;
+
+        Key(String apkName, String topic, byte dataType) {
+            this.apkName = apkName;
+            this.topic = topic;
+            this.dataType = dataType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return apkName.equals(k.apkName) && topic.equals(k.topic) && dataType == k.dataType;
+        }
+
+        @Override
+        public int hashCode() {
+            return (apkName.hashCode() * 31 + topic.hashCode()) * 31 + dataType;
+        }
+    }
+
+    private static final class Batch {
+        final GuestScienceDataFrame frame = new GuestScienceDataFrame();
+        // Bumped on every flush, so a late deadline leaves the next frame be
+        long generation = 0;
+    }
+
+    GuestScienceDataBatcher(Sink sink, ScheduledExecutorService executor,
+                            long maxDelay, TimeUnit unit) {
+        if (maxDelay <= 0)
+            throw new IllegalArgumentException("delay must be positive");
+        m_sink = sink;
+        m_executor = executor;
+        m_maxDelayNanos = unit.toNanos(maxDelay);
+    }
+
+    synchronized void add(String apkName, String topic, byte dataType, byte[] data) {
+        final Key key = new Key(apkName, topic, dataType);
+        Batch batch = m_batches.get(key);
+        if (batch == null) {
+            batch = new Batch();
+            m_batches.put(key, batch);
+        }
+
+        if (data.length > GuestScienceDataFrame.MAX_PAYLOAD) {
+            flush(key, batch);
+            m_sink.publish(apkName, topic, dataType, data);
+            return;
+        }
+        if (!batch.frame.fits(data.length))
+            flush(key, batch);
+
+        batch.frame.add(data, System.nanoTime());
+        if (batch.frame.getCount() == 1)
+            scheduleFlush(key, batch.generation);
+    }
+
+    /**
+     * Send everything that is waiting.
+     */
+    synchronized void flush() {
+        for (Map.Entry<Key, Batch> e : m_batches.entrySet())
+            flush(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Send and forget everything an application has waiting.
+     */
+    synchronized void remove(String apkName) {
+        final List<Key> keys = new ArrayList<>();
+        for (Map.Entry<Key, Batch> e : m_batches.entrySet()) {
+            if (e.getKey().apkName.equals(apkName)) {
+                flush(e.getKey(), e.getValue());
+                keys.add(e.getKey());
+            }
+        }
+        for (Key k : keys)
+            m_batches.remove(k);
+    }
+
+    private void scheduleFlush(final Key key, final long generation) {
+        try {
+            m_executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushIfCurrent(key, generation);
+                }
+            }, m_maxDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, so there is nobody to wait for
+            flush(key, m_batches.get(key));
+        }
+    }
+
+    private synchronized void flushIfCurrent(Key key, long generation) {
+        final Batch batch = m_batches.get(key);
+        if (batch != null && batch.generation == generation)
+            flush(key, batch);
+    }
+
+    private void flush(Key key, Batch batch) {
+        if (batch.frame.isEmpty())
+            return;
+        final byte[] data = batch.frame.toByteArray(System.nanoTime());
+        batch.frame.clear();
+        batch.generation++;
+        try {
+            m_sink.publish(key.apkName, key.topic, key.dataType, data);
+        } catch (RuntimeException e) {
+            logger.error("Unable to send guest science data of " + key.apkName, e);
+        }
+    }
+}
@@ -2,8 +2,9 @@ package gov.nasa.arc.astrobee.ros.guestscience;
 
 import ff_msgs.*;
 import gov.nasa.arc.astrobee.AstrobeeRuntimeException;
+import gov.nasa.arc.astrobee.ros.GuestScienceDataFrame;
 import gov.nasa.arc.astrobee.ros.NodeExecutorHolder;
-import gov.nasa.arc.astrobee.ros.internal.util.CmdInfo;
+import gov.nasa.arc.astrobee.ros.OverflowPolicy;
 import gov.nasa.arc.astrobee.ros.internal.util.CmdType;
 import gov.nasa.arc.astrobee.ros.internal.util.Constants;
 import gov.nasa.arc.astrobee.ros.internal.util.MessageType;
@@ -25,7 +26,11 @@ import std_msgs.Header;
 
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 //import org.w3c.dom.Node;
 
@@ -41,18 +46,22 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
 
     private Subscriber<CommandStamped> mCommandSubscriber;
 
-    private StartGuestScienceService m_currentApplication;
+    // Hosted applications by full name, in the order they were added
+    private final Map<String, GuestScienceApp> m_apps = new LinkedHashMap<>();
 
-    private boolean m_started = false;
-    private boolean m_apkIsRunning = false;
-    private String m_apkName; // for convenience
-    private long SERIAL_NUMBER = 1;
+    private volatile boolean m_started = false;
+    // Down once the publishers and subscriber are up
+    private final CountDownLatch m_startLatch = new CountDownLatch(1);
+    private volatile long m_startedNanos = 0;
+    // Bumped whenever the set of applications changes
+    private long m_serial = 1;
+
+    // Null unless small payloads are packed into frames
+    private volatile GuestScienceDataBatcher m_dataBatcher = null;
 
     private NodeConfiguration mNodeConfig;
     private MessageFactory mMessageFactory;
 
-    private CmdInfo mCmdInfo;
-
     @Override
     public synchronized void onStart(final ConnectedNode connectedNode) {
         m_node = connectedNode;
@@ -78,9 +87,9 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
                 Constants.TOPIC_MANAGEMENT_EXEC_COMMAND, CommandStamped._TYPE);
         mCommandSubscriber.addMessageListener(this);
 
-        mCmdInfo = new CmdInfo();
-
         m_started = true;
+        m_startedNanos = System.nanoTime();
+        m_startLatch.countDown();
     }
 
     @Override
@@ -110,62 +119,95 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
         });
     }
 
-    protected void handleGuestScienceStartCommand(CommandStamped cmd) {
-        if(!validateApkName(cmd)) {
+    protected synchronized void handleGuestScienceStartCommand(CommandStamped cmd) {
+        GuestScienceApp app = findApp(cmd);
+        if (app == null || isBusy(app, cmd, "start")) {
             return;
         }
         String msg;
-        if(m_apkIsRunning) {
-            msg =  "Apk " + m_apkName + " is already running.";
+        if (app.isRunning()) {
+            msg =  "Apk " + app.getFullName() + " is already running.";
             sendAck(cmd.getCmdId(), AckCompletedStatus.EXEC_FAILED, msg);
             return;
         }
 
-        m_apkIsRunning = true;
+        app.setRunning(true);
 
+        app.getCmdInfo().setCmd(cmd.getCmdId(), cmd.getCmdOrigin(), app.getFullName(), CmdType.START);
 
-        mCmdInfo.setCmd(cmd.getCmdId(), cmd.getCmdOrigin(), m_apkName, CmdType.START);
-
-        ackGuestScienceStart(true, m_apkName, "");
-        m_currentApplication.onGuestScienceStart();
+        // Completed by ackGuestScienceStart once the application has started
+        sendAck(cmd.getCmdId(), AckCompletedStatus.NOT, "", AckStatus.EXECUTING);
+        app.onStart();
     }
 
-    protected void handleGuestScienceStopCommand(CommandStamped cmd) {
-        if(!validateApkName(cmd)) {
+    protected synchronized void handleGuestScienceStopCommand(CommandStamped cmd) {
+        GuestScienceApp app = findApp(cmd);
+        if (app == null || isBusy(app, cmd, "stop")) {
             return;
         }
         String msg;
-        if(!m_apkIsRunning) {
-            msg =  "Apk " + m_apkName + " is already stopped.";
+        if (!app.isRunning()) {
+            msg =  "Apk " + app.getFullName() + " is already stopped.";
             sendAck(cmd.getCmdId(), AckCompletedStatus.EXEC_FAILED, msg);
             return;
         }
 
-        m_apkIsRunning = false;
+        app.setRunning(false);
 
-        mCmdInfo.setCmd(cmd.getCmdId(), cmd.getCmdOrigin(), m_apkName, CmdType.STOP);
+        app.getCmdInfo().setCmd(cmd.getCmdId(), cmd.getCmdOrigin(), app.getFullName(), CmdType.STOP);
 
-        ackGuestScienceStop(true, m_apkName, "");
-        m_currentApplication.onGuestScienceStop();
+        // Completed by ackGuestScienceStop once the application has stopped
+        sendAck(cmd.getCmdId(), AckCompletedStatus.NOT, "", AckStatus.EXECUTING);
+        app.onStop();
     }
 
+    /**
+     * Not synchronized: queueing never waits, and the acks lock the node
+     * main themselves.
+     */
     protected void handleGuestScienceCustomCommand(CommandStamped cmd) {
-        if(!validateApkName(cmd)) {
+        GuestScienceApp app = findApp(cmd);
+        if (app == null) {
             return;
         }
         String command = cmd.getArgs().get(1).getS();
 
-        sendAck(cmd.getCmdId());
-        m_currentApplication.onGuestScienceCustomCmd(command);
+        // Completed by the application's worker once it has been handled
+        sendAck(cmd.getCmdId(), AckCompletedStatus.NOT, "", AckStatus.EXECUTING);
+        app.submit(cmd.getCmdId(), command);
+    }
+
+    /**
+     * Like the guest science manager, only one start or stop at a time, or
+     * the acks could not be told apart.
+     */
+    private boolean isBusy(GuestScienceApp app, CommandStamped cmd, String what) {
+        if (app.getCmdInfo().isCmdEmpty()) {
+            return false;
+        }
+        String msg = "Apk " + app.getFullName() + " is busy trying to " +
+                app.getCmdInfo().getCmdType() + ". Please wait until the command completes " +
+                "and then try issuing the " + what + " command again!";
+        sendAck(cmd.getCmdId(), AckCompletedStatus.EXEC_FAILED, msg);
+        return true;
     }
 
     @Override
-    public synchronized void onShutdown(org.ros.node.Node node) {
-        m_node = null;
-        m_gsConfigPublisher = null;
-        m_ackStampedPublisher = null;
-        m_gsDataPublisher = null;
-        m_gsStatePublisher = null;
+    public void onShutdown(org.ros.node.Node node) {
+        // Before locking, see flushGuestScienceData
+        GuestScienceDataBatcher batcher = m_dataBatcher;
+        if (batcher != null) {
+            batcher.flush();
+        }
+        synchronized (this) {
+            for (GuestScienceApp app : m_apps.values())
+                app.shutdown();
+            m_node = null;
+            m_gsConfigPublisher = null;
+            m_ackStampedPublisher = null;
+            m_gsDataPublisher = null;
+            m_gsStatePublisher = null;
+        }
     }
 
     @Override
@@ -214,61 +256,133 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
         m_ackStampedPublisher.publish(ack);
     }
 
-    public void ackGuestScienceStart(boolean started, String apkName, String errMsg) {
+    public synchronized void ackGuestScienceStart(boolean started, String apkName, String errMsg) {
+        GuestScienceApp app = m_apps.get(apkName);
+        if (app == null) {
+            logger.error("Unknown apk " + apkName + ", not acking start.");
+            return;
+        }
         if (started) {
-            m_apkIsRunning = true;
+            app.setRunning(true);
             sendGuestScienceState();
-            sendAck(mCmdInfo.mId);
+            sendAck(app.getCmdInfo().mId);
         } else {
-            sendAck(mCmdInfo.mId, AckCompletedStatus.EXEC_FAILED, errMsg);
+            app.setRunning(false);
+            sendAck(app.getCmdInfo().mId, AckCompletedStatus.EXEC_FAILED, errMsg);
         }
-        mCmdInfo.resetCmd();
+        app.getCmdInfo().resetCmd();
     }
 
-    public void ackGuestScienceStop(boolean stopped, String apkName, String errMsg) {
+    public synchronized void ackGuestScienceStop(boolean stopped, String apkName, String errMsg) {
+        GuestScienceApp app = m_apps.get(apkName);
+        if (app == null) {
+            logger.error("Unknown apk " + apkName + ", not acking stop.");
+            return;
+        }
         if (stopped) {
-            m_apkIsRunning = false;
+            app.setRunning(false);
             sendGuestScienceState();
-            sendAck(mCmdInfo.mId);
+            sendAck(app.getCmdInfo().mId);
         } else {
-            sendAck(mCmdInfo.mId, AckCompletedStatus.EXEC_FAILED, errMsg);
+            sendAck(app.getCmdInfo().mId, AckCompletedStatus.EXEC_FAILED, errMsg);
         }
-        mCmdInfo.resetCmd();
+        app.getCmdInfo().resetCmd();
     }
 
-    public void sendGuestScienceState() {
+    public synchronized void sendGuestScienceState() {
         GuestScienceState mState = m_gsStatePublisher.newMessage();
-        boolean[] runningApks = {m_apkIsRunning};
+        // Same order as the apks in the config
+        boolean[] runningApks = new boolean[m_apps.size()];
+        int i = 0;
+        for (GuestScienceApp app : m_apps.values())
+            runningApks[i++] = app.isRunning();
         mState.setRunningApks(runningApks);
         Header hdr = mMessageFactory.newFromType(Header._TYPE);
         hdr.setStamp(mNodeConfig.getTimeProvider().getCurrentTime());
         mState.setHeader(hdr);
-        mState.setSerial(SERIAL_NUMBER);
+        mState.setSerial(m_serial);
         m_gsStatePublisher.publish(mState);
     }
 
-    synchronized void publishGuestScienceConfig(StartGuestScienceService app) {
+    /**
+     * Host another application, and tell the ground about it.
+     *
+     * @return {@code false} if an application with that name is already
+     *         hosted.
+     */
+    synchronized boolean addApplication(StartGuestScienceService app,
+                                        int queueCapacity,
+                                        OverflowPolicy policy) {
+        if (m_gsConfigPublisher == null)
+            throw new AstrobeeRuntimeException("Node not ready or dead");
+        if (m_apps.containsKey(app.getFullName())) {
+            logger.error("Apk " + app.getFullName() + " was already added.");
+            return false;
+        }
+
+        m_apps.put(app.getFullName(), new GuestScienceApp(this, app, queueCapacity, policy));
+        m_serial++;
+        publishGuestScienceConfig();
+        sendGuestScienceState();
+        return true;
+    }
+
+    /**
+     * Stop hosting an application, and tell the ground it is gone.
+     *
+     * @return {@code false} if no application with that name is hosted.
+     */
+    synchronized boolean removeApplication(String apkFullName) {
+        GuestScienceApp app = m_apps.remove(apkFullName);
+        if (app == null) {
+            return false;
+        }
+        app.shutdown();
+        m_serial++;
+        if (m_gsConfigPublisher != null) {
+            publishGuestScienceConfig();
+            sendGuestScienceState();
+        }
+        return true;
+    }
+
+    /**
+     * @return The gauges of the application, or {@code null} if no
+     *         application with that name is hosted.
+     */
+    synchronized GuestScienceAppGauges getGauges(String apkFullName) {
+        return m_apps.get(apkFullName);
+    }
+
+    synchronized int getApplicationCount() {
+        return m_apps.size();
+    }
+
+    synchronized void publishGuestScienceConfig() {
         if (m_gsConfigPublisher == null)
             throw new AstrobeeRuntimeException("Node not ready or dead");
 
-        m_currentApplication = app;
-        m_apkName = app.getFullName();
-        GuestScienceApk apk = mMessageFactory.newFromType(GuestScienceApk._TYPE);
-        apk.setApkName(app.getFullName());
-        apk.setShortName(app.getShortName());
-        apk.setPrimary(app.isPrimary());
-
-        List<GuestScienceCommand> cmds = new ArrayList<>();
-
-        if (app.getCommands() != null) {
-            for (Command gsCmd : app.getCommands()) {
-                GuestScienceCommand cmd = mMessageFactory.newFromType(GuestScienceCommand._TYPE);
-                cmd.setName(gsCmd.getName());
-                cmd.setCommand(gsCmd.getSyntax());
-                cmds.add(cmd);
+        List<GuestScienceApk> apks = new ArrayList<>();
+        for (GuestScienceApp hosted : m_apps.values()) {
+            StartGuestScienceService app = hosted.getApplication();
+            GuestScienceApk apk = mMessageFactory.newFromType(GuestScienceApk._TYPE);
+            apk.setApkName(app.getFullName());
+            apk.setShortName(app.getShortName());
+            apk.setPrimary(app.isPrimary());
+
+            List<GuestScienceCommand> cmds = new ArrayList<>();
+
+            if (app.getCommands() != null) {
+                for (Command gsCmd : app.getCommands()) {
+                    GuestScienceCommand cmd = mMessageFactory.newFromType(GuestScienceCommand._TYPE);
+                    cmd.setName(gsCmd.getName());
+                    cmd.setCommand(gsCmd.getSyntax());
+                    cmds.add(cmd);
+                }
             }
+            apk.setCommands(cmds);
+            apks.add(apk);
         }
-        apk.setCommands(cmds);
 
         GuestScienceConfig mConfig = m_gsConfigPublisher.newMessage();
         try {
@@ -276,9 +390,7 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
         } catch (NullPointerException e) {
             mConfig.getHeader().setStamp(new org.ros.message.Time());
         }
-        mConfig.setSerial(SERIAL_NUMBER);
-        List<GuestScienceApk> apks = new ArrayList<>();
-        apks.add(apk);
+        mConfig.setSerial(m_serial);
         mConfig.setApks(apks);
 
         logger.debug("Publishing " + Stringer.toString(mConfig));
@@ -286,6 +398,46 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
 
     }
 
+    /**
+     * Pack small payloads into frames, sent once full or after at most the
+     * given delay, to cut down the number of messages. The ground then has
+     * to take them apart with {@link GuestScienceDataFrame#unpack}.
+     *
+     * @param maxDelay How long a payload may wait for others, or 0 to send
+     *                 each payload as its own message, as by default.
+     */
+    void setDataBatching(long maxDelay, TimeUnit unit) {
+        GuestScienceDataBatcher old = m_dataBatcher;
+        if (maxDelay > 0) {
+            m_dataBatcher = new GuestScienceDataBatcher(
+                    new GuestScienceDataBatcher.Sink() {
+                        @Override
+                        public void publish(String apkName, String topic, byte dataType, byte[] data) {
+                            publishGuestScienceData(apkName, topic, dataType, data);
+                        }
+                    },
+                    NodeExecutorHolder.getExecutor().getScheduledExecutorService(),
+                    maxDelay, unit);
+        } else {
+            m_dataBatcher = null;
+        }
+        if (old != null) {
+            old.flush();
+        }
+    }
+
+    /**
+     * Send whatever data an application has waiting to be batched. Must not
+     * be called with this locked, as the batcher publishes under its own
+     * lock.
+     */
+    void flushGuestScienceData(String apkFullName) {
+        GuestScienceDataBatcher batcher = m_dataBatcher;
+        if (batcher != null) {
+            batcher.remove(apkFullName);
+        }
+    }
+
     /* Call this to send data from apk to ground */
     public void sendGuestScienceData(String apkFullName, String topic, byte[] data, MessageType dataType) {
         if (topic.length() > 32) {
@@ -302,26 +454,40 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
             return;
         }
 
-        GuestScienceData dataMsg = mMessageFactory.newFromType(GuestScienceData._TYPE);
-        Header hdr = mMessageFactory.newFromType(Header._TYPE);
-
-        hdr.setStamp(mNodeConfig.getTimeProvider().getCurrentTime());
-        dataMsg.setHeader(hdr);
-
-        dataMsg.setApkName(apkFullName);
-
+        byte type;
         if (dataType == MessageType.STRING) {
-            dataMsg.setDataType(GuestScienceData.STRING);
+            type = GuestScienceData.STRING;
         } else if (dataType == MessageType.JSON) {
-            dataMsg.setDataType(GuestScienceData.JSON);
+            type = GuestScienceData.JSON;
         } else if (dataType == MessageType.BINARY) {
-            dataMsg.setDataType(GuestScienceData.BINARY);
+            type = GuestScienceData.BINARY;
         } else {
             logger.error("Message type in guest science message is unknown so the message " +
                     "will not be sent to the ground.");
             return;
         }
 
+        GuestScienceDataBatcher batcher = m_dataBatcher;
+        if (batcher != null) {
+            batcher.add(apkFullName, topic, type, data);
+        } else {
+            publishGuestScienceData(apkFullName, topic, type, data);
+        }
+    }
+
+    private synchronized void publishGuestScienceData(String apkFullName, String topic,
+                                                      byte dataType, byte[] data) {
+        if (m_gsDataPublisher == null)
+            throw new AstrobeeRuntimeException("Node not ready or dead");
+
+        GuestScienceData dataMsg = mMessageFactory.newFromType(GuestScienceData._TYPE);
+        Header hdr = mMessageFactory.newFromType(Header._TYPE);
+
+        hdr.setStamp(mNodeConfig.getTimeProvider().getCurrentTime());
+        dataMsg.setHeader(hdr);
+
+        dataMsg.setApkName(apkFullName);
+        dataMsg.setDataType(dataType);
         dataMsg.setTopic(topic);
 
         ChannelBuffer dataBuff = ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, data);
@@ -330,20 +496,59 @@ public class GuestScienceNodeMain extends AbstractNodeMain implements MessageLis
     }
 
     protected boolean validateApkName(CommandStamped cmd) {
+        return findApp(cmd) != null;
+    }
+
+    /**
+     * @return The application the command is for, or {@code null} after
+     *         failing the command if there is none.
+     */
+    private synchronized GuestScienceApp findApp(CommandStamped cmd) {
         String incomingApkName = cmd.getArgs().get(0).getS();
-        if(m_apkName == null || !m_apkName.equals(incomingApkName)) {
+        GuestScienceApp app = m_apps.get(incomingApkName);
+        if (app == null) {
             String msg = "Unknown apk " + incomingApkName + ".";
             sendAck(cmd.getCmdId(), AckCompletedStatus.EXEC_FAILED, msg);
             logger.error(msg);
-            return false;
         }
-        return true;
+        return app;
     }
 
     public boolean isStarted() {
         return m_started;
     }
 
+    /**
+     * Wait for the node to have started, so applications can be added.
+     */
+    void awaitStarted() throws InterruptedException {
+        m_startLatch.await();
+    }
+
+    /**
+     * @return When the node was started, per {@link System#nanoTime()}.
+     */
+    long getStartedNanos() {
+        return m_startedNanos;
+    }
+
+    /**
+     * Load the classes of every message this node sends, which takes a
+     * while the first time. Uses a factory of its own, as message factories
+     * are not thread safe, so may run alongside {@link #onStart}.
+     */
+    static void warmUpMessages() {
+        MessageFactory factory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+        String[] types = {
+                Header._TYPE, AckStamped._TYPE, AckStatus._TYPE, AckCompletedStatus._TYPE,
+                GuestScienceConfig._TYPE, GuestScienceApk._TYPE, GuestScienceCommand._TYPE,
+                GuestScienceState._TYPE, GuestScienceData._TYPE, CommandStamped._TYPE
+        };
+        for (String type : types) {
+            factory.newFromType(type);
+        }
+    }
+
     @Override
     public GraphName getDefaultNodeName() {
         return GraphName.of("gs_manager_stub");
@@ -18,12 +18,20 @@
 package gov.nasa.arc.astrobee.ros.guestscience;
 
 import gov.nasa.arc.astrobee.ros.RobotConfiguration;
+import gov.nasa.arc.astrobee.ros.GuestScienceDataCompression;
 import gov.nasa.arc.astrobee.ros.NodeExecutorHolder;
+import gov.nasa.arc.astrobee.ros.OverflowPolicy;
 import gov.nasa.arc.astrobee.ros.internal.util.MessageType;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.ros.node.NodeConfiguration;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Construct Manager in your main (JavaGuestScienceManager will make the
  * NodeMain (ie GuestScienceNodeMain)
@@ -31,54 +39,242 @@ import org.ros.node.NodeConfiguration;
  * Give AppIntImpl to the JavaGuestScienceManager
  * JavaGuestScienceManager calls AppImpl when it needs to tell it something
  * AppImpl has to be able to send commands through this.
+ *
+ * Several applications can be given to one manager, to share a JVM and a
+ * ROS node. Each gets its custom commands through a bounded queue, on a
+ * thread of its own, and its start and stop commands on another, so they
+ * are not held up behind custom commands.
+ *
+ * The node starts in the background, so construct the manager before the
+ * applications, whose xml files are then parsed while it does.
  */
 public class JavaGuestScienceManager {
     private final Log logger = LogFactory.getLog(JavaGuestScienceManager.class);
     GuestScienceNodeMain m_nodeMain;
-    StartGuestScienceService m_app;
+    // In the order they were accepted
+    private final List<StartGuestScienceService> m_apps = new CopyOnWriteArrayList<>();
+
+    private volatile int m_queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private volatile OverflowPolicy m_queuePolicy = OverflowPolicy.FAIL_FAST;
+
+    private volatile boolean m_compressData = false;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
 
 
+    // Phase name to how long it took, in the order they finished
+    private final Map<String, Long> m_timings = new LinkedHashMap<>();
+    private final long m_createdNanos;
+
     public JavaGuestScienceManager() {
         logger.info("JavaGuestScienceManager() ctor");
+        m_createdNanos = System.nanoTime();
         RobotConfiguration robotConfiguration = new RobotConfiguration();
         final NodeConfiguration nodeConfiguration = robotConfiguration.build();
         m_nodeMain = new GuestScienceNodeMain();
         NodeExecutorHolder.getExecutor().execute(m_nodeMain, nodeConfiguration);
 
+        // While the node registers with the master, get the slow first
+        // uses out of the way, so the applications are not held up by them
+        final Thread warmUp = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                ApkInfoXmlParser.warmUp();
+                GuestScienceNodeMain.warmUpMessages();
+                recordTiming("warmup", System.nanoTime() - start);
+            }
+        }, "gs-warmup");
+        warmUp.setDaemon(true);
+        warmUp.start();
+
         logger.info("JavaGuestScienceManager() ctor finished");
     }
 
+    /**
+     * Set how many custom commands may wait for each application accepted
+     * from now on.
+     */
+    public JavaGuestScienceManager setCommandQueueCapacity(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        m_queueCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * Set what happens to custom commands for an application accepted from
+     * now on once its queue is full. Refused and dropped commands are failed.
+     * The default is {@link OverflowPolicy#FAIL_FAST}.
+     * {@link OverflowPolicy#BLOCK} is refused: waiting for room would hold
+     * up every command behind it, the application's own stop included.
+     *
+     * @throws IllegalArgumentException If {@code policy} is
+     *         {@link OverflowPolicy#BLOCK}.
+     */
+    public JavaGuestScienceManager setCommandQueueOverflowPolicy(final OverflowPolicy policy) {
+        GuestScienceApp.checkPolicy(policy);
+        m_queuePolicy = policy;
+        return this;
+    }
+
+    /**
+     * Pack the small payloads each application sends on a topic into
+     * frames of up to 2048 bytes, so chatty applications send fewer
+     * messages. A frame is sent once full, or once its first payload has
+     * waited the given delay. The ground has to take frames apart with
+     * {@link gov.nasa.arc.astrobee.ros.GuestScienceDataFrame#unpack}.
+     *
+     * @param maxDelay How long a payload may wait for others, or 0 to send
+     *                 each payload as its own message, as by default.
+     */
+    public JavaGuestScienceManager setDataBatching(long maxDelay, TimeUnit unit) {
+        if (maxDelay < 0)
+            throw new IllegalArgumentException("delay may not be negative");
+        m_nodeMain.setDataBatching(maxDelay, unit);
+        return this;
+    }
+
+    /**
+     * Compress the data applications send, where that makes it smaller, so
+     * more fits in a message: the 2048 byte limit then applies to the
+     * compressed data. The ground has to decompress it with
+     * {@link GuestScienceDataCompression#decompress} or
+     * {@link gov.nasa.arc.astrobee.ros.GuestScienceDataFrame#unpack}.
+     */
+    public JavaGuestScienceManager setDataCompression(boolean compress) {
+        m_compressData = compress;
+        return this;
+    }
+
+    /**
+     * @return How the custom commands of an application are getting on, or
+     *         {@code null} if no application with that name is hosted.
+     */
+    public GuestScienceAppGauges getGauges(String apkFullName) {
+        return m_nodeMain.getGauges(apkFullName);
+    }
+
+    /**
+     * Host an application, once the node has started. May be called once
+     * for each application.
+     *
+     * @return {@code false} if interrupted, or if an application with the
+     *         same full name was already accepted.
+     */
     public boolean acceptApplication(StartGuestScienceService app) {
-        m_app = app;
-        m_app.acceptManager(this);
+        long start = System.nanoTime();
+        app.acceptManager(this);
         try {
-            while (!m_nodeMain.isStarted()) {
-                Thread.sleep(250);
-            }
+            m_nodeMain.awaitStarted();
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        recordTiming("node", m_nodeMain.getStartedNanos() - m_createdNanos);
+
+        if (!m_nodeMain.addApplication(app, m_queueCapacity, m_queuePolicy)) {
             return false;
         }
+        m_apps.add(app);
 
-        m_nodeMain.sendGuestScienceState();
-        m_nodeMain.publishGuestScienceConfig(m_app);
+        long now = System.nanoTime();
+        recordTiming("parse " + app.getFullName(), app.getParseNanos());
+        recordTiming("accept " + app.getFullName(), now - start);
+        logger.info("Apk " + app.getFullName() + " is commandable " +
+                TimeUnit.NANOSECONDS.toMillis(now - m_createdNanos) +
+                " ms after the manager was created: " + formatTimings());
 
         return true;
     }
 
-    public void sendData(MessageType type, String topic, byte[] byteData) {
-        if (byteData.length > 2048) {
-            throw new RuntimeException("Data passed to sendData function is too big to send to " +
-                    "ground. Must be 2K.");
+    /**
+     * How long each phase of starting up took, in nanoseconds: "node" for
+     * the node to register with the master, "warmup" for loading the XML
+     * parser and message classes alongside it, and "parse" and "accept"
+     * followed by the apk name for parsing each application's xml file and
+     * for accepting it, which includes waiting for the node.
+     */
+    public Map<String, Long> getStartupTimings() {
+        synchronized (m_timings) {
+            return new LinkedHashMap<>(m_timings);
+        }
+    }
+
+    private void recordTiming(String phase, long nanos) {
+        synchronized (m_timings) {
+            if (!m_timings.containsKey(phase)) {
+                m_timings.put(phase, nanos);
+            }
+        }
+    }
+
+    private String formatTimings() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> e : getStartupTimings().entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(e.getKey()).append(' ')
+                    .append(TimeUnit.NANOSECONDS.toMillis(e.getValue())).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stop hosting an application.
+     *
+     * @return How many applications are still hosted.
+     */
+    int removeApplication(StartGuestScienceService app) {
+        if (m_apps.remove(app)) {
+            m_nodeMain.flushGuestScienceData(app.getFullName());
+            m_nodeMain.removeApplication(app.getFullName());
+        }
+        return m_apps.size();
+    }
+
+    private String getFirstApplicationName() {
+        if (m_apps.isEmpty()) {
+            throw new IllegalStateException("No application was accepted.");
         }
-        m_nodeMain.sendGuestScienceData(m_app.getFullName(), topic, byteData, type);
+        return m_apps.get(0).getFullName();
+    }
+
+    /**
+     * Send data on behalf of the first application accepted. With several
+     * applications, use {@link #sendData(String, MessageType, String, byte[])}.
+     */
+    public void sendData(MessageType type, String topic, byte[] byteData) {
+        sendData(getFirstApplicationName(), type, topic, byteData);
     }
 
+    /**
+     * Send data on behalf of the first application accepted. With several
+     * applications, use {@link #sendData(String, MessageType, String, String)}.
+     */
     public void sendData(MessageType type, String topic, String dataString) {
-        byte[] byteData = dataString.getBytes();
+        sendData(getFirstApplicationName(), type, topic, dataString);
+    }
+
+    /**
+     * Note: The ground tells compressed data and frames of batched data
+     * from the rest by their first bytes, {0, 'G', 'S', ...}. Binary data
+     * starting with those is misread there, unless compression is on,
+     * which always escapes it.
+     */
+    public void sendData(String apkFullName, MessageType type, String topic, byte[] byteData) {
+        if (m_compressData) {
+            byteData = GuestScienceDataCompression.compress(byteData);
+        }
         if (byteData.length > 2048) {
             throw new RuntimeException("Data passed to sendData function is too big to send to " +
-                    "ground. Must be 2K.");
+                    "ground. Must be 2K" + (m_compressData ? " once compressed." : "."));
         }
-        m_nodeMain.sendGuestScienceData(m_app.getFullName(), topic, byteData, type);
+        m_nodeMain.sendGuestScienceData(apkFullName, topic, byteData, type);
+    }
+
+    public void sendData(String apkFullName, MessageType type, String topic, String dataString) {
+        sendData(apkFullName, type, topic, dataString.getBytes());
     }
 }
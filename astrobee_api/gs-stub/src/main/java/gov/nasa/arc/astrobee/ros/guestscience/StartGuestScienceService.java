@@ -17,8 +17,13 @@ public abstract class StartGuestScienceService {
     private String m_shortName;
     private boolean m_primary;
 
+    // How long parsing the xml file took, for the startup timings
+    private final long m_parseNanos;
+
     public StartGuestScienceService(String xmlFilePath) {
+        long start = System.nanoTime();
         ApkInfo apkInfo = ApkInfoXmlParser.parseFile(xmlFilePath);
+        m_parseNanos = System.nanoTime() - start;
         m_fullName = apkInfo.getFullName();
         m_shortName = apkInfo.getShortName();
         m_primary = apkInfo.isPrimary();
@@ -26,6 +31,10 @@ public abstract class StartGuestScienceService {
     }
     
     public void terminate() {
+    	// Other applications may still be running in this process
+    	if (m_manager.removeApplication(this) > 0) {
+    		return;
+    	}
     	int timeout = 30;
     	m_manager.m_nodeMain.shutdown();
     	for(int i = 0; i<timeout; i++) {
@@ -55,11 +64,17 @@ public abstract class StartGuestScienceService {
     }
 
     public void sendData(MessageType type, String topic, String data) {
-        m_manager.sendData(type, topic, data);
+        m_manager.sendData(m_fullName, type, topic, data);
     }
 
+    /**
+     * Note: The ground tells compressed data and frames of batched data
+     * from the rest by their first bytes, {0, 'G', 'S', ...}. Binary data
+     * starting with those is misread there, unless compression is on,
+     * which always escapes it.
+     */
     public void sendData(MessageType type, String topic, byte[] data) {
-        m_manager.sendData(type, topic, data);
+        m_manager.sendData(m_fullName, type, topic, data);
     }
 
     public void sendStarted(String topic) {
@@ -78,6 +93,10 @@ public abstract class StartGuestScienceService {
         return m_commands;
     }
 
+    long getParseNanos() {
+        return m_parseNanos;
+    }
+
     void acceptManager(JavaGuestScienceManager manager) {
         m_manager = manager;
     }
@@ -0,0 +1,50 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+/**
+ * Running counts of the commands sent to a robot. Outstanding is a current
+ * value; the others count up from when the robot was created.
+ */
+public interface CommandGauges {
+    /**
+     * @return How many commands are queued or waiting for completion.
+     */
+    int getOutstanding();
+
+    /**
+     * @return How many commands were acked as completed, successfully or
+     *         not.
+     */
+    long getCompleted();
+
+    /**
+     * @return How many commands were given up on after their deadline.
+     */
+    long getExpired();
+
+    /**
+     * @return How many commands were cancelled by the caller.
+     */
+    long getCancelled();
+
+    /**
+     * @return How many commands were dropped from a full command queue.
+     */
+    long getDropped();
+}
@@ -0,0 +1,52 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import java.util.Set;
+
+/**
+ * How long commands sent to a robot took, by command name, as a
+ * {@link LatencyHistogram} for each {@link Phase}. Histograms count up from
+ * when the robot was created, or from the last {@link #reset()}.
+ */
+public interface CommandLatencies {
+    enum Phase {
+        /** From being sent to being handed to ROS, i.e. time spent queued. */
+        QUEUED,
+        /** From being handed to ROS to the first ack, whatever its status. */
+        FIRST_ACK,
+        /** From being sent to the COMPLETED ack. */
+        TOTAL
+    }
+
+    /**
+     * @return The names of the commands that have been sent so far.
+     */
+    Set<String> getCommandNames();
+
+    /**
+     * @return The live histogram, or {@code null} if no such command has
+     *         been sent.
+     */
+    LatencyHistogram getHistogram(String commandName, Phase phase);
+
+    /**
+     * Start every histogram over from zero.
+     */
+    void reset();
+}
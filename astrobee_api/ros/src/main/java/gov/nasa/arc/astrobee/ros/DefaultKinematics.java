@@ -20,6 +20,7 @@ package gov.nasa.arc.astrobee.ros;
 
 import ff_msgs.EkfState;
 import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsBuffer;
 import gov.nasa.arc.astrobee.types.Point;
 import gov.nasa.arc.astrobee.types.Quaternion;
 import gov.nasa.arc.astrobee.types.Vec3d;
@@ -60,16 +61,44 @@ public class DefaultKinematics implements Kinematics {
                 ekf.getAccel().getZ()
         );
 
-        switch(ekf.getConfidence()) {
+        m_confidence = toConfidence(ekf.getConfidence());
+    }
+
+    /**
+     * Build from a snapshot taken with {@link KinematicsBuffer#read(double[])}.
+     *
+     * @param snapshot At least {@link KinematicsBuffer#SIZE} values.
+     */
+    public DefaultKinematics(final double[] snapshot) {
+        if (snapshot.length < KinematicsBuffer.SIZE)
+            throw new IllegalArgumentException("snapshot is too short");
+        final int p = KinematicsBuffer.POSITION;
+        final int o = KinematicsBuffer.ORIENTATION;
+        m_position = new Point(snapshot[p], snapshot[p + 1], snapshot[p + 2]);
+        m_orientation = new Quaternion(
+                (float) snapshot[o],
+                (float) snapshot[o + 1],
+                (float) snapshot[o + 2],
+                (float) snapshot[o + 3]
+        );
+        m_linearVelocity = vec3d(snapshot, KinematicsBuffer.LINEAR_VELOCITY);
+        m_angularVelocity = vec3d(snapshot, KinematicsBuffer.ANGULAR_VELOCITY);
+        m_linearAcceleration = vec3d(snapshot, KinematicsBuffer.LINEAR_ACCELERATION);
+        m_confidence = Confidence.values()[(int) snapshot[KinematicsBuffer.CONFIDENCE]];
+    }
+
+    private static Vec3d vec3d(final double[] snapshot, int offset) {
+        return new Vec3d(snapshot[offset], snapshot[offset + 1], snapshot[offset + 2]);
+    }
+
+    static Confidence toConfidence(byte confidence) {
+        switch(confidence) {
             case EkfState.CONFIDENCE_GOOD:
-                m_confidence = Confidence.GOOD;
-                break;
+                return Confidence.GOOD;
             case EkfState.CONFIDENCE_POOR:
-                m_confidence = Confidence.POOR;
-                break;
+                return Confidence.POOR;
             case EkfState.CONFIDENCE_LOST:
-                m_confidence = Confidence.LOST;
-                break;
+                return Confidence.LOST;
             default:
                 throw new IllegalArgumentException("Invalid condifence byte?");
         }
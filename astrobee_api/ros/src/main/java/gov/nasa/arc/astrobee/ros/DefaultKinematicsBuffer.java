@@ -0,0 +1,147 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import ff_msgs.EkfState;
+import geometry_msgs.Point;
+import geometry_msgs.Quaternion;
+import geometry_msgs.Vector3;
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsBuffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link KinematicsBuffer} that decodes {@link EkfState} messages into
+ * preallocated storage.
+ *
+ * This is a sequence lock: the writer makes the sequence odd, writes, then
+ * makes it even again, and readers retry until they copy the values between
+ * two reads of the same even sequence. The values live in an
+ * {@link AtomicLongArray} so those reads are ordered. There must only be
+ * one writer, which is the ROS subscriber thread.
+ */
+public class DefaultKinematicsBuffer implements KinematicsBuffer {
+    private static final Kinematics.Confidence[] s_confidences = Kinematics.Confidence.values();
+
+    private final AtomicLong m_sequence = new AtomicLong(0);
+    private final AtomicLongArray m_data = new AtomicLongArray(SIZE);
+
+    public DefaultKinematicsBuffer() {
+        // Same as a default DefaultKinematics: no rotation, and lost
+        for (int i = 0; i < SIZE; i++)
+            m_data.set(i, Double.doubleToRawLongBits(0.0));
+        m_data.set(ORIENTATION + 3, Double.doubleToRawLongBits(1.0));
+        m_data.set(CONFIDENCE, Double.doubleToRawLongBits(Kinematics.Confidence.LOST.ordinal()));
+    }
+
+    /**
+     * Decode {@code ekf} into the buffer. Must only be called from one thread.
+     *
+     * @param ekf The EKF message to decode.
+     */
+    public void update(final EkfState ekf) {
+        final Kinematics.Confidence confidence = DefaultKinematics.toConfidence(ekf.getConfidence());
+        final Point position = ekf.getPose().getPosition();
+        final Quaternion orientation = ekf.getPose().getOrientation();
+
+        final long seq = m_sequence.get();
+        m_sequence.set(seq + 1);
+
+        put(POSITION, position.getX());
+        put(POSITION + 1, position.getY());
+        put(POSITION + 2, position.getZ());
+        put(ORIENTATION, orientation.getX());
+        put(ORIENTATION + 1, orientation.getY());
+        put(ORIENTATION + 2, orientation.getZ());
+        put(ORIENTATION + 3, orientation.getW());
+        put(LINEAR_VELOCITY, ekf.getVelocity());
+        put(ANGULAR_VELOCITY, ekf.getOmega());
+        put(LINEAR_ACCELERATION, ekf.getAccel());
+        put(CONFIDENCE, confidence.ordinal());
+
+        m_sequence.set(seq + 2);
+    }
+
+    private void put(int index, double value) {
+        m_data.lazySet(index, Double.doubleToRawLongBits(value));
+    }
+
+    private void put(int index, final Vector3 v) {
+        put(index, v.getX());
+        put(index + 1, v.getY());
+        put(index + 2, v.getZ());
+    }
+
+    private long copy(int from, int count, final double[] out, int offset) {
+        if (out.length < offset + count)
+            throw new IllegalArgumentException("out must hold at least " + (offset + count) + " values");
+
+        while (true) {
+            final long seq = m_sequence.get();
+            if ((seq & 1) != 0)
+                continue;
+            for (int i = 0; i < count; i++)
+                out[offset + i] = Double.longBitsToDouble(m_data.get(from + i));
+            if (m_sequence.get() == seq)
+                return seq;
+        }
+    }
+
+    @Override
+    public long getSequence() {
+        return m_sequence.get();
+    }
+
+    @Override
+    public long read(final double[] out) {
+        return copy(0, SIZE, out, 0);
+    }
+
+    @Override
+    public Kinematics.Confidence getConfidence() {
+        // A single value is always consistent
+        return s_confidences[(int) Double.longBitsToDouble(m_data.get(CONFIDENCE))];
+    }
+
+    @Override
+    public void getPosition(final double[] out) {
+        copy(POSITION, 3, out, 0);
+    }
+
+    @Override
+    public void getOrientation(final double[] out) {
+        copy(ORIENTATION, 4, out, 0);
+    }
+
+    @Override
+    public void getLinearVelocity(final double[] out) {
+        copy(LINEAR_VELOCITY, 3, out, 0);
+    }
+
+    @Override
+    public void getAngularVelocity(final double[] out) {
+        copy(ANGULAR_VELOCITY, 3, out, 0);
+    }
+
+    @Override
+    public void getLinearAcceleration(final double[] out) {
+        copy(LINEAR_ACCELERATION, 3, out, 0);
+    }
+}
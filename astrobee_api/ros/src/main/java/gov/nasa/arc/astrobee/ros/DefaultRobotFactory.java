@@ -18,15 +18,22 @@
 package gov.nasa.arc.astrobee.ros;
 
 import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.AstrobeeRuntimeException;
 import gov.nasa.arc.astrobee.Robot;
 import gov.nasa.arc.astrobee.RobotFactory;
+import gov.nasa.arc.astrobee.TelemetryRateManager;
+import gov.nasa.arc.astrobee.ros.internal.CommandTrace;
 import gov.nasa.arc.astrobee.ros.internal.RobotNodeMain;
 import gov.nasa.arc.astrobee.ros.internal.DefaultRobot;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.ros.node.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -34,61 +41,193 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Gives out {@link Robot}s backed by ROS nodes.
+ *
+ * "This" robot is started right away. Other robots are reached through
+ * their own node, in the namespace named after them, which is started the
+ * first time the robot is asked for and can be shut down on its own. All
+ * nodes share the one executor from {@link NodeExecutorHolder}, so talking
+ * to more robots does not mean more thread pools.
+ */
 public class DefaultRobotFactory implements RobotFactory {
     private final Log logger = LogFactory.getLog(DefaultRobotFactory.class);
 
     private final RobotConfiguration m_robotConfiguration;
 
-    private RobotNodeMain m_nodeMain = new RobotNodeMain();
+    // Guarded by m_remote, null once shut down until asked for again
+    private RobotNode m_local;
+
+    // Guarded by itself
+    private final Map<String, RobotNode> m_remote = new HashMap<>();
+
+    /**
+     * One node, talking to one robot, and whether it is up.
+     */
+    private final class RobotNode {
+        // Null for "this" robot
+        private final String m_name;
+        private final RobotNodeMain m_nodeMain;
+
+        private final Lock m_lock = new ReentrantLock();
+        private final Condition m_changed = m_lock.newCondition();
+        private boolean m_running = false;
+        private boolean m_shutdown = false;
+        private Throwable m_error = null;
+
+        // Down once the node is gone, however many times it is shut down
+        private final CountDownLatch m_shutdownLatch = new CountDownLatch(1);
 
-    private final Lock m_lock = new ReentrantLock();
-    private final Condition m_changed = m_lock.newCondition();
-    private boolean m_running = false;
-    private Throwable m_error = null;
+        private final class ReadyListener extends DefaultNodeListener {
+            @Override
+            public void onStart(ConnectedNode connectedNode) {
+                m_lock.lock();
+                try {
+                    // Came up after all, but nobody is to use it any more
+                    if (m_shutdown)
+                        return;
+                    m_running = true;
+                    m_error = null;
+                    m_changed.signalAll();
+                } finally {
+                    m_lock.unlock();
+                }
+            }
+
+            @Override
+            public void onShutdownComplete(Node node) {
+                logger.debug("Node shutdown complete" + describe());
+                m_lock.lock();
+                try {
+                    m_running = false;
+                    m_changed.signalAll();
+                } finally {
+                    m_lock.unlock();
+                }
 
-    private CountDownLatch m_shutdownLatch = null;
+                m_shutdownLatch.countDown();
+            }
+
+            @Override
+            public void onError(final Node node, Throwable throwable) {
+                logger.error("Node error" + describe(), throwable);
+                m_lock.lock();
+                try {
+                    m_running = false;
+                    m_error = throwable;
+                    m_changed.signalAll();
+                } finally {
+                    m_lock.unlock();
+                }
+
+                // Let the next request for this robot start over. The
+                // executor is shared with the other nodes, including the one
+                // replacing this, so it is left alone.
+                forget(RobotNode.this);
+                shutdown(false);
+            }
+        }
+
+        RobotNode(final String name) {
+            m_name = name;
+            final NodeConfiguration nodeConf;
+            if (name == null) {
+                m_nodeMain = new RobotNodeMain(m_robotConfiguration);
+                nodeConf = m_robotConfiguration.build();
+            } else {
+                m_nodeMain = new RobotNodeMain(m_robotConfiguration, name);
+                nodeConf = m_robotConfiguration.build(name);
+            }
+
+            final ArrayList<NodeListener> listeners = new ArrayList<>();
+            listeners.add(new ReadyListener());
+            NodeExecutorHolder.getExecutor().execute(m_nodeMain, nodeConf, listeners);
+        }
+
+        private String describe() {
+            return m_name == null ? "" : " for robot " + m_name;
+        }
 
-    private final class ReadyListener extends DefaultNodeListener {
-        @Override
-        public void onStart(ConnectedNode connectedNode) {
+        Robot await() throws AstrobeeException, InterruptedException {
             m_lock.lock();
             try {
-                m_running = true;
-                m_error = null;
-                m_changed.signalAll();
+                while (!m_running && m_error == null)
+                    m_changed.await();
+                if (m_error != null)
+                    throw new AstrobeeException(m_error);
+                return new DefaultRobot(m_nodeMain);
             } finally {
                 m_lock.unlock();
             }
         }
 
-        @Override
-        public void onShutdownComplete(Node node) {
-            logger.debug("Node shutdown complete");
+        Robot await(long timeout, TimeUnit units)
+                throws AstrobeeException, InterruptedException, TimeoutException {
+            long remaining = units.toNanos(timeout);
             m_lock.lock();
             try {
-                m_running = false;
-                m_changed.signalAll();
+                while (!m_running && m_error == null) {
+                    if (remaining <= 0)
+                        throw new TimeoutException("Timed out waiting for Robot");
+                    remaining = m_changed.awaitNanos(remaining);
+                }
+                if (m_error != null)
+                    throw new AstrobeeException(m_error);
+                return new DefaultRobot(m_nodeMain);
             } finally {
                 m_lock.unlock();
             }
-
-            if (m_shutdownLatch != null)
-                m_shutdownLatch.countDown();
         }
 
-        @Override
-        public void onError(final Node node, Throwable throwable) {
-            logger.error("Node error", throwable);
+        /**
+         * @param forceExecutor Whether to shut the shared executor down if
+         *                      the node does not go away in time. Only done
+         *                      when every node is going anyway.
+         */
+        void shutdown(final boolean forceExecutor) {
+            logger.debug("Attempting to shutdown node" + describe());
+            // Whoever is still waiting for this node gets told it is gone
+            final boolean first;
             m_lock.lock();
             try {
+                first = !m_shutdown;
+                m_shutdown = true;
                 m_running = false;
-                m_error = throwable;
+                if (m_error == null)
+                    m_error = new AstrobeeRuntimeException("Node was shut down" + describe());
                 m_changed.signalAll();
             } finally {
                 m_lock.unlock();
             }
-
-            shutdownNode();
+            if (first) {
+                NodeExecutorHolder.getExecutor().getScheduledExecutorService().submit(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                NodeExecutorHolder.getExecutor().shutdownNodeMain(m_nodeMain);
+                            }
+                        }
+                );
+            }
+            NodeExecutorHolder.getLocalExecutor().submit(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                if (m_shutdownLatch.await(5, TimeUnit.SECONDS))
+                                    return;
+                                if (forceExecutor) {
+                                    logger.warn("Node did not shut down in a timely manner, forcing shut down.");
+                                    NodeExecutorHolder.shutdownExecutor(1, TimeUnit.SECONDS);
+                                } else {
+                                    logger.warn("Node did not shut down in a timely manner" + describe());
+                                }
+                            } catch (InterruptedException e) {
+                                logger.debug("Interrupted exception.");
+                            }
+                        }
+                    }
+            );
         }
     }
 
@@ -99,44 +238,93 @@ public class DefaultRobotFactory implements RobotFactory {
 
     public DefaultRobotFactory(final RobotConfiguration configuration) {
         m_robotConfiguration = configuration;
-        final NodeConfiguration nodeConf = configuration.build();
+        m_local = new RobotNode(null);
+    }
 
-        final ArrayList<NodeListener> listeners = new ArrayList<>();
-        listeners.add(new ReadyListener());
-        NodeExecutorHolder.getExecutor().execute(m_nodeMain, nodeConf, listeners);
+    private boolean isLocal(final String name) {
+        return name == null || name.length() == 0 || name.equals(getLocalName());
     }
 
-    void shutdownNode() {
-        logger.debug("Attempting to shutdown node");
-        m_shutdownLatch = new CountDownLatch(1);
-        NodeExecutorHolder.getExecutor().getScheduledExecutorService().submit(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        NodeExecutorHolder.getExecutor().shutdownNodeMain(m_nodeMain);
-                    }
-                }
-        );
-        NodeExecutorHolder.getLocalExecutor().submit(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        try {
-                            if (!m_shutdownLatch.await(5, TimeUnit.SECONDS)) {
-                                logger.warn("Node did not shut down in a timely manner, forcing shut down.");
-                                NodeExecutorHolder.shutdownExecutor(1, TimeUnit.SECONDS);
-                            }
-                        } catch (InterruptedException e) {
-                            logger.debug("Interrupted exception.");
-                        }
-                    }
+    /**
+     * @return The node for this robot, started if need be.
+     */
+    private RobotNode getNode(final String name) {
+        synchronized (m_remote) {
+            if (isLocal(name)) {
+                if (m_local == null) {
+                    logger.info("Starting node");
+                    m_local = new RobotNode(null);
                 }
-        );
+                return m_local;
+            }
+
+            RobotNode node = m_remote.get(name);
+            if (node == null) {
+                logger.info("Starting node for robot " + name);
+                node = new RobotNode(name);
+                m_remote.put(name, node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * @return The node for this robot if it was started, or {@code null}.
+     */
+    private RobotNode findNode(final String name) {
+        synchronized (m_remote) {
+            return isLocal(name) ? m_local : m_remote.get(name);
+        }
+    }
+
+    /**
+     * Drop a node that failed, unless it was already replaced.
+     */
+    private void forget(final RobotNode node) {
+        synchronized (m_remote) {
+            if (node.m_name == null) {
+                if (m_local == node)
+                    m_local = null;
+            } else if (m_remote.get(node.m_name) == node) {
+                m_remote.remove(node.m_name);
+            }
+        }
+    }
+
+    /**
+     * Shut down the node talking to one robot, leaving the others running.
+     * Asking for that robot again starts a new node.
+     *
+     * @param name The name of the robot, or {@code null} for "this" robot.
+     */
+    @Override
+    public void shutdown(final String name) {
+        final RobotNode node;
+        synchronized (m_remote) {
+            if (isLocal(name)) {
+                node = m_local;
+                m_local = null;
+            } else {
+                node = m_remote.remove(name);
+            }
+        }
+        if (node != null)
+            node.shutdown(false);
     }
 
     @Override
     public void shutdown() {
-        shutdownNode();
+        final ArrayList<RobotNode> nodes;
+        synchronized (m_remote) {
+            nodes = new ArrayList<>(m_remote.values());
+            m_remote.clear();
+            if (m_local != null)
+                nodes.add(m_local);
+            m_local = null;
+        }
+        for (RobotNode node : nodes)
+            node.shutdown(true);
+
         NodeExecutorHolder.getLocalExecutor().submit(
                 new Runnable() {
                     @Override
@@ -154,42 +342,143 @@ public class DefaultRobotFactory implements RobotFactory {
 
     @Override
     public Robot getRobot(final String name) throws AstrobeeException, InterruptedException {
-        if (name != null && name.length() > 0)
-            throw new RuntimeException("Not implemented yet, sorry.");
-
-        m_lock.lock();
-        try {
-            while (!m_running && m_error == null)
-                m_changed.await();
-            if (m_error != null)
-                throw new AstrobeeException(m_error);
-            return new DefaultRobot(m_nodeMain);
-        } finally {
-            m_lock.unlock();
-        }
+        return getNode(name).await();
     }
 
     @Override
     public Robot getRobot(long timeout, TimeUnit units) throws AstrobeeException, InterruptedException, TimeoutException {
-        return getRobot(null);
+        return getRobot(null, timeout, units);
     }
 
     @Override
     public Robot getRobot(String name, long timeout, TimeUnit units) throws AstrobeeException, InterruptedException, TimeoutException {
-        if (name != null && name.length() > 0)
-            throw new RuntimeException("Not implemented yet, sorry.");
-
-        m_lock.lock();
-        try {
-            while (!m_running && m_error == null)
-                if (!m_changed.await(timeout, units))
-                    throw new TimeoutException("Timed out waiting for Robot");
-            if (m_error != null)
-                throw new AstrobeeException(m_error);
-            return new DefaultRobot(m_nodeMain);
-        } finally {
-            m_lock.unlock();
-        }
+        return getNode(name).await(timeout, units);
+    }
+
+    /**
+     * Get counts of the commands sent to "this" robot: how many are still
+     * outstanding, and how many completed, expired, were cancelled or were
+     * dropped.
+     *
+     * @return The {@link CommandGauges}, live, or {@code null} while the
+     *         node is shut down.
+     */
+    public CommandGauges getCommandGauges() {
+        return getCommandGauges(null);
+    }
+
+    /**
+     * Get counts of the commands sent to a robot.
+     *
+     * @param name The name of the robot, or {@code null} for "this" robot.
+     * @return The {@link CommandGauges}, or {@code null} if that robot has
+     *         not been asked for.
+     */
+    public CommandGauges getCommandGauges(final String name) {
+        final RobotNode node = findNode(name);
+        return node == null ? null : node.m_nodeMain.getCommandGauges();
+    }
+
+    /**
+     * Get what keeps the telemetry rates of "this" robot in line with what
+     * is consumed, to register demand or set base rates.
+     *
+     * @return The {@link TelemetryRateManager}, or {@code null} unless
+     *         {@link RobotConfiguration#setManageTelemetryRates(boolean)} was
+     *         set and the robot was asked for.
+     */
+    public TelemetryRateManager getTelemetryRates() {
+        return getTelemetryRates(null);
+    }
+
+    /**
+     * Get what keeps the telemetry rates of a robot in line with what is
+     * consumed.
+     *
+     * @param name The name of the robot, or {@code null} for "this" robot.
+     * @return The {@link TelemetryRateManager}, or {@code null} if rates are
+     *         not managed or that robot has not been asked for.
+     */
+    public TelemetryRateManager getTelemetryRates(final String name) {
+        final RobotNode node = findNode(name);
+        return node == null ? null : node.m_nodeMain.getTelemetryRates();
+    }
+
+    /**
+     * Get how long commands sent to "this" robot took, by name, from being
+     * sent to being handed to ROS, to the first ack and to completion.
+     *
+     * @return The {@link CommandLatencies}, live, or {@code null} while the
+     *         node is shut down.
+     */
+    public CommandLatencies getCommandLatencies() {
+        return getCommandLatencies(null);
+    }
+
+    /**
+     * Get how long commands sent to a robot took.
+     *
+     * @param name The name of the robot, or {@code null} for "this" robot.
+     * @return The {@link CommandLatencies}, or {@code null} if that robot
+     *         has not been asked for.
+     */
+    public CommandLatencies getCommandLatencies(final String name) {
+        final RobotNode node = findNode(name);
+        return node == null ? null : node.m_nodeMain.getCommandLatencies();
+    }
+
+    /**
+     * Get the recent kinematic history of "this" robot, for looking up where
+     * it was at a given time.
+     *
+     * @return The {@link KinematicsHistory}, or {@code null} if it was
+     *         disabled in the {@link RobotConfiguration} or the node is
+     *         shut down.
+     */
+    public KinematicsHistory getKinematicsHistory() {
+        return getKinematicsHistory(null);
+    }
+
+    /**
+     * Get the recent kinematic history of a robot.
+     *
+     * @param name The name of the robot, or {@code null} for "this" robot.
+     * @return The {@link KinematicsHistory}, or {@code null} if that robot
+     *         has not been asked for or history was disabled.
+     */
+    public KinematicsHistory getKinematicsHistory(final String name) {
+        final RobotNode node = findNode(name);
+        return node == null ? null : node.m_nodeMain.getKinematicsHistory();
+    }
+
+    /**
+     * Write what recently happened to commands sent to "this" robot to a
+     * file, for reading back with
+     * {@link gov.nasa.arc.astrobee.ros.internal.util.CommandTraceDecoder}.
+     *
+     * @return {@code false} if tracing was disabled in the
+     *         {@link RobotConfiguration}.
+     */
+    public boolean dumpCommandTrace(final File file) throws IOException {
+        return dumpCommandTrace(null, file);
+    }
+
+    /**
+     * Write what recently happened to commands sent to a robot to a file.
+     *
+     * @param name The name of the robot, or {@code null} for "this" robot.
+     * @return {@code false} if that robot has not been asked for or tracing
+     *         was disabled.
+     */
+    public boolean dumpCommandTrace(final String name, final File file) throws IOException {
+        final RobotNode node = findNode(name);
+        if (node == null)
+            return false;
+        final CommandTrace trace = node.m_nodeMain.getCommandTrace();
+        if (trace == null)
+            return false;
+        trace.dump(file);
+        return true;
     }
 
     @Override
@@ -0,0 +1,55 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+/**
+ * Running figures for one of the thread pools in {@link NodeExecutorHolder}.
+ * Queue depth and active threads are current values; the others count up
+ * from when the pool was created.
+ *
+ * Latency is how long a task waited between being due, i.e. submitted or
+ * scheduled to run, and actually starting, which is what grows when a pool
+ * is starved.
+ */
+public interface ExecutorGauges {
+    /**
+     * @return How many tasks are due but have not started.
+     */
+    int getQueueDepth();
+
+    /**
+     * @return How many threads are running a task.
+     */
+    int getActiveThreads();
+
+    /**
+     * @return How many tasks have run to completion, or thrown.
+     */
+    long getCompletedTasks();
+
+    /**
+     * @return The mean latency of started tasks in nanoseconds, or 0 if
+     *         none have started.
+     */
+    long getMeanLatencyNanos();
+
+    /**
+     * @return The worst latency of any started task in nanoseconds.
+     */
+    long getMaxLatencyNanos();
+}
@@ -0,0 +1,178 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate for guest science payloads, with a preset dictionary of what
+ * their JSON status messages are typically made of, so even short ones
+ * shrink.
+ *
+ * A compressed payload starts with a 4 byte marker and the version of the
+ * dictionary, followed by raw deflate data. Payloads that do not get
+ * smaller are left as they are, so use {@link #decompress(byte[])}, which
+ * handles both, on the ground; {@link GuestScienceDataFrame#unpack} already
+ * does.
+ *
+ * The Android guest science library has a copy of this, which must be kept
+ * in step: change the dictionary only together with its version.
+ */
+public final class GuestScienceDataCompression {
+    private static final byte[] MARKER = { 0, 'G', 'S', 'Z' };
+    private static final byte DICTIONARY_VERSION = 1;
+    private static final int HEADER_SIZE = MARKER.length + 1;
+
+    /** The most a compressed payload may expand to. */
+    public static final int MAX_DECOMPRESSED_SIZE = 64 * 1024;
+
+    // Taken from the status messages of the example and project apks. Deflate
+    // reaches back at most 32K and finds the end of the dictionary cheapest,
+    // so the most common pieces are last.
+    private static final byte[] DICTIONARY = (
+            "{\"Experiment Idx\": \"Desired IDX\": \"Reported IDX\": \"DL_MS\": " +
+            "\"Final Perch Position\": \"Position\": \"Location\": \"Voltage\": " +
+            "\"Current\": \"Percentage\": \"Charge\": \"Serial Number\": \"Present\": " +
+            "\"Found\": \"Delay\": \"Feedback\": \"Last Status Read Time\": " +
+            "\"Experiment in Progress\": \"Error Status\": \"Gripper Status\": " +
+            "\"Gripper Cmd\": \"Wrist Lock\": \"Adhesive Engage\": " +
+            "\"Automatic Mode Enable\": \"Command Status\": \"Astrobee Cmd\": " +
+            "true, false, null, 0.0, 1, \"title\": \"\", \"value\": \"\", " +
+            "\"ERROR\": \"Error parsing JSON\", \"Message\": \"\", \"Status\": \"\", " +
+            "\"Summary\": \"Received Custom Command\"}{\"Summary\": \"Stopped\"}" +
+            "{\"Summary\": \"Started\"}{\"Summary\": \"").getBytes(Charset.forName("UTF-8"));
+
+    // Deflaters and inflaters are costly to make, and not thread safe
+    private static final ThreadLocal<Deflater> s_deflater = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_COMPRESSION, true);
+        }
+    };
+
+    private static final ThreadLocal<Inflater> s_inflater = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    private GuestScienceDataCompression() { }
+
+    /**
+     * @return The payload compressed and marked as such, or the payload
+     *         itself if that is no smaller. A payload starting like a
+     *         compressed payload or a {@link GuestScienceDataFrame} is always
+     *         compressed, so it cannot be mistaken for either.
+     */
+    public static byte[] compress(final byte[] data) {
+        final boolean escape = isMarked(data);
+        if (data.length <= HEADER_SIZE && !escape)
+            return data;
+
+        final Deflater deflater = s_deflater.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(data);
+        deflater.finish();
+
+        // Anything bigger than the payload is of no use, unless escaping
+        byte[] out = new byte[Math.max(data.length, HEADER_SIZE + 16)];
+        System.arraycopy(MARKER, 0, out, 0, MARKER.length);
+        out[MARKER.length] = DICTIONARY_VERSION;
+        int size = HEADER_SIZE;
+        while (!deflater.finished()) {
+            if (size == out.length) {
+                if (!escape)
+                    return data;
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            size += deflater.deflate(out, size, out.length - size);
+        }
+        if (!escape && size >= data.length)
+            return data;
+
+        final byte[] compressed = new byte[size];
+        System.arraycopy(out, 0, compressed, 0, size);
+        return compressed;
+    }
+
+    /**
+     * @return Whether the payload starts with what compressed payloads and
+     *         frames both start with.
+     */
+    private static boolean isMarked(final byte[] data) {
+        return data.length >= 3 && data[0] == MARKER[0] && data[1] == MARKER[1] &&
+                data[2] == MARKER[2];
+    }
+
+    /**
+     * @return {@code true} if the payload was compressed by
+     *         {@link #compress(byte[])}.
+     */
+    public static boolean isCompressed(final byte[] data) {
+        if (data.length < HEADER_SIZE)
+            return false;
+        for (int i = 0; i < MARKER.length; i++) {
+            if (data[i] != MARKER[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The payload, decompressed if it was compressed.
+     * @throws IllegalArgumentException if the payload is corrupt, was
+     *         compressed with an unknown dictionary, or would decompress to
+     *         more than {@link #MAX_DECOMPRESSED_SIZE} bytes.
+     */
+    public static byte[] decompress(final byte[] data) {
+        if (!isCompressed(data))
+            return data;
+        if (data[MARKER.length] != DICTIONARY_VERSION)
+            throw new IllegalArgumentException("Unknown guest science dictionary version " +
+                    data[MARKER.length]);
+
+        final Inflater inflater = s_inflater.get();
+        inflater.reset();
+        inflater.setDictionary(DICTIONARY);
+        inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+        final byte[] buffer = new byte[1024];
+        try {
+            while (!inflater.finished()) {
+                final int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IllegalArgumentException("Truncated guest science payload");
+                out.write(buffer, 0, n);
+                if (out.size() > MAX_DECOMPRESSED_SIZE)
+                    throw new IllegalArgumentException("Guest science payload decompresses " +
+                            "to more than " + MAX_DECOMPRESSED_SIZE + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt guest science payload", e);
+        }
+        return out.toByteArray();
+    }
+}
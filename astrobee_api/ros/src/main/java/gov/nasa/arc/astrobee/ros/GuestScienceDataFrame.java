@@ -0,0 +1,212 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import ff_msgs.GuestScienceData;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several small guest science payloads for the same apk, topic and data
+ * type, packed into the data of one {@link GuestScienceData} message so
+ * chatty applications send fewer messages.
+ *
+ * A frame starts with a 4 byte marker, then a version byte and the number
+ * of records. Each record is how many milliseconds before the message was
+ * stamped it was sent and its length, both unsigned 16 bit little endian,
+ * followed by its data. Payloads too big to share a frame are sent as they
+ * are, so use {@link #unpack(GuestScienceData)}, which handles both, on the
+ * ground. It also decompresses payloads compressed with
+ * {@link GuestScienceDataCompression}.
+ */
+public final class GuestScienceDataFrame {
+    /** The most data a guest science message may carry. */
+    public static final int MAX_SIZE = 2048;
+
+    private static final byte[] MARKER = { 0, 'G', 'S', 'B' };
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MARKER.length + 2;
+    private static final int RECORD_HEADER_SIZE = 4;
+    private static final int MAX_RECORDS = 0xFF;
+    private static final int MAX_AGE = 0xFFFF;
+
+    /** The largest payload that fits in a frame. */
+    public static final int MAX_PAYLOAD = MAX_SIZE - HEADER_SIZE - RECORD_HEADER_SIZE;
+
+    private final byte[] m_buffer = new byte[MAX_SIZE];
+    private int m_size = HEADER_SIZE;
+    private int m_count = 0;
+    // When each record was added, its age is only known once sent
+    private final long[] m_addedNanos = new long[MAX_RECORDS];
+    private final int[] m_offsets = new int[MAX_RECORDS];
+
+    /**
+     * One payload taken out of a message.
+     */
+    public static final class Record {
+        private final byte[] m_data;
+        private final long m_ageMillis;
+
+        Record(final byte[] data, long ageMillis) {
+            m_data = data;
+            m_ageMillis = ageMillis;
+        }
+
+        public byte[] getData() {
+            return m_data;
+        }
+
+        /**
+         * @return How long before the message was stamped the payload was
+         *         sent, in milliseconds.
+         */
+        public long getAgeMillis() {
+            return m_ageMillis;
+        }
+    }
+
+    public GuestScienceDataFrame() {
+        System.arraycopy(MARKER, 0, m_buffer, 0, MARKER.length);
+        m_buffer[MARKER.length] = VERSION;
+    }
+
+    /**
+     * @return {@code false} if the payload does not fit in what is left of
+     *         the frame.
+     */
+    public boolean fits(int length) {
+        return m_count < MAX_RECORDS &&
+                m_size + RECORD_HEADER_SIZE + length <= MAX_SIZE;
+    }
+
+    /**
+     * @param addedNanos When the payload was sent, per
+     *                   {@link System#nanoTime()}.
+     */
+    public void add(final byte[] data, long addedNanos) {
+        if (!fits(data.length))
+            throw new IllegalArgumentException("payload does not fit in the frame");
+        m_addedNanos[m_count] = addedNanos;
+        m_offsets[m_count] = m_size;
+        m_size += 2;
+        putShort(data.length);
+        System.arraycopy(data, 0, m_buffer, m_size, data.length);
+        m_size += data.length;
+        m_count++;
+    }
+
+    public int getCount() {
+        return m_count;
+    }
+
+    public boolean isEmpty() {
+        return m_count == 0;
+    }
+
+    /**
+     * @param nowNanos When the frame is being sent, per
+     *                 {@link System#nanoTime()}, which the ages of the
+     *                 payloads are taken from. They are capped at about a
+     *                 minute.
+     */
+    public byte[] toByteArray(long nowNanos) {
+        final byte[] data = new byte[m_size];
+        System.arraycopy(m_buffer, 0, data, 0, m_size);
+        data[MARKER.length + 1] = (byte) m_count;
+        for (int i = 0; i < m_count; i++) {
+            final long age = TimeUnit.NANOSECONDS.toMillis(nowNanos - m_addedNanos[i]);
+            final int capped = (int) Math.max(0, Math.min(age, MAX_AGE));
+            data[m_offsets[i]] = (byte) capped;
+            data[m_offsets[i] + 1] = (byte) (capped >> 8);
+        }
+        return data;
+    }
+
+    public void clear() {
+        m_size = HEADER_SIZE;
+        m_count = 0;
+    }
+
+    private void putShort(int value) {
+        m_buffer[m_size++] = (byte) value;
+        m_buffer[m_size++] = (byte) (value >> 8);
+    }
+
+    /**
+     * @return {@code true} if the data is a frame of several payloads.
+     */
+    public static boolean isFrame(final byte[] data) {
+        if (data.length < HEADER_SIZE)
+            return false;
+        for (int i = 0; i < MARKER.length; i++) {
+            if (data[i] != MARKER[i])
+                return false;
+        }
+        return data[MARKER.length] == VERSION;
+    }
+
+    /**
+     * Take the payloads out of a message, whether it holds a frame or a
+     * single payload, and decompress them.
+     */
+    public static List<Record> unpack(final GuestScienceData msg) {
+        final ChannelBuffer buffer = msg.getData();
+        final byte[] data = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), data);
+        return unpack(data);
+    }
+
+    /**
+     * Take the payloads out of the data of a message, whether it is a frame
+     * or a single payload, and decompress them.
+     *
+     * @throws IllegalArgumentException if the frame is truncated or a
+     *         payload is corrupt.
+     */
+    public static List<Record> unpack(final byte[] data) {
+        if (!isFrame(data))
+            return Collections.singletonList(
+                    new Record(GuestScienceDataCompression.decompress(data), 0));
+
+        final int count = data[MARKER.length + 1] & 0xFF;
+        final List<Record> records = new ArrayList<>(count);
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            if (offset + RECORD_HEADER_SIZE > data.length)
+                throw new IllegalArgumentException("Truncated guest science frame");
+            final int age = getShort(data, offset);
+            final int length = getShort(data, offset + 2);
+            offset += RECORD_HEADER_SIZE;
+            if (offset + length > data.length)
+                throw new IllegalArgumentException("Truncated guest science frame");
+            final byte[] payload = new byte[length];
+            System.arraycopy(data, offset, payload, 0, length);
+            offset += length;
+            records.add(new Record(GuestScienceDataCompression.decompress(payload), age));
+        }
+        return records;
+    }
+
+    private static int getShort(final byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+}
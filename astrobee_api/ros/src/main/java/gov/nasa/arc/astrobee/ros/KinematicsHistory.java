@@ -0,0 +1,337 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import ff_msgs.EkfState;
+import geometry_msgs.Point;
+import geometry_msgs.Quaternion;
+import geometry_msgs.Vector3;
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsBuffer;
+import gov.nasa.arc.astrobee.types.Quaternions;
+import org.ros.message.Time;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded history of EKF states, indexed by the time stamped in their
+ * header, so you can ask where the robot was when something happened rather
+ * than where it is now.
+ *
+ * States are kept in a fixed ring of primitives laid out like a
+ * {@link KinematicsBuffer} snapshot; once full, the oldest state is
+ * overwritten. There must only be one writer (the ROS subscriber thread).
+ * Readers never lock: every slot carries a sequence number, and a read
+ * that races with the writer reusing that slot is retried or skipped.
+ *
+ * Times are nanoseconds, as given by {@link Time#totalNsecs()}.
+ */
+public class KinematicsHistory {
+    private static final int STRIDE = KinematicsBuffer.SIZE;
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final int m_capacity;
+    private final int m_mask;
+
+    // Per slot: 2n + 1 while record n is being written, 2n + 2 once done
+    private final AtomicLongArray m_slotSequence;
+    private final AtomicLongArray m_stamps;
+    private final AtomicLongArray m_data;
+
+    // Number of records ever written. Only the writer changes it.
+    private volatile long m_count = 0;
+
+    /**
+     * @param capacity How many states to keep. Rounded up to a power of two.
+     */
+    public KinematicsHistory(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 24))
+            throw new IllegalArgumentException("capacity must be between 1 and 2^24");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        m_capacity = size;
+        m_mask = size - 1;
+        m_slotSequence = new AtomicLongArray(size);
+        m_stamps = new AtomicLongArray(size);
+        m_data = new AtomicLongArray(size * STRIDE);
+    }
+
+    public int getCapacity() {
+        return m_capacity;
+    }
+
+    /**
+     * @return How many states are currently held.
+     */
+    public int size() {
+        return (int) Math.min(m_count, m_capacity);
+    }
+
+    /**
+     * Record {@code ekf}. States that are not newer than the last recorded
+     * state are ignored. Must only be called from one thread.
+     *
+     * @param ekf The EKF message to record.
+     */
+    public void add(final EkfState ekf) {
+        final long stamp = ekf.getHeader().getStamp().totalNsecs();
+        final long n = m_count;
+        if (n > 0 && stamp <= m_stamps.get((int) ((n - 1) & m_mask)))
+            return;
+
+        final Kinematics.Confidence confidence = DefaultKinematics.toConfidence(ekf.getConfidence());
+        final Point position = ekf.getPose().getPosition();
+        final Quaternion orientation = ekf.getPose().getOrientation();
+
+        final int slot = (int) (n & m_mask);
+        final int base = slot * STRIDE;
+        m_slotSequence.set(slot, 2 * n + 1);
+
+        m_stamps.lazySet(slot, stamp);
+        put(base + KinematicsBuffer.POSITION, position.getX());
+        put(base + KinematicsBuffer.POSITION + 1, position.getY());
+        put(base + KinematicsBuffer.POSITION + 2, position.getZ());
+        put(base + KinematicsBuffer.ORIENTATION, orientation.getX());
+        put(base + KinematicsBuffer.ORIENTATION + 1, orientation.getY());
+        put(base + KinematicsBuffer.ORIENTATION + 2, orientation.getZ());
+        put(base + KinematicsBuffer.ORIENTATION + 3, orientation.getW());
+        put(base + KinematicsBuffer.LINEAR_VELOCITY, ekf.getVelocity());
+        put(base + KinematicsBuffer.ANGULAR_VELOCITY, ekf.getOmega());
+        put(base + KinematicsBuffer.LINEAR_ACCELERATION, ekf.getAccel());
+        put(base + KinematicsBuffer.CONFIDENCE, confidence.ordinal());
+
+        m_slotSequence.set(slot, 2 * n + 2);
+        m_count = n + 1;
+    }
+
+    private void put(int index, double value) {
+        m_data.lazySet(index, Double.doubleToRawLongBits(value));
+    }
+
+    private void put(int index, final Vector3 v) {
+        put(index, v.getX());
+        put(index + 1, v.getY());
+        put(index + 2, v.getZ());
+    }
+
+    private double get(int index) {
+        return Double.longBitsToDouble(m_data.get(index));
+    }
+
+    /**
+     * @return The stamp of record {@code n}, or {@link #MISSING} if it has
+     *         been (or is being) overwritten.
+     */
+    private long readStamp(long n) {
+        final int slot = (int) (n & m_mask);
+        final long seq = 2 * n + 2;
+        if (m_slotSequence.get(slot) != seq)
+            return MISSING;
+        final long stamp = m_stamps.get(slot);
+        return m_slotSequence.get(slot) == seq ? stamp : MISSING;
+    }
+
+    /**
+     * Copy record {@code n} into {@code out} at {@code offset}.
+     *
+     * @return {@code false} if it was overwritten while we read it.
+     */
+    private boolean readState(long n, final double[] out, int offset) {
+        final int slot = (int) (n & m_mask);
+        final long seq = 2 * n + 2;
+        if (m_slotSequence.get(slot) != seq)
+            return false;
+        final int base = slot * STRIDE;
+        for (int i = 0; i < STRIDE; i++)
+            out[offset + i] = get(base + i);
+        return m_slotSequence.get(slot) == seq;
+    }
+
+    /**
+     * Blend record {@code n} into the state already in {@code out}: linear
+     * for vectors, slerp for the orientation, and the worse of the two
+     * confidences.
+     *
+     * @return {@code false} if it was overwritten while we read it.
+     */
+    private boolean blendState(long n, double fraction, final double[] out) {
+        final int slot = (int) (n & m_mask);
+        final long seq = 2 * n + 2;
+        if (m_slotSequence.get(slot) != seq)
+            return false;
+        final int base = slot * STRIDE;
+
+        for (int i = KinematicsBuffer.POSITION; i < KinematicsBuffer.POSITION + 3; i++)
+            out[i] += (get(base + i) - out[i]) * fraction;
+        for (int i = KinematicsBuffer.LINEAR_VELOCITY; i < KinematicsBuffer.CONFIDENCE; i++)
+            out[i] += (get(base + i) - out[i]) * fraction;
+        out[KinematicsBuffer.CONFIDENCE] =
+                Math.max(out[KinematicsBuffer.CONFIDENCE], get(base + KinematicsBuffer.CONFIDENCE));
+
+        final int o = base + KinematicsBuffer.ORIENTATION;
+        Quaternions.slerp(out, KinematicsBuffer.ORIENTATION,
+                get(o), get(o + 1), get(o + 2), get(o + 3), fraction,
+                out, KinematicsBuffer.ORIENTATION);
+
+        return m_slotSequence.get(slot) == seq;
+    }
+
+    /**
+     * @return The index of the last record stamped at or before
+     *         {@code time}, or {@code oldest - 1} if there is none.
+     */
+    private long search(long time, long oldest, long newest) {
+        long lo = oldest, hi = newest, found = oldest - 1;
+        while (lo <= hi) {
+            final long mid = (lo + hi) >>> 1;
+            final long stamp = readStamp(mid);
+            // A missing record was just overwritten, so it is older than time
+            if (stamp == MISSING || stamp <= time) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return The oldest record that is still readable, or -1 if none.
+     */
+    private long oldestReadable(long count) {
+        for (long n = Math.max(0, count - m_capacity); n < count; n++) {
+            if (readStamp(n) != MISSING)
+                return n;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The oldest time we can answer for, or {@code Long.MIN_VALUE}
+     *         if the history is empty.
+     */
+    public long getOldestTime() {
+        final long oldest = oldestReadable(m_count);
+        return oldest < 0 ? MISSING : readStamp(oldest);
+    }
+
+    /**
+     * @return The newest time we can answer for, or {@code Long.MIN_VALUE}
+     *         if the history is empty.
+     */
+    public long getNewestTime() {
+        final long count = m_count;
+        return count == 0 ? MISSING : readStamp(count - 1);
+    }
+
+    /**
+     * Get the kinematic state at {@code timeNanos}, interpolated between the
+     * two recorded states around it. Nothing is extrapolated: times outside
+     * the history give no answer.
+     *
+     * @param timeNanos The time of interest, in nanoseconds.
+     * @param out An array of at least {@link KinematicsBuffer#SIZE} values,
+     *            receiving the state laid out as a {@link KinematicsBuffer}
+     *            snapshot.
+     * @return {@code false} if {@code timeNanos} is not covered by the
+     *         history.
+     */
+    public boolean getKinematicsAt(long timeNanos, final double[] out) {
+        if (out.length < STRIDE)
+            throw new IllegalArgumentException("out must hold at least " + STRIDE + " values");
+
+        while (true) {
+            final long count = m_count;
+            final long oldest = oldestReadable(count);
+            if (oldest < 0)
+                return false;
+            final long oldestStamp = readStamp(oldest);
+            if (oldestStamp == MISSING)
+                continue;
+            if (timeNanos < oldestStamp || timeNanos > readStamp(count - 1))
+                return false;
+
+            final long a = search(timeNanos, oldest, count - 1);
+            final long aStamp = readStamp(a);
+            if (aStamp == MISSING || !readState(a, out, 0))
+                continue;
+            if (aStamp == timeNanos)
+                return true;
+
+            final long bStamp = readStamp(a + 1);
+            if (bStamp == MISSING)
+                continue;
+            final double fraction = (double) (timeNanos - aStamp) / (double) (bStamp - aStamp);
+            if (blendState(a + 1, fraction, out))
+                return true;
+        }
+    }
+
+    /**
+     * Get the kinematic state at {@code time}, interpolated between the two
+     * recorded states around it.
+     *
+     * @param time The time of interest.
+     * @return The {@link Kinematics} at that time, or {@code null} if it is
+     *         not covered by the history.
+     */
+    public Kinematics getKinematicsAt(final Time time) {
+        final double[] state = new double[STRIDE];
+        if (!getKinematicsAt(time.totalNsecs(), state))
+            return null;
+        return new DefaultKinematics(state);
+    }
+
+    /**
+     * Copy every recorded state stamped between {@code fromNanos} and
+     * {@code toNanos} (inclusive), oldest first, until either output is full.
+     *
+     * @param fromNanos Start of the range, in nanoseconds.
+     * @param toNanos End of the range, in nanoseconds.
+     * @param stamps Receives the stamp of each state.
+     * @param states Receives each state, {@link KinematicsBuffer#SIZE} values
+     *               apiece, laid out as a {@link KinematicsBuffer} snapshot.
+     * @return How many states were copied.
+     */
+    public int getRange(long fromNanos, long toNanos, final long[] stamps, final double[] states) {
+        final int max = Math.min(stamps.length, states.length / STRIDE);
+        final long count = m_count;
+        final long oldest = oldestReadable(count);
+        if (oldest < 0 || max == 0 || toNanos < fromNanos)
+            return 0;
+
+        // First record at or after fromNanos
+        long n = search(fromNanos - 1, oldest, count - 1) + 1;
+        int copied = 0;
+        for (; n < count && copied < max; n++) {
+            final long stamp = readStamp(n);
+            if (stamp == MISSING)
+                continue;
+            if (stamp > toNanos)
+                break;
+            if (stamp < fromNanos)
+                continue;
+            if (!readState(n, states, copied * STRIDE))
+                continue;
+            stamps[copied++] = stamp;
+        }
+        return copied;
+    }
+}
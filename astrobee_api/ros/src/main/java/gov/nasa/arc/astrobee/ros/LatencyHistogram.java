@@ -0,0 +1,175 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets that grow with the value, like an HDR
+ * histogram, so that it takes a fixed amount of memory however many
+ * samples are recorded and however large they are, while keeping every
+ * bucket within about 3% of the values it holds.
+ *
+ * Latencies are kept in microseconds, from 0 up to a little over an hour;
+ * anything longer is counted as the maximum. Recording is a few atomic
+ * adds, never locks and never allocates, so any number of threads may
+ * record at once. {@link #snapshot()} takes a copy to look at.
+ */
+public class LatencyHistogram {
+    // 32 buckets for each power of two
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    // Enough powers of two for values up to 2^32 microseconds
+    private static final int MAX_SHIFT = 31 - SUB_BITS;
+
+    static final int BUCKETS = (MAX_SHIFT + 2) * SUB_COUNT;
+
+    public static final long MAX_MICROS = (1L << 32) - 1;
+
+    private final AtomicLongArray m_counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong m_sum = new AtomicLong();
+    private final AtomicLong m_max = new AtomicLong();
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_COUNT)
+            return (int) micros;
+        final int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+        return shift * SUB_COUNT + (int) (micros >>> shift);
+    }
+
+    static long lowestIn(int bucket) {
+        if (bucket < 2 * SUB_COUNT)
+            return bucket;
+        final int shift = bucket / SUB_COUNT - 1;
+        return (long) (bucket - shift * SUB_COUNT) << shift;
+    }
+
+    static long highestIn(int bucket) {
+        if (bucket < 2 * SUB_COUNT)
+            return bucket;
+        final int shift = bucket / SUB_COUNT - 1;
+        return lowestIn(bucket) + (1L << shift) - 1;
+    }
+
+    /**
+     * @param nanos A latency in nanoseconds. Negative ones count as 0.
+     */
+    public void record(long nanos) {
+        long micros = nanos <= 0 ? 0 : nanos / 1000;
+        if (micros > MAX_MICROS)
+            micros = MAX_MICROS;
+        m_counts.incrementAndGet(bucketOf(micros));
+        m_sum.addAndGet(micros);
+        long max = m_max.get();
+        while (micros > max && !m_max.compareAndSet(max, micros))
+            max = m_max.get();
+    }
+
+    /**
+     * @return A copy of the counts so far. Samples recorded while it is
+     *         taken may or may not be in it.
+     */
+    public Snapshot snapshot() {
+        return take(false);
+    }
+
+    /**
+     * Take a copy and start counting from zero, without losing any samples
+     * recorded meanwhile: each lands either in the copy or in the next one.
+     */
+    public Snapshot snapshotAndReset() {
+        return take(true);
+    }
+
+    public void reset() {
+        take(true);
+    }
+
+    private Snapshot take(boolean reset) {
+        final long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = reset ? m_counts.getAndSet(i, 0) : m_counts.get(i);
+            count += counts[i];
+        }
+        // The totals may be a sample or two off the buckets, close enough
+        final long sum = reset ? m_sum.getAndSet(0) : m_sum.get();
+        final long max = reset ? m_max.getAndSet(0) : m_max.get();
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    /**
+     * The counts of a {@link LatencyHistogram} at one moment. Times are
+     * returned in the unit asked for, to the microsecond.
+     */
+    public static final class Snapshot {
+        private final long[] m_counts;
+        private final long m_count;
+        private final long m_sum;
+        private final long m_max;
+
+        Snapshot(final long[] counts, long count, long sum, long max) {
+            m_counts = counts;
+            m_count = count;
+            m_sum = sum;
+            m_max = max;
+        }
+
+        public long getCount() {
+            return m_count;
+        }
+
+        public double getMean(final TimeUnit unit) {
+            if (m_count == 0)
+                return 0;
+            return toUnit((double) m_sum / m_count, unit);
+        }
+
+        public double getMax(final TimeUnit unit) {
+            return toUnit(m_max, unit);
+        }
+
+        /**
+         * @param percentile From 0 to 100.
+         * @return The latency that {@code percentile} percent of samples
+         *         were at or under, as the top of its bucket, or 0 if there
+         *         are no samples.
+         */
+        public double getPercentile(double percentile, final TimeUnit unit) {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            if (m_count == 0)
+                return 0;
+            final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * m_count));
+            long seen = 0;
+            for (int i = 0; i < m_counts.length; i++) {
+                seen += m_counts[i];
+                if (seen >= rank)
+                    return toUnit(Math.min(highestIn(i), m_max), unit);
+            }
+            return toUnit(m_max, unit);
+        }
+
+        private static double toUnit(double micros, final TimeUnit unit) {
+            return micros * unit.convert(1, TimeUnit.DAYS) / TimeUnit.DAYS.toMicros(1);
+        }
+    }
+}
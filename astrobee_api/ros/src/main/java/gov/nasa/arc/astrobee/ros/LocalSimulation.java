@@ -0,0 +1,122 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.PendingResult;
+import gov.nasa.arc.astrobee.Robot;
+import org.ros.RosCore;
+import org.ros.node.DefaultNodeMainExecutor;
+import org.ros.node.NodeConfiguration;
+import org.ros.node.NodeMain;
+import org.ros.node.NodeMainExecutor;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link Robot} wired to a {@link SimulatedExecutive}, or any other node
+ * standing in for the executive, through an in-process ROS master on
+ * localhost. This uses the real rosjava transport, with no network, no
+ * simulator and no robot, so integration and load tests can run anywhere.
+ *
+ * The robot is ready to take commands once the constructor returns.
+ */
+public final class LocalSimulation {
+    private static final String HOST = "127.0.0.1";
+
+    private final RosCore m_rosCore;
+    private final NodeMainExecutor m_executor;
+    private final DefaultRobotFactory m_factory;
+    private final Robot m_robot;
+
+    public LocalSimulation() throws AstrobeeException, InterruptedException {
+        this(new SimulatedExecutive());
+    }
+
+    public LocalSimulation(final NodeMain executive)
+            throws AstrobeeException, InterruptedException {
+        // An empty environment, so ROS_* variables cannot point us elsewhere
+        this(executive, new RobotConfiguration(new HashMap<String, String>()));
+    }
+
+    /**
+     * @param executive The node standing in for the executive.
+     * @param config How to set up the robot. Its master and host are
+     *               replaced with the in-process master.
+     */
+    public LocalSimulation(final NodeMain executive, final RobotConfiguration config)
+            throws AstrobeeException, InterruptedException {
+        m_rosCore = RosCore.newPublic(HOST, 0);
+        m_rosCore.start();
+        if (!m_rosCore.awaitStart(10, TimeUnit.SECONDS)) {
+            m_rosCore.shutdown();
+            throw new AstrobeeException("ROS master did not start");
+        }
+        final URI masterUri = m_rosCore.getUri();
+
+        m_executor = DefaultNodeMainExecutor.newDefault();
+        m_executor.execute(executive, NodeConfiguration.newPublic(HOST, masterUri));
+
+        m_factory = new DefaultRobotFactory(config.setMasterUri(masterUri).setHostname(HOST));
+        try {
+            m_robot = m_factory.getRobot();
+            awaitConnected();
+        } catch (AstrobeeException | InterruptedException | RuntimeException e) {
+            shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * Until both topics are connected, commands or acks may go missing.
+     */
+    private void awaitConnected() throws AstrobeeException, InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            final PendingResult pending = m_robot.noOp();
+            try {
+                if (pending.getResult(200, TimeUnit.MILLISECONDS) != null)
+                    return;
+            } catch (TimeoutException e) {
+                // Try again
+            }
+            pending.cancel();
+        }
+        throw new AstrobeeException("Executive never acked");
+    }
+
+    public Robot getRobot() {
+        return m_robot;
+    }
+
+    public DefaultRobotFactory getRobotFactory() {
+        return m_factory;
+    }
+
+    public URI getMasterUri() {
+        return m_rosCore.getUri();
+    }
+
+    public void shutdown() {
+        m_factory.shutdown();
+        m_executor.shutdown();
+        m_rosCore.shutdown();
+    }
+}
@@ -0,0 +1,121 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+/**
+ * How the thread pools behind {@link NodeExecutorHolder} are set up. Pass
+ * one to {@link NodeExecutorHolder#configure(NodeExecutorConfiguration)}
+ * before any node is started.
+ *
+ * The ROS pool runs rosjava's own loops, one thread per connection and
+ * subscriber, so it always grows as needed and only its priority can be
+ * set. The scheduled pool runs timers and is sized. The listener pool is
+ * for callbacks given to the API, e.g. through
+ * {@link gov.nasa.arc.astrobee.Robot#addKinematicsListener}, so that slow
+ * listeners do not hold up ack handling on the ROS threads.
+ */
+public class NodeExecutorConfiguration {
+    // Same as rosjava's own default
+    public static final int DEFAULT_SCHEDULED_POOL_SIZE = 11;
+
+    public static final int DEFAULT_LISTENER_POOL_SIZE = 2;
+
+    private int m_scheduledPoolSize = DEFAULT_SCHEDULED_POOL_SIZE;
+    private int m_rosThreadPriority = Thread.NORM_PRIORITY;
+
+    private int m_listenerPoolSize = DEFAULT_LISTENER_POOL_SIZE;
+    private int m_listenerThreadPriority = Thread.NORM_PRIORITY;
+    private boolean m_virtualListenerThreads = false;
+
+    private static int checkPriority(int priority) {
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY)
+            throw new IllegalArgumentException("priority must be between "
+                    + Thread.MIN_PRIORITY + " and " + Thread.MAX_PRIORITY);
+        return priority;
+    }
+
+    public int getScheduledPoolSize() {
+        return m_scheduledPoolSize;
+    }
+
+    /**
+     * Set how many threads run scheduled work, such as timers.
+     */
+    public NodeExecutorConfiguration setScheduledPoolSize(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size must be positive");
+        m_scheduledPoolSize = size;
+        return this;
+    }
+
+    public int getRosThreadPriority() {
+        return m_rosThreadPriority;
+    }
+
+    /**
+     * Set the priority of the threads that receive and send messages,
+     * including acks, and run scheduled work.
+     */
+    public NodeExecutorConfiguration setRosThreadPriority(int priority) {
+        m_rosThreadPriority = checkPriority(priority);
+        return this;
+    }
+
+    public int getListenerPoolSize() {
+        return m_listenerPoolSize;
+    }
+
+    /**
+     * Set how many threads run listener callbacks.
+     */
+    public NodeExecutorConfiguration setListenerPoolSize(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size must be positive");
+        m_listenerPoolSize = size;
+        return this;
+    }
+
+    public int getListenerThreadPriority() {
+        return m_listenerThreadPriority;
+    }
+
+    /**
+     * Set the priority of the threads that run listener callbacks. Lower
+     * than the ROS threads keeps listeners from starving ack handling on a
+     * busy CPU.
+     */
+    public NodeExecutorConfiguration setListenerThreadPriority(int priority) {
+        m_listenerThreadPriority = checkPriority(priority);
+        return this;
+    }
+
+    public boolean getVirtualListenerThreads() {
+        return m_virtualListenerThreads;
+    }
+
+    /**
+     * Set whether to run each listener callback on its own virtual thread
+     * instead of the listener pool. Only Java 21 and later have virtual
+     * threads; elsewhere, Android included, the pool is used anyway. The
+     * pool size and priority do not apply to virtual threads.
+     */
+    public NodeExecutorConfiguration setVirtualListenerThreads(boolean virtual) {
+        m_virtualListenerThreads = virtual;
+        return this;
+    }
+}
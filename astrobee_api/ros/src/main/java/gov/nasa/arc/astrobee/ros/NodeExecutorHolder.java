@@ -18,73 +18,198 @@
 
 package gov.nasa.arc.astrobee.ros;
 
+import gov.nasa.arc.astrobee.ros.internal.InstrumentedExecutorService;
+import gov.nasa.arc.astrobee.ros.internal.InstrumentedScheduledExecutor;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.ros.concurrent.DefaultScheduledExecutorService;
 import org.ros.node.DefaultNodeMainExecutor;
 import org.ros.node.NodeMainExecutor;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Holds the thread pools shared by every node in the process: the ROS pool
+ * running rosjava's loops, the scheduled pool running its timers, the
+ * listener pool for API callbacks and a single local thread for
+ * housekeeping. They are set up from a {@link NodeExecutorConfiguration}
+ * and each keeps {@link ExecutorGauges}.
+ */
 public final class NodeExecutorHolder {
     private static final Log logger = LogFactory.getLog(NodeExecutorHolder.class);
 
     static final class NamedThreadFactory implements ThreadFactory {
         private final ThreadGroup m_group;
         private final String m_name;
-        private boolean m_daemon;
+        private final boolean m_daemon;
+        private final int m_priority;
+        private final AtomicInteger m_count = new AtomicInteger();
 
         NamedThreadFactory(final String name, boolean daemon) {
+            this(name, daemon, Thread.NORM_PRIORITY);
+        }
+
+        NamedThreadFactory(final String name, boolean daemon, int priority) {
             SecurityManager s = System.getSecurityManager();
             m_group = (s != null) ? s.getThreadGroup() :
                     Thread.currentThread().getThreadGroup();
             m_name = name;
             m_daemon = daemon;
+            m_priority = priority;
         }
 
         @Override
         public Thread newThread(final Runnable r) {
-            final Thread t = new Thread(m_group, r, m_name, 0);
+            final int n = m_count.incrementAndGet();
+            final Thread t = new Thread(m_group, r, n == 1 ? m_name : m_name + " " + n, 0);
             t.setDaemon(m_daemon);
-            if (t.getPriority() != Thread.NORM_PRIORITY)
-                t.setPriority(Thread.NORM_PRIORITY);
+            if (t.getPriority() != m_priority)
+                t.setPriority(m_priority);
             return t;
         }
     };
 
+    // All guarded by the class
+    private static NodeExecutorConfiguration s_config = new NodeExecutorConfiguration();
     private static NodeMainExecutor s_executor = null;
-    private static ExecutorService s_local = null;
+    private static InstrumentedExecutorService s_ros = null;
+    private static InstrumentedScheduledExecutor s_scheduled = null;
+    private static InstrumentedExecutorService s_listener = null;
+    private static InstrumentedExecutorService s_local = null;
 
-    public static NodeMainExecutor getExecutor() {
-        if (s_local == null) {
-            s_local = Executors.newSingleThreadExecutor(new NamedThreadFactory("NodeMain Local", true));
-        }
+    private NodeExecutorHolder() { }
+
+    /**
+     * Set up the pools. Only takes effect for pools that have not been
+     * created yet, so call it before starting any node, or after
+     * {@link #shutdownExecutor(long, TimeUnit)}.
+     */
+    public static synchronized void configure(final NodeExecutorConfiguration config) {
+        if (config == null)
+            throw new NullPointerException("config may not be null");
+        if (s_executor != null || s_listener != null)
+            logger.warn("Executors already running, configuration applies after they are shut down");
+        s_config = config;
+    }
+
+    public static synchronized NodeMainExecutor getExecutor() {
+        getLocalExecutor();
 
-        if (s_executor == null)
-            s_executor = DefaultNodeMainExecutor.newDefault();
+        if (s_executor == null) {
+            final int priority = s_config.getRosThreadPriority();
+            // rosjava parks a thread per connection and subscriber here, so
+            // it has to be allowed to grow.
+            s_ros = new InstrumentedExecutorService(new ThreadPoolExecutor(
+                    0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(),
+                    new NamedThreadFactory("ROS", false, priority)));
+            s_scheduled = new InstrumentedScheduledExecutor(s_config.getScheduledPoolSize(),
+                    new NamedThreadFactory("ROS Scheduled", false, priority));
+            s_executor = DefaultNodeMainExecutor.newDefault(
+                    new DefaultScheduledExecutorService(s_ros, s_scheduled));
+        }
         return s_executor;
     }
 
     // TODO(Katie/Ted) Remove public when we merge Robbie's branch into master
-    public static ExecutorService getLocalExecutor() {
+    public static synchronized ExecutorService getLocalExecutor() {
+        if (s_local == null) {
+            s_local = new InstrumentedExecutorService(
+                    Executors.newSingleThreadExecutor(new NamedThreadFactory("NodeMain Local", true)));
+        }
         return s_local;
     }
 
+    /**
+     * Get the pool for listener callbacks, to hand to the API wherever it
+     * takes an {@link java.util.concurrent.Executor}.
+     */
+    public static synchronized ExecutorService getListenerExecutor() {
+        if (s_listener == null)
+            s_listener = new InstrumentedExecutorService(newListenerPool(s_config));
+        return s_listener;
+    }
+
+    private static ExecutorService newListenerPool(final NodeExecutorConfiguration config) {
+        if (config.getVirtualListenerThreads()) {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (Exception e) {
+                logger.warn("Virtual threads are not available, using a thread pool");
+            }
+        }
+
+        final int size = config.getListenerPoolSize();
+        return new ThreadPoolExecutor(size, size, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamedThreadFactory("Listener", true, config.getListenerThreadPriority()));
+    }
+
+    /**
+     * @return The gauges of the ROS pool, or {@code null} before the
+     *         executor is created.
+     */
+    public static synchronized ExecutorGauges getRosGauges() {
+        return s_ros == null ? null : s_ros.getGauges();
+    }
+
+    /**
+     * @return The gauges of the scheduled pool, or {@code null} before the
+     *         executor is created.
+     */
+    public static synchronized ExecutorGauges getScheduledGauges() {
+        return s_scheduled == null ? null : s_scheduled.getGauges();
+    }
+
+    /**
+     * @return The gauges of the listener pool, or {@code null} before it is
+     *         first asked for.
+     */
+    public static synchronized ExecutorGauges getListenerGauges() {
+        return s_listener == null ? null : s_listener.getGauges();
+    }
+
+    public static synchronized ExecutorGauges getLocalGauges() {
+        getLocalExecutor();
+        return s_local.getGauges();
+    }
+
     // TODO(Katie/Ted) Remove public when we merge Robbie's branch into master
     public static void shutdownExecutor(long time, TimeUnit units) {
-        if (s_executor == null)
+        final NodeMainExecutor executor;
+        final ExecutorService listener;
+        synchronized (NodeExecutorHolder.class) {
+            executor = s_executor;
+            listener = s_listener;
+            s_executor = null;
+            s_ros = null;
+            s_scheduled = null;
+            s_listener = null;
+        }
+
+        // Let listeners finish what they were given, but take no more
+        if (listener != null)
+            listener.shutdown();
+
+        if (executor == null)
             return;
         logger.info("Attempting to shutdown ROS executor service.");
-        s_executor.getScheduledExecutorService().shutdown();
+        executor.getScheduledExecutorService().shutdown();
         try {
             logger.info("Waiting " + time + " " + units + " for termination");
-            if (!s_executor.getScheduledExecutorService().awaitTermination(time, units)) {
+            if (!executor.getScheduledExecutorService().awaitTermination(time, units)) {
                 logger.warn("ROS did not shut down in a timely manner, forcing shut down.");
-                s_executor.getScheduledExecutorService().shutdownNow();
+                executor.getScheduledExecutorService().shutdownNow();
             }
         } catch (InterruptedException e) { }
-        s_executor = null;
     }
 }
@@ -0,0 +1,39 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+/**
+ * What to do when a bounded queue is full and another item arrives.
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait until there is room in the queue.
+     */
+    BLOCK,
+
+    /**
+     * Make room by dropping the oldest item in the queue. The dropped item
+     * is failed, so whoever is waiting on it finds out.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Refuse the new item right away by throwing an exception.
+     */
+    FAIL_FAST
+}
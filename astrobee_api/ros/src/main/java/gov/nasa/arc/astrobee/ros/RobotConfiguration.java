@@ -18,6 +18,8 @@
 
 package gov.nasa.arc.astrobee.ros;
 
+import gov.nasa.arc.astrobee.ros.internal.RobotNodeMain;
+import gov.nasa.arc.astrobee.types.TelemetryType;
 import org.ros.address.BindAddress;
 import org.ros.address.InetAddressFactory;
 import org.ros.exception.RosRuntimeException;
@@ -29,9 +31,11 @@ import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class RobotConfiguration {
     private URI m_masterUri = null;
@@ -42,6 +46,24 @@ public class RobotConfiguration {
     private int m_tcpPort = 0;
     private int m_rpcPort = 0;
 
+    private int m_commandQueueCapacity = RobotNodeMain.DEFAULT_QUEUE_CAPACITY;
+    private OverflowPolicy m_commandQueuePolicy = OverflowPolicy.BLOCK;
+
+    private int m_kinematicsHistoryCapacity = RobotNodeMain.DEFAULT_HISTORY_CAPACITY;
+
+    private int m_commandPoolSize = RobotNodeMain.DEFAULT_COMMAND_POOL_SIZE;
+
+    private int m_commandTraceCapacity = RobotNodeMain.DEFAULT_TRACE_CAPACITY;
+
+    private long m_latencyMetricsPeriodNanos = 0;
+
+    private boolean m_manageTelemetryRates = false;
+    private final Map<TelemetryType, Float> m_defaultTelemetryRates =
+            new EnumMap<>(TelemetryType.class);
+
+    private long m_commandTimeoutNanos =
+            TimeUnit.SECONDS.toNanos(RobotNodeMain.DEFAULT_COMMAND_TIMEOUT_SECONDS);
+
     private final Map<String, String> m_environment;
     private final Map<GraphName, GraphName> m_remappings;
 
@@ -72,6 +94,28 @@ public class RobotConfiguration {
         return config;
     }
 
+    /**
+     * Build the configuration of a node talking to another robot, whose
+     * topics live under a namespace named after it.
+     *
+     * Several of these run side by side, so they always bind to ephemeral
+     * ports, whatever {@link #setTcpPort(int)} and {@link #setRpcPort(int)}
+     * say.
+     *
+     * @param robotName The name of the robot, and so of its namespace.
+     */
+    public NodeConfiguration build(final String robotName) {
+        final NodeConfiguration config = NodeConfiguration.newPublic(getHost());
+        config.setMasterUri(getMasterUri());
+        config.setParentResolver(buildParentResolver(robotName));
+        config.setRosRoot(null);
+        config.setRosPackagePath(getRosPackagePath());
+        if (m_nodeName != null) {
+            config.setNodeName(m_nodeName);
+        }
+        return config;
+    }
+
     private String getHost() {
         if (m_host != null)
             return m_host;
@@ -104,10 +148,17 @@ public class RobotConfiguration {
     }
 
     private NameResolver buildParentResolver() {
+        return buildParentResolver(null);
+    }
+
+    private NameResolver buildParentResolver(final String robotName) {
         GraphName namespace = GraphName.root();
         if (m_environment.containsKey(org.ros.EnvironmentVariables.ROS_NAMESPACE)) {
             namespace = GraphName.of(m_environment.get(org.ros.EnvironmentVariables.ROS_NAMESPACE)).toGlobal();
         }
+        if (robotName != null) {
+            namespace = namespace.join(GraphName.of(robotName));
+        }
         return new NameResolver(namespace, m_remappings);
     }
 
@@ -166,4 +217,148 @@ public class RobotConfiguration {
         m_nodeName = name;
         return this;
     }
+
+    public int getCommandQueueCapacity() {
+        return m_commandQueueCapacity;
+    }
+
+    /**
+     * Set how many commands may be held while the executive is not
+     * listening, e.g. before it first connects or while the LLP restarts.
+     */
+    public RobotConfiguration setCommandQueueCapacity(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        m_commandQueueCapacity = capacity;
+        return this;
+    }
+
+    public OverflowPolicy getCommandQueueOverflowPolicy() {
+        return m_commandQueuePolicy;
+    }
+
+    /**
+     * Set what happens to commands once the command queue is full.
+     */
+    public RobotConfiguration setCommandQueueOverflowPolicy(final OverflowPolicy policy) {
+        if (policy == null)
+            throw new NullPointerException("policy may not be null");
+        m_commandQueuePolicy = policy;
+        return this;
+    }
+
+    public int getKinematicsHistoryCapacity() {
+        return m_kinematicsHistoryCapacity;
+    }
+
+    /**
+     * Set how many EKF states to keep in the {@link KinematicsHistory}, or 0
+     * to not keep any.
+     */
+    public RobotConfiguration setKinematicsHistoryCapacity(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity may not be negative");
+        m_kinematicsHistoryCapacity = capacity;
+        return this;
+    }
+
+    public int getCommandPoolSize() {
+        return m_commandPoolSize;
+    }
+
+    /**
+     * Set how many finished commands of each kind to keep for reuse, or 0
+     * to always build new ones.
+     */
+    public RobotConfiguration setCommandPoolSize(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("size may not be negative");
+        m_commandPoolSize = size;
+        return this;
+    }
+
+    public long getCommandTimeoutNanos() {
+        return m_commandTimeoutNanos;
+    }
+
+    /**
+     * Set how long a command may go without completing before it is failed
+     * with a {@link gov.nasa.arc.astrobee.CommandTimeoutException}, or 0 to
+     * wait forever. Individual commands can override this with
+     * {@link gov.nasa.arc.astrobee.PendingResult#setTimeout(long, TimeUnit)}.
+     */
+    public RobotConfiguration setCommandTimeout(long timeout, final TimeUnit unit) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout may not be negative");
+        m_commandTimeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    public int getCommandTraceCapacity() {
+        return m_commandTraceCapacity;
+    }
+
+    /**
+     * Set how many command events to keep for
+     * {@link DefaultRobotFactory#dumpCommandTrace(java.io.File)}, or 0 to not
+     * record any.
+     */
+    public RobotConfiguration setCommandTraceCapacity(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity may not be negative");
+        m_commandTraceCapacity = capacity;
+        return this;
+    }
+
+    public long getLatencyMetricsPeriodNanos() {
+        return m_latencyMetricsPeriodNanos;
+    }
+
+    /**
+     * Set how often to publish the {@link CommandLatencies} on the
+     * {@code api/command_latency} topic, as text, or 0 to not publish them.
+     * They are published as they stand; call
+     * {@link CommandLatencies#reset()} to start a new window.
+     */
+    public RobotConfiguration setLatencyMetricsPeriod(long period, final TimeUnit unit) {
+        if (period < 0)
+            throw new IllegalArgumentException("period may not be negative");
+        m_latencyMetricsPeriodNanos = unit.toNanos(period);
+        return this;
+    }
+
+    public boolean isManagingTelemetryRates() {
+        return m_manageTelemetryRates;
+    }
+
+    /**
+     * Set whether to keep the robot's telemetry rates in line with what is
+     * consumed, with a {@link gov.nasa.arc.astrobee.TelemetryRateManager}.
+     * Kinematics listeners with a maximum rate then demand the EKF at that
+     * rate, and callers waiting on the kinematics demand it while they wait.
+     *
+     * @see DefaultRobotFactory#getTelemetryRates()
+     */
+    public RobotConfiguration setManageTelemetryRates(boolean manage) {
+        m_manageTelemetryRates = manage;
+        return this;
+    }
+
+    public Map<TelemetryType, Float> getDefaultTelemetryRates() {
+        return new EnumMap<>(m_defaultTelemetryRates);
+    }
+
+    /**
+     * Set the rate the robot sends a type of telemetry at by default, in Hz,
+     * when it is not {@link gov.nasa.arc.astrobee.TelemetryRateManager#DEFAULT_ROBOT_RATE}.
+     * Managed rates start from there and are not lowered below it.
+     */
+    public RobotConfiguration setDefaultTelemetryRate(final TelemetryType type, float rateHz) {
+        if (type == null)
+            throw new NullPointerException("type may not be null");
+        if (!(rateHz >= 0) || Float.isInfinite(rateHz))
+            throw new IllegalArgumentException("rate may not be negative");
+        m_defaultTelemetryRates.put(type, rateHz);
+        return this;
+    }
 }
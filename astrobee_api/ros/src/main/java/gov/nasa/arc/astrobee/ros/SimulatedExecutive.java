@@ -0,0 +1,353 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import ff_msgs.AckCompletedStatus;
+import ff_msgs.AckStamped;
+import ff_msgs.AckStatus;
+import ff_msgs.CommandArg;
+import ff_msgs.CommandStamped;
+import ff_msgs.EkfState;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.message.MessageListener;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.Subscriber;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in for the executive and the EKF, so code using the API can be
+ * run and load tested without a robot or the simulator. See
+ * {@link LocalSimulation} to run it against an in-process ROS master.
+ *
+ * Every command is acked like the executive would, after a configurable
+ * delay, and some share of them can be made to fail. Moves are planned one
+ * at a time as they come in, so the next one is ready while the current one
+ * flies, and flown one after the other in a straight line at constant
+ * speed, and the pose is published on {@code gnc/ekf} as it goes. {@code stopAllMotion}
+ * cancels every move. Other commands complete straight away and have no
+ * effect, except {@code resetEkf} and {@code reacquirePosition}, which make
+ * the EKF lose its position for a while.
+ *
+ * Everything happens on a single thread of its own, much as the executive
+ * handles one command at a time.
+ */
+public final class SimulatedExecutive extends AbstractNodeMain {
+    private static final Log logger = LogFactory.getLog(SimulatedExecutive.class);
+
+    private final SimulatedExecutiveConfiguration m_config;
+    private final Random m_random;
+
+    private volatile ScheduledExecutorService m_sim = null;
+
+    // Everything below is only touched on the simulation thread
+    private ConnectedNode m_node = null;
+    private Publisher<AckStamped> m_ackPublisher = null;
+    private Publisher<EkfState> m_ekfPublisher = null;
+
+    private final double[] m_position = new double[3];
+    private final double[] m_orientation = new double[4];
+    private final double[] m_velocity = new double[3];
+    private long m_localizedAt = 0;
+    private long m_lastTick = 0;
+
+    private final ArrayDeque<Move> m_moves = new ArrayDeque<>();
+    private Move m_active = null;
+    // When the planner is done with the moves it was given
+    private long m_plannerFreeAt = 0;
+
+    private static final class Move {
+        final String cmdId;
+        final long ackDelay;
+        final double[] position;
+        final double[] orientation;
+
+        // Set once the move is sent
+        long plannedAt;
+
+        // Set once the move is taken off the queue
+        double[] fromOrientation;
+        double distance;
+
+        Move(final String cmdId, long ackDelay, final double[] position, final double[] orientation) {
+            this.cmdId = cmdId;
+            this.ackDelay = ackDelay;
+            this.position = position;
+            this.orientation = orientation;
+        }
+    }
+
+    public SimulatedExecutive() {
+        this(new SimulatedExecutiveConfiguration());
+    }
+
+    public SimulatedExecutive(final SimulatedExecutiveConfiguration config) {
+        m_config = config;
+        m_random = new Random(config.getSeed());
+        m_config.getStartPosition().toArray(m_position, 0);
+        m_config.getStartOrientation().toArray(m_orientation, 0);
+    }
+
+    @Override
+    public GraphName getDefaultNodeName() {
+        return GraphName.of("simulated_executive");
+    }
+
+    @Override
+    public void onStart(final ConnectedNode connectedNode) {
+        m_node = connectedNode;
+        m_ackPublisher = connectedNode.newPublisher("mgt/ack", AckStamped._TYPE);
+        m_ekfPublisher = connectedNode.newPublisher("gnc/ekf", EkfState._TYPE);
+        m_lastTick = System.nanoTime();
+        m_localizedAt = m_lastTick + m_config.getLocalizationNanos();
+
+        // Handing the state over to the thread publishes it
+        m_sim = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "simulated-executive");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        final Subscriber<CommandStamped> cmdSubscriber =
+                connectedNode.newSubscriber("command", CommandStamped._TYPE);
+        cmdSubscriber.addMessageListener(new MessageListener<CommandStamped>() {
+            @Override
+            public void onNewMessage(final CommandStamped cmd) {
+                m_sim.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onCommand(cmd);
+                    }
+                });
+            }
+        });
+
+        final long period = (long) (TimeUnit.SECONDS.toNanos(1) / m_config.getEkfRateHz());
+        m_sim.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                // An exception would cancel every later tick
+                try {
+                    tick();
+                } catch (RuntimeException e) {
+                    logger.error("Simulation step failed", e);
+                }
+            }
+        }, 0, period, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onShutdown(final Node node) {
+        if (m_sim != null)
+            m_sim.shutdownNow();
+    }
+
+    private void onCommand(final CommandStamped cmd) {
+        final String cmdId = cmd.getCmdId();
+        final String name = cmd.getCmdName();
+        final long delay = m_config.getAckDelayNanos() + (m_config.getAckJitterNanos() > 0
+                ? (long) (m_random.nextDouble() * m_config.getAckJitterNanos())
+                : 0);
+
+        if (m_random.nextDouble() < m_config.getFailureRate()) {
+            ack(cmdId, delay, AckStatus.COMPLETED, AckCompletedStatus.EXEC_FAILED,
+                    "Simulated failure of " + name);
+            return;
+        }
+
+        switch (name) {
+            case "simpleMove6DOF":
+                final Move move = parseMove(cmd, delay);
+                if (move == null) {
+                    ack(cmdId, delay, AckStatus.COMPLETED, AckCompletedStatus.BAD_SYNTAX,
+                            "Expected a frame, position, tolerance and orientation");
+                    return;
+                }
+                final long now = System.nanoTime();
+                move.plannedAt = Math.max(now, m_plannerFreeAt) + m_config.getPlanningNanos();
+                m_plannerFreeAt = move.plannedAt;
+                if (m_active != null || !m_moves.isEmpty())
+                    ack(cmdId, delay, AckStatus.QUEUED, AckCompletedStatus.NOT, "");
+                m_moves.add(move);
+                // Start it now rather than on the next tick
+                if (m_active == null)
+                    step(now);
+                return;
+            case "stopAllMotion":
+                if (m_active != null)
+                    cancel(m_active);
+                m_active = null;
+                for (Move m : m_moves)
+                    cancel(m);
+                m_moves.clear();
+                m_plannerFreeAt = 0;
+                break;
+            case "resetEkf":
+            case "reacquirePosition":
+                m_localizedAt = System.nanoTime() + m_config.getLocalizationNanos();
+                break;
+            default:
+                break;
+        }
+        ack(cmdId, delay, AckStatus.COMPLETED, AckCompletedStatus.OK, "");
+    }
+
+    private static Move parseMove(final CommandStamped cmd, long delay) {
+        final List<CommandArg> args = cmd.getArgs();
+        if (args.size() != 4)
+            return null;
+        final double[] xyz = args.get(1).getVec3d();
+        final float[] rot = args.get(3).getMat33f();
+        if (xyz == null || xyz.length < 3 || rot == null || rot.length < 4)
+            return null;
+        return new Move(cmd.getCmdId(), delay,
+                new double[]{ xyz[0], xyz[1], xyz[2] },
+                new double[]{ rot[0], rot[1], rot[2], rot[3] });
+    }
+
+    private void cancel(final Move move) {
+        ack(move.cmdId, move.ackDelay, AckStatus.COMPLETED, AckCompletedStatus.CANCELED,
+                "Motion was stopped");
+    }
+
+    private void tick() {
+        final long now = System.nanoTime();
+        step(now);
+        publishEkf(now);
+    }
+
+    private void step(long now) {
+        final long last = m_lastTick;
+        m_lastTick = now;
+
+        if (m_active == null && !m_moves.isEmpty()) {
+            m_active = m_moves.poll();
+            m_active.fromOrientation = m_orientation.clone();
+            m_active.distance = distance(m_position, m_active.position);
+            ack(m_active.cmdId, m_active.ackDelay, AckStatus.EXECUTING, AckCompletedStatus.NOT, "");
+        }
+
+        Arrays.fill(m_velocity, 0);
+        // Only fly for the part of the step after planning
+        if (m_active != null && now >= m_active.plannedAt)
+            fly(m_active, (now - Math.max(last, m_active.plannedAt)) / 1e9);
+    }
+
+    private void fly(final Move move, double dt) {
+        final double remaining = distance(m_position, move.position);
+        final double step = m_config.getLinearSpeed() * dt;
+        if (remaining <= step) {
+            System.arraycopy(move.position, 0, m_position, 0, 3);
+            System.arraycopy(move.orientation, 0, m_orientation, 0, 4);
+            ack(move.cmdId, move.ackDelay, AckStatus.COMPLETED, AckCompletedStatus.OK, "");
+            m_active = null;
+            return;
+        }
+
+        for (int i = 0; i < 3; i++) {
+            final double direction = (move.position[i] - m_position[i]) / remaining;
+            m_velocity[i] = direction * m_config.getLinearSpeed();
+            m_position[i] += direction * step;
+        }
+        nlerp(move.fromOrientation, move.orientation,
+                1 - (remaining - step) / move.distance, m_orientation);
+    }
+
+    private static double distance(final double[] a, final double[] b) {
+        final double dx = b[0] - a[0];
+        final double dy = b[1] - a[1];
+        final double dz = b[2] - a[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Close enough to a slerp for the small turns of a single move.
+     */
+    private static void nlerp(final double[] from, final double[] to, double t, final double[] out) {
+        double dot = 0;
+        for (int i = 0; i < 4; i++)
+            dot += from[i] * to[i];
+        // Take the short way round
+        final double sign = dot < 0 ? -1 : 1;
+        double norm = 0;
+        for (int i = 0; i < 4; i++) {
+            out[i] = (1 - t) * from[i] + t * sign * to[i];
+            norm += out[i] * out[i];
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0)
+            return;
+        for (int i = 0; i < 4; i++)
+            out[i] /= norm;
+    }
+
+    private void publishEkf(long now) {
+        final EkfState ekf = m_ekfPublisher.newMessage();
+        ekf.getHeader().setStamp(m_node.getCurrentTime());
+        ekf.getHeader().setFrameId("world");
+        ekf.getPose().getPosition().setX(m_position[0]);
+        ekf.getPose().getPosition().setY(m_position[1]);
+        ekf.getPose().getPosition().setZ(m_position[2]);
+        ekf.getPose().getOrientation().setX(m_orientation[0]);
+        ekf.getPose().getOrientation().setY(m_orientation[1]);
+        ekf.getPose().getOrientation().setZ(m_orientation[2]);
+        ekf.getPose().getOrientation().setW(m_orientation[3]);
+        ekf.getVelocity().setX(m_velocity[0]);
+        ekf.getVelocity().setY(m_velocity[1]);
+        ekf.getVelocity().setZ(m_velocity[2]);
+        ekf.setConfidence(now >= m_localizedAt
+                ? EkfState.CONFIDENCE_GOOD
+                : EkfState.CONFIDENCE_LOST);
+        m_ekfPublisher.publish(ekf);
+    }
+
+    private void ack(final String cmdId,
+                     long delay,
+                     final byte status,
+                     final byte completedStatus,
+                     final String message) {
+        // Same delay for every ack of a command, so they stay in order
+        m_sim.schedule(new Runnable() {
+            @Override
+            public void run() {
+                final AckStamped ack = m_ackPublisher.newMessage();
+                ack.getHeader().setStamp(m_node.getCurrentTime());
+                ack.setCmdId(cmdId);
+                ack.getStatus().setStatus(status);
+                ack.getCompletedStatus().setStatus(completedStatus);
+                ack.setMessage(message);
+                m_ackPublisher.publish(ack);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,175 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How a {@link SimulatedExecutive} behaves: how quickly it acks, how it
+ * flies, how often it fails, and how often it publishes EKF states.
+ *
+ * The defaults are in the range of the real robot, so code tested against
+ * them sees roughly the timing it will see on orbit.
+ */
+public class SimulatedExecutiveConfiguration {
+    public static final long DEFAULT_ACK_DELAY_MILLIS = 5;
+    public static final long DEFAULT_PLANNING_MILLIS = 100;
+    public static final double DEFAULT_LINEAR_SPEED = 0.2;
+    public static final double DEFAULT_EKF_RATE_HZ = 62.5;
+    public static final long DEFAULT_LOCALIZATION_MILLIS = 2000;
+
+    private long m_ackDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_ACK_DELAY_MILLIS);
+    private long m_ackJitterNanos = 0;
+    private long m_planningNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_PLANNING_MILLIS);
+    private double m_linearSpeed = DEFAULT_LINEAR_SPEED;
+    private double m_failureRate = 0;
+    private double m_ekfRateHz = DEFAULT_EKF_RATE_HZ;
+    private long m_localizationNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LOCALIZATION_MILLIS);
+    private Point m_startPosition = new Point();
+    private Quaternion m_startOrientation = new Quaternion();
+    private long m_seed = System.nanoTime();
+
+    public long getAckDelayNanos() {
+        return m_ackDelayNanos;
+    }
+
+    public long getAckJitterNanos() {
+        return m_ackJitterNanos;
+    }
+
+    /**
+     * Set how long every ack takes to come back, plus up to {@code jitter}
+     * more, picked at random once per command.
+     */
+    public SimulatedExecutiveConfiguration setAckDelay(long delay, long jitter, final TimeUnit unit) {
+        if (delay < 0 || jitter < 0)
+            throw new IllegalArgumentException("delay and jitter may not be negative");
+        m_ackDelayNanos = unit.toNanos(delay);
+        m_ackJitterNanos = unit.toNanos(jitter);
+        return this;
+    }
+
+    public long getPlanningNanos() {
+        return m_planningNanos;
+    }
+
+    /**
+     * Set how long each move is planned for before the robot starts to fly.
+     */
+    public SimulatedExecutiveConfiguration setPlanningTime(long time, final TimeUnit unit) {
+        if (time < 0)
+            throw new IllegalArgumentException("time may not be negative");
+        m_planningNanos = unit.toNanos(time);
+        return this;
+    }
+
+    public double getLinearSpeed() {
+        return m_linearSpeed;
+    }
+
+    /**
+     * Set how fast the robot flies, in meters per second.
+     */
+    public SimulatedExecutiveConfiguration setLinearSpeed(double speed) {
+        if (!(speed > 0) || Double.isInfinite(speed))
+            throw new IllegalArgumentException("speed must be positive");
+        m_linearSpeed = speed;
+        return this;
+    }
+
+    public double getFailureRate() {
+        return m_failureRate;
+    }
+
+    /**
+     * Set the share of commands, between 0 and 1, that complete with
+     * {@link gov.nasa.arc.astrobee.Result.Status#EXEC_FAILED}.
+     */
+    public SimulatedExecutiveConfiguration setFailureRate(double rate) {
+        if (!(rate >= 0 && rate <= 1))
+            throw new IllegalArgumentException("rate must be between 0 and 1");
+        m_failureRate = rate;
+        return this;
+    }
+
+    public double getEkfRateHz() {
+        return m_ekfRateHz;
+    }
+
+    /**
+     * Set how many EKF states are published a second. Motion is integrated
+     * at the same rate.
+     */
+    public SimulatedExecutiveConfiguration setEkfRate(double rateHz) {
+        if (!(rateHz > 0) || Double.isInfinite(rateHz))
+            throw new IllegalArgumentException("rate must be positive");
+        m_ekfRateHz = rateHz;
+        return this;
+    }
+
+    public long getLocalizationNanos() {
+        return m_localizationNanos;
+    }
+
+    /**
+     * Set how long the EKF stays lost after starting, or after a
+     * {@code resetEkf} or {@code reacquirePosition} command, before its
+     * confidence is good.
+     */
+    public SimulatedExecutiveConfiguration setLocalizationTime(long time, final TimeUnit unit) {
+        if (time < 0)
+            throw new IllegalArgumentException("time may not be negative");
+        m_localizationNanos = unit.toNanos(time);
+        return this;
+    }
+
+    public Point getStartPosition() {
+        return m_startPosition;
+    }
+
+    public Quaternion getStartOrientation() {
+        return m_startOrientation;
+    }
+
+    /**
+     * Set where the robot is when the simulation starts.
+     */
+    public SimulatedExecutiveConfiguration setStartPose(final Point position,
+                                                       final Quaternion orientation) {
+        if (position == null || orientation == null)
+            throw new NullPointerException("position and orientation may not be null");
+        m_startPosition = position;
+        m_startOrientation = orientation;
+        return this;
+    }
+
+    public long getSeed() {
+        return m_seed;
+    }
+
+    /**
+     * Set the seed for jitter and failures, so a run can be repeated.
+     */
+    public SimulatedExecutiveConfiguration setSeed(long seed) {
+        m_seed = seed;
+        return this;
+    }
+}
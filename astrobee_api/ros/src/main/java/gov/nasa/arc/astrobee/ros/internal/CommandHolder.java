@@ -21,7 +21,7 @@ package gov.nasa.arc.astrobee.ros.internal;
 import gov.nasa.arc.astrobee.internal.Publishable;
 import ff_msgs.CommandStamped;
 
-final class CommandHolder implements Publishable {
+class CommandHolder implements Publishable {
     private final CommandStamped m_command;
 
     CommandHolder(final CommandStamped cmd) {
@@ -0,0 +1,58 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes command IDs out of a per-session prefix and a counter.
+ *
+ * The executive acks every command on one shared topic, so IDs must not
+ * collide between the guest science apps talking to it, nor with an earlier
+ * run of the same app. The prefix carries the robot name and a random
+ * session token, drawn once, so after that an ID costs an atomic increment
+ * and a short string, rather than the shared {@code SecureRandom} that
+ * {@code UUID.randomUUID()} goes through on every call.
+ */
+final class CommandIdGenerator {
+    private final String m_prefix;
+    private final AtomicLong m_counter = new AtomicLong();
+
+    /**
+     * @param robotName The robot this session talks to, or {@code null}.
+     */
+    CommandIdGenerator(final String robotName) {
+        final long session = new SecureRandom().nextLong() & 0xFFFFFFFFFFFFL;
+        final StringBuilder sb = new StringBuilder(32);
+        if (robotName != null && robotName.length() > 0)
+            sb.append(robotName).append('/');
+        sb.append(Long.toHexString(session)).append('-');
+        m_prefix = sb.toString();
+    }
+
+    String next() {
+        final long n = m_counter.incrementAndGet();
+        return new StringBuilder(m_prefix.length() + 20)
+                .append(m_prefix).append(n).toString();
+    }
+
+    String getPrefix() {
+        return m_prefix;
+    }
+}
@@ -0,0 +1,111 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import gov.nasa.arc.astrobee.ros.CommandLatencies;
+import gov.nasa.arc.astrobee.ros.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@link CommandLatencies}, creating the histograms for a command
+ * the first time it is sent.
+ */
+final class CommandLatencyRecorder implements CommandLatencies {
+    private static final Phase[] PHASES = Phase.values();
+
+    /**
+     * The histograms of one command, which a {@link DefaultPendingResult}
+     * records into directly.
+     */
+    static final class Entry {
+        final LatencyHistogram queued = new LatencyHistogram();
+        final LatencyHistogram firstAck = new LatencyHistogram();
+        final LatencyHistogram total = new LatencyHistogram();
+
+        LatencyHistogram get(final Phase phase) {
+            switch (phase) {
+                case QUEUED:
+                    return queued;
+                case FIRST_ACK:
+                    return firstAck;
+                default:
+                    return total;
+            }
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> m_entries = new ConcurrentHashMap<>();
+
+    Entry forCommand(final String name) {
+        final String key = name == null ? "" : name;
+        final Entry entry = m_entries.get(key);
+        if (entry != null)
+            return entry;
+        final Entry added = new Entry();
+        final Entry raced = m_entries.putIfAbsent(key, added);
+        return raced == null ? added : raced;
+    }
+
+    @Override
+    public Set<String> getCommandNames() {
+        return Collections.unmodifiableSet(m_entries.keySet());
+    }
+
+    @Override
+    public LatencyHistogram getHistogram(final String commandName, final Phase phase) {
+        final Entry entry = m_entries.get(commandName);
+        return entry == null ? null : entry.get(phase);
+    }
+
+    @Override
+    public void reset() {
+        for (Entry entry : m_entries.values()) {
+            for (Phase phase : PHASES)
+                entry.get(phase).reset();
+        }
+    }
+
+    /**
+     * @return One line per command and phase with samples: count, mean,
+     *         50th, 90th and 99th percentiles and max, in milliseconds.
+     */
+    String format() {
+        final StringBuilder sb = new StringBuilder();
+        final TimeUnit ms = TimeUnit.MILLISECONDS;
+        for (Map.Entry<String, Entry> e : m_entries.entrySet()) {
+            for (Phase phase : PHASES) {
+                final LatencyHistogram.Snapshot s = e.getValue().get(phase).snapshot();
+                if (s.getCount() == 0)
+                    continue;
+                sb.append(e.getKey()).append(' ').append(phase)
+                        .append(" n=").append(s.getCount())
+                        .append(String.format(" mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f",
+                                s.getMean(ms), s.getPercentile(50, ms), s.getPercentile(90, ms),
+                                s.getPercentile(99, ms), s.getMax(ms)))
+                        .append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.CommandStamped;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finished commands kept for reuse, by command name. Most commands are sent
+ * over and over with the same argument types, so a recycled command comes
+ * with the right {@code CommandArg}s already in place and the builder only
+ * has to fill in values.
+ *
+ * A command must only be released once nothing will read it again. rosjava
+ * serializes outgoing messages on its own thread, so for a published
+ * command that means once the executive has acked it as completed.
+ */
+final class CommandPool {
+    static final int DEFAULT_SIZE = 4;
+
+    private final int m_size;
+    private final ConcurrentMap<String, BlockingQueue<CommandStamped>> m_pools =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @param size How many idle commands to keep for each command name.
+     */
+    CommandPool(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size must be positive");
+        m_size = size;
+    }
+
+    /**
+     * @return A released command with this name, or {@code null} if there
+     *         are none.
+     */
+    CommandStamped acquire(final String name) {
+        final BlockingQueue<CommandStamped> pool = m_pools.get(name);
+        return pool == null ? null : pool.poll();
+    }
+
+    void release(final CommandStamped cmd) {
+        final String name = cmd.getCmdName();
+        if (name == null)
+            return;
+
+        BlockingQueue<CommandStamped> pool = m_pools.get(name);
+        if (pool == null) {
+            final BlockingQueue<CommandStamped> created = new ArrayBlockingQueue<>(m_size);
+            pool = m_pools.putIfAbsent(name, created);
+            if (pool == null)
+                pool = created;
+        }
+        // When full, let the GC have it
+        pool.offer(cmd);
+    }
+}
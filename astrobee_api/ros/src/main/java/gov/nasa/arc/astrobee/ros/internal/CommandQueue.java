@@ -0,0 +1,151 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import gov.nasa.arc.astrobee.AstrobeeRuntimeException;
+import gov.nasa.arc.astrobee.ros.OverflowPolicy;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded FIFO of commands waiting for the executive to subscribe. What
+ * happens when it is full is decided by its {@link OverflowPolicy}.
+ */
+final class CommandQueue {
+    private final ReentrantLock m_lock = new ReentrantLock();
+    private final Condition m_notFull = m_lock.newCondition();
+    private final ArrayDeque<DefaultPendingResult> m_queue;
+
+    private final int m_capacity;
+    private final OverflowPolicy m_policy;
+
+    CommandQueue(int capacity, final OverflowPolicy policy) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        if (policy == null)
+            throw new NullPointerException("policy may not be null");
+        m_capacity = capacity;
+        m_policy = policy;
+        m_queue = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Add a command to the end of the queue.
+     *
+     * @param pr The command to queue.
+     * @return The command dropped to make room, which is up to the caller
+     *         to fail, or {@code null}.
+     * @throws AstrobeeRuntimeException If the queue is full and the policy is
+     *         {@link OverflowPolicy#FAIL_FAST}.
+     * @throws InterruptedException If interrupted while waiting for room.
+     */
+    DefaultPendingResult add(final DefaultPendingResult pr) throws InterruptedException {
+        DefaultPendingResult dropped = null;
+        m_lock.lockInterruptibly();
+        try {
+            if (m_queue.size() >= m_capacity) {
+                switch (m_policy) {
+                    case BLOCK:
+                        while (m_queue.size() >= m_capacity)
+                            m_notFull.await();
+                        break;
+                    case DROP_OLDEST:
+                        dropped = m_queue.poll();
+                        break;
+                    case FAIL_FAST:
+                        throw new AstrobeeRuntimeException(
+                                "Command queue is full (" + m_capacity + " commands)");
+                }
+            }
+            m_queue.add(pr);
+        } finally {
+            m_lock.unlock();
+        }
+        return dropped;
+    }
+
+    /**
+     * @return {@code true} if {@link #add} would have to wait for room.
+     */
+    boolean wouldBlock() {
+        if (m_policy != OverflowPolicy.BLOCK)
+            return false;
+        m_lock.lock();
+        try {
+            return m_queue.size() >= m_capacity;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until there is room in the queue. Whoever is adding must not hold
+     * anything draining needs while waiting here, or the queue never empties.
+     */
+    void awaitRoom() throws InterruptedException {
+        m_lock.lockInterruptibly();
+        try {
+            while (m_queue.size() >= m_capacity)
+                m_notFull.await();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Move up to {@code max} commands, oldest first, into {@code out}.
+     *
+     * @return How many commands were moved.
+     */
+    int drainTo(final Collection<DefaultPendingResult> out, int max) {
+        m_lock.lock();
+        try {
+            int n = 0;
+            while (n < max && !m_queue.isEmpty()) {
+                out.add(m_queue.poll());
+                n++;
+            }
+            if (n > 0)
+                m_notFull.signalAll();
+            return n;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        m_lock.lock();
+        try {
+            return m_queue.isEmpty();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    int size() {
+        m_lock.lock();
+        try {
+            return m_queue.size();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records what happens to commands, as fixed-size binary records in a ring
+ * allocated up front, for working out offline where the time went. Once
+ * the ring is full the oldest records are overwritten. Recording does not
+ * allocate, lock or format anything, so it stays on in flight; nothing is
+ * written out until {@link #dump(File)} is called.
+ *
+ * Each record is four longs: the {@link System#nanoTime()} it happened at;
+ * the hash of the command ID, the command name, the event and status
+ * packed together; an event specific detail; and the record's sequence.
+ * Command names are kept in a table and stored as an index into it.
+ *
+ * Any number of threads may record at once. Each claims its own record,
+ * and slots are marked 2n + 1 while record n is being written and 2n + 2
+ * once done, so a dump skips records that were overwritten or not finished
+ * as it read them. Read dumps back with
+ * {@link gov.nasa.arc.astrobee.ros.internal.util.CommandTraceDecoder}.
+ */
+public final class CommandTrace {
+    /** A command was published to the executive. */
+    public static final int PUBLISHED = 1;
+    /** A command was queued, waiting for the executive. */
+    public static final int QUEUED = 2;
+    /** An ack came in; the status is the ack's, the detail its completed status. */
+    public static final int ACK = 3;
+    /** An ack came in for a command we know nothing about. */
+    public static final int UNMATCHED_ACK = 4;
+    /** A command was given up on after its deadline. */
+    public static final int EXPIRED = 5;
+    /** A command was cancelled by the caller. */
+    public static final int CANCELLED = 6;
+    /** A command was dropped from a full command queue. */
+    public static final int DROPPED = 7;
+
+    /** The name index of records whose command name is not known. */
+    public static final int NO_NAME = 0xFFFF;
+
+    // "ABTR"
+    public static final int MAGIC = 0x41425452;
+    public static final int VERSION = 1;
+
+    public static final int RECORD_LONGS = 4;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int m_capacity;
+    private final int m_mask;
+
+    private final AtomicLongArray m_slotSequence;
+    private final AtomicLongArray m_records;
+
+    // Number of records ever claimed
+    private final AtomicLong m_next = new AtomicLong();
+
+    private final ConcurrentMap<String, Integer> m_nameIndex = new ConcurrentHashMap<>();
+    private final List<String> m_names = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param capacity How many records to keep. Rounded up to a power of
+     *                 two.
+     */
+    public CommandTrace(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 24))
+            throw new IllegalArgumentException("capacity must be between 1 and 2^24");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        m_capacity = size;
+        m_mask = size - 1;
+        m_slotSequence = new AtomicLongArray(size);
+        m_records = new AtomicLongArray(size * RECORD_LONGS);
+    }
+
+    public int getCapacity() {
+        return m_capacity;
+    }
+
+    private int nameIndex(final String name) {
+        if (name == null)
+            return NO_NAME;
+        final Integer index = m_nameIndex.get(name);
+        if (index != null)
+            return index;
+        synchronized (m_names) {
+            final Integer again = m_nameIndex.get(name);
+            if (again != null)
+                return again;
+            if (m_names.size() >= NO_NAME)
+                return NO_NAME;
+            final int added = m_names.size();
+            m_names.add(name);
+            m_nameIndex.put(name, added);
+            return added;
+        }
+    }
+
+    /**
+     * @param cmdId The command ID, which is only kept as a hash.
+     * @param name The command name, or {@code null} if not known.
+     * @param event What happened, one of the constants above.
+     * @param status The ack status byte, or 0.
+     * @param detail Anything else worth keeping about the event.
+     */
+    public void record(final String cmdId, final String name, int event, int status, long detail) {
+        final long now = System.nanoTime();
+        final long key = ((long) (cmdId == null ? 0 : cmdId.hashCode()) << 32)
+                | ((long) nameIndex(name) << 16)
+                | ((event & 0xFF) << 8)
+                | (status & 0xFF);
+
+        final long n = m_next.getAndIncrement();
+        final int slot = (int) (n & m_mask);
+        final int base = slot * RECORD_LONGS;
+        m_slotSequence.set(slot, 2 * n + 1);
+        m_records.lazySet(base, now);
+        m_records.lazySet(base + 1, key);
+        m_records.lazySet(base + 2, detail);
+        m_records.lazySet(base + 3, n);
+        m_slotSequence.set(slot, 2 * n + 2);
+    }
+
+    /**
+     * Write the records currently held to {@code file}, oldest first,
+     * through a memory mapping. Recording carries on meanwhile.
+     *
+     * @return How many records were written.
+     */
+    public int dump(final File file) throws IOException {
+        final long end = m_next.get();
+        final long start = Math.max(0, end - m_capacity);
+        final long[] copy = new long[(int) (end - start) * RECORD_LONGS];
+        int count = 0;
+        for (long n = start; n < end; n++) {
+            final int slot = (int) (n & m_mask);
+            final int base = slot * RECORD_LONGS;
+            if (m_slotSequence.get(slot) != 2 * n + 2)
+                continue;
+            final int to = count * RECORD_LONGS;
+            for (int i = 0; i < RECORD_LONGS; i++)
+                copy[to + i] = m_records.get(base + i);
+            // Overwritten while we read it
+            if (m_slotSequence.get(slot) != 2 * n + 2)
+                continue;
+            count++;
+        }
+
+        final byte[][] names = new byte[m_names.size()][];
+        int namesSize = 0;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = m_names.get(i).getBytes(UTF_8);
+            namesSize += 2 + names[i].length;
+        }
+
+        // Header: magic, version, the clocks to relate nanoTime to the wall
+        // clock, the names, then the records
+        final long size = 4 + 4 + 8 + 8 + 4 + namesSize + 4 + (long) count * RECORD_LONGS * 8;
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(size);
+            final MappedByteBuffer out = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(System.currentTimeMillis());
+            out.putLong(System.nanoTime());
+            out.putInt(names.length);
+            for (byte[] name : names) {
+                out.putShort((short) name.length);
+                out.put(name);
+            }
+            out.putInt(count);
+            for (int i = 0; i < count * RECORD_LONGS; i++)
+                out.putLong(copy[i]);
+            out.force();
+        } finally {
+            raf.close();
+        }
+        return count;
+    }
+}
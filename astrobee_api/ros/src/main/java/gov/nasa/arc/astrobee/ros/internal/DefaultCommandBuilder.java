@@ -29,101 +29,139 @@ import std_msgs.Header;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
+/**
+ * Builds a {@link CommandStamped}. When given a {@link CommandPool}, a
+ * released command with the same name is reused, along with its
+ * {@link CommandArg}s, so repeated commands allocate next to nothing.
+ */
 class DefaultCommandBuilder implements CommandBuilder {
     private final MessageFactory m_messageFactory;
-    private final CommandStamped m_cmd;
-    private final List<CommandArg> m_args = new ArrayList<>();
+    private final CommandIdGenerator m_ids;
+    private final CommandPool m_pool;
+
+    private CommandStamped m_cmd = null;
+    private String m_subsystem = null;
+    private int m_argCount = 0;
 
-    DefaultCommandBuilder(final MessageFactory messageFactory) {
+    DefaultCommandBuilder(final MessageFactory messageFactory,
+                          final CommandIdGenerator ids) {
+        this(messageFactory, ids, null);
+    }
+
+    /**
+     * @param pool Where to get recycled commands from, or {@code null} to
+     *             always create new ones.
+     */
+    DefaultCommandBuilder(final MessageFactory messageFactory,
+                          final CommandIdGenerator ids,
+                          final CommandPool pool) {
         m_messageFactory = messageFactory;
-        m_cmd = m_messageFactory.newFromType(CommandStamped._TYPE);
-        m_cmd.setHeader((Header) m_messageFactory.newFromType(Header._TYPE));
-        m_cmd.setCmdOrigin("guest_science");
+        m_ids = ids;
+        m_pool = pool;
+    }
+
+    static CommandStamped newCommand(final MessageFactory messageFactory) {
+        final CommandStamped cmd = messageFactory.newFromType(CommandStamped._TYPE);
+        cmd.setHeader((Header) messageFactory.newFromType(Header._TYPE));
+        cmd.setCmdOrigin("guest_science");
+        cmd.setArgs(new ArrayList<CommandArg>());
+        return cmd;
+    }
+
+    private CommandStamped command() {
+        if (m_cmd == null)
+            m_cmd = newCommand(m_messageFactory);
+        return m_cmd;
+    }
+
+    /**
+     * @return The next argument slot, reusing a recycled argument if there
+     *         is one.
+     */
+    private CommandArg nextArg(byte dataType) {
+        final List<CommandArg> args = command().getArgs();
+        final CommandArg arg;
+        if (m_argCount < args.size()) {
+            arg = args.get(m_argCount);
+        } else {
+            arg = m_messageFactory.newFromType(CommandArg._TYPE);
+            args.add(arg);
+        }
+        m_argCount++;
+        arg.setDataType(dataType);
+        return arg;
     }
 
     @Override
     public CommandBuilder setName(final String name) {
-        m_cmd.setCmdName(name);
+        if (m_cmd == null && m_pool != null)
+            m_cmd = m_pool.acquire(name);
+        command().setCmdName(name);
         return this;
     }
 
     @Override
     public CommandBuilder setSubsystem(final String subsystem) {
-        m_cmd.setSubsysName(subsystem);
+        m_subsystem = subsystem;
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, int value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_INT);
-        arg.setI(value);
-        m_args.add(arg);
+        nextArg(CommandArg.DATA_TYPE_INT).setI(value);
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, long value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_LONGLONG);
-        arg.setLl(value);
-        m_args.add(arg);
+        nextArg(CommandArg.DATA_TYPE_LONGLONG).setLl(value);
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, float value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_FLOAT);
-        arg.setF(value);
-        m_args.add(arg);
+        nextArg(CommandArg.DATA_TYPE_FLOAT).setF(value);
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, double value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_DOUBLE);
-        arg.setD(value);
-        m_args.add(arg);
+        nextArg(CommandArg.DATA_TYPE_DOUBLE).setD(value);
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, boolean value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_BOOL);
-        arg.setB(value);
-        m_args.add(arg);
+        nextArg(CommandArg.DATA_TYPE_BOOL).setB(value);
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, final Vec3d value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_VEC3d);
-        arg.setVec3d(value.toArray());
-        m_args.add(arg);
+        final CommandArg arg = nextArg(CommandArg.DATA_TYPE_VEC3d);
+        final double[] vec = arg.getVec3d();
+        if (vec != null && vec.length == 3)
+            value.toArray(vec, 0);
+        else
+            arg.setVec3d(value.toArray());
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, final Mat33f value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_MAT33f);
-        arg.setMat33f(value.toArray());
-        m_args.add(arg);
+        final CommandArg arg = nextArg(CommandArg.DATA_TYPE_MAT33f);
+        final float[] mat = arg.getMat33f();
+        if (mat != null && mat.length == 9)
+            value.toArray(mat, 0);
+        else
+            arg.setMat33f(value.toArray());
         return this;
     }
 
     @Override
     public CommandBuilder addArgument(final String name, final String value) {
-        final CommandArg arg = m_messageFactory.newFromType(CommandArg._TYPE);
-        arg.setDataType(CommandArg.DATA_TYPE_STRING);
-        arg.setS(value);
-        m_args.add(arg);
+        nextArg(CommandArg.DATA_TYPE_STRING).setS(value);
         return this;
     }
 
@@ -135,8 +173,13 @@ class DefaultCommandBuilder implements CommandBuilder {
 
     @Override
     public Publishable build() {
-        m_cmd.setCmdId(UUID.randomUUID().toString());
-        m_cmd.setArgs(m_args);
-        return new CommandHolder(m_cmd);
+        final CommandStamped cmd = command();
+        // A recycled command may have had more arguments
+        final List<CommandArg> args = cmd.getArgs();
+        if (args.size() > m_argCount)
+            args.subList(m_argCount, args.size()).clear();
+        cmd.setSubsysName(m_subsystem == null ? "" : m_subsystem);
+        cmd.setCmdId(m_ids.next());
+        return new CommandHolder(cmd);
     }
 }
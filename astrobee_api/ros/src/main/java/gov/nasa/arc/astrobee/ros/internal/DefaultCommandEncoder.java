@@ -0,0 +1,151 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.CommandArg;
+import ff_msgs.CommandStamped;
+import gov.nasa.arc.astrobee.internal.CommandEncoder;
+import gov.nasa.arc.astrobee.internal.CommandShape;
+import gov.nasa.arc.astrobee.internal.Publishable;
+import gov.nasa.arc.astrobee.types.Mat33f;
+import gov.nasa.arc.astrobee.types.Vec3d;
+import org.ros.message.MessageFactory;
+
+import java.util.List;
+
+/**
+ * Fills in a {@link CommandStamped} that already has one {@link CommandArg}
+ * per argument of its {@link CommandShape}, so each setter is a write into
+ * a known slot. The command comes from the {@link CommandPool} when there
+ * is one to reuse, otherwise it is laid out up front.
+ *
+ * The encoder is also the {@link Publishable} it builds, so a command
+ * costs one object on top of whatever the message needs.
+ */
+final class DefaultCommandEncoder extends CommandHolder implements CommandEncoder {
+    private final CommandIdGenerator m_ids;
+
+    /**
+     * @param pool Where to get recycled commands from, or {@code null} to
+     *             always create new ones.
+     */
+    DefaultCommandEncoder(final MessageFactory messageFactory,
+                          final CommandIdGenerator ids,
+                          final CommandPool pool,
+                          final CommandShape shape) {
+        super(prepare(messageFactory, pool, shape));
+        m_ids = ids;
+    }
+
+    private static CommandStamped prepare(final MessageFactory messageFactory,
+                                          final CommandPool pool,
+                                          final CommandShape shape) {
+        CommandStamped cmd = pool == null ? null : pool.acquire(shape.getName());
+        if (cmd == null) {
+            cmd = DefaultCommandBuilder.newCommand(messageFactory);
+            cmd.setCmdName(shape.getName());
+        }
+
+        // Recycled commands almost always match already, having been built
+        // from the same shape
+        final int count = shape.getArgCount();
+        final List<CommandArg> args = cmd.getArgs();
+        if (args.size() > count)
+            args.subList(count, args.size()).clear();
+        while (args.size() < count)
+            args.add(messageFactory.<CommandArg>newFromType(CommandArg._TYPE));
+        return cmd;
+    }
+
+    private CommandArg arg(int index, byte dataType) {
+        final CommandArg arg = getCommand().getArgs().get(index);
+        arg.setDataType(dataType);
+        return arg;
+    }
+
+    @Override
+    public CommandEncoder setBoolean(int index, boolean value) {
+        arg(index, CommandArg.DATA_TYPE_BOOL).setB(value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setDouble(int index, double value) {
+        arg(index, CommandArg.DATA_TYPE_DOUBLE).setD(value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setFloat(int index, float value) {
+        arg(index, CommandArg.DATA_TYPE_FLOAT).setF(value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setInt(int index, int value) {
+        arg(index, CommandArg.DATA_TYPE_INT).setI(value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setLong(int index, long value) {
+        arg(index, CommandArg.DATA_TYPE_LONGLONG).setLl(value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setString(int index, final String value) {
+        arg(index, CommandArg.DATA_TYPE_STRING).setS(value);
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setVec3d(int index, final Vec3d value) {
+        final CommandArg arg = arg(index, CommandArg.DATA_TYPE_VEC3d);
+        final double[] vec = arg.getVec3d();
+        if (vec != null && vec.length == 3)
+            value.toArray(vec, 0);
+        else
+            arg.setVec3d(value.toArray());
+        return this;
+    }
+
+    @Override
+    public CommandEncoder setMat33f(int index, final Mat33f value) {
+        final CommandArg arg = arg(index, CommandArg.DATA_TYPE_MAT33f);
+        final float[] mat = arg.getMat33f();
+        if (mat != null && mat.length == 9)
+            value.toArray(mat, 0);
+        else
+            arg.setMat33f(value.toArray());
+        return this;
+    }
+
+    @Override
+    public <E extends Enum<E>> CommandEncoder setEnum(int index, final E value) {
+        return setString(index, value.toString());
+    }
+
+    @Override
+    public Publishable build() {
+        final CommandStamped cmd = getCommand();
+        cmd.setSubsysName("");
+        cmd.setCmdId(m_ids.next());
+        return this;
+    }
+}
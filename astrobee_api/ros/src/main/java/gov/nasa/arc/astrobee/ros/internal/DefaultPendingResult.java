@@ -21,76 +21,201 @@ package gov.nasa.arc.astrobee.ros.internal;
 import ff_msgs.AckStamped;
 import ff_msgs.CommandStamped;
 import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.CommandCancelledException;
 import gov.nasa.arc.astrobee.PendingResult;
 import gov.nasa.arc.astrobee.Result;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 class DefaultPendingResult implements PendingResult {
-    private Status m_status = Status.EXECUTING;
+    private static final Log logger = LogFactory.getLog(DefaultPendingResult.class);
 
-    // Synchronization object protecting the result and exception
+    private volatile Status m_status = Status.EXECUTING;
+
+    // Synchronization object protecting the result, exception and callbacks
     private final Object m_sync = new Object();
     private DefaultResult m_result = null;
     private AstrobeeException m_exception = null;
+    private List<CallbackEntry> m_callbacks = new ArrayList<>();
 
     private final CountDownLatch m_latch = new CountDownLatch(1);
 
+    private final List<StatusEntry> m_statusListeners = new CopyOnWriteArrayList<>();
+
     private final CommandStamped m_cmd;
+    private final String m_cmdId;
+
+    // Null for results that are not tracked, which cannot be cancelled
+    private final PendingCommands m_owner;
+
+    // See PendingCommands, only it reads and writes this
+    private volatile long m_deadline = PendingCommands.NO_DEADLINE;
+
+    // Null for results whose latency is not recorded
+    private final CommandLatencyRecorder.Entry m_latency;
+    private final long m_sentNanos;
+    private volatile long m_publishedNanos;
+    // Only acks touch this, and they come in on one thread
+    private boolean m_acked = false;
+
+    private static final class CallbackEntry {
+        final Callback callback;
+        final Executor executor;
+
+        CallbackEntry(final Callback callback, final Executor executor) {
+            this.callback = callback;
+            this.executor = executor;
+        }
+    }
 
-    DefaultPendingResult(final CommandStamped cmd) {
+    private static final class StatusEntry {
+        final StatusListener listener;
+        final Executor executor;
+
+        StatusEntry(final StatusListener listener, final Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    DefaultPendingResult(final CommandStamped cmd, final PendingCommands owner) {
+        this(cmd, owner, null);
+    }
+
+    DefaultPendingResult(final CommandStamped cmd,
+                         final PendingCommands owner,
+                         final CommandLatencyRecorder.Entry latency) {
         m_cmd = cmd;
+        m_cmdId = cmd.getCmdId();
+        m_owner = owner;
+        m_latency = latency;
+        m_sentNanos = latency == null ? 0 : System.nanoTime();
+        m_publishedNanos = m_sentNanos;
+    }
+
+    /**
+     * The command is being handed to ROS, straight away or off the queue.
+     */
+    void published() {
+        if (m_latency == null)
+            return;
+        final long now = System.nanoTime();
+        m_publishedNanos = now;
+        m_latency.queued.record(now - m_sentNanos);
     }
 
+    String getCommandId() {
+        return m_cmdId;
+    }
+
+    /**
+     * Only valid until the command has finished, after which it may be
+     * recycled for another command.
+     */
     CommandStamped getCommand() {
         return m_cmd;
     }
 
     @Override
-    public synchronized boolean isFinished() {
-        return m_status == Status.COMPLETED;
+    public boolean isFinished() {
+        return m_latch.getCount() == 0;
     }
 
     @Override
-    public synchronized Status getStatus() {
+    public Status getStatus() {
         return m_status;
     }
 
-    void update(final AckStamped ack) {
-        setStatus(Status.fromValue(ack.getStatus().getStatus()));
-        if (m_status == Status.COMPLETED)
-            setResult(new DefaultResult(ack));
+    /**
+     * @return {@code true} if this ack gave the command its result.
+     */
+    boolean update(final AckStamped ack) {
+        final Status status = Status.fromValue(ack.getStatus().getStatus());
+        if (m_latency != null && !m_acked) {
+            m_acked = true;
+            m_latency.firstAck.record(System.nanoTime() - m_publishedNanos);
+        }
+
+        // Make the result available before anyone is told we completed
+        boolean completed = false;
+        if (status == Status.COMPLETED) {
+            completed = setResult(new DefaultResult(ack));
+            if (completed && m_latency != null)
+                m_latency.total.record(System.nanoTime() - m_sentNanos);
+        }
+        setStatus(status);
+        return completed;
+    }
+
+    long getDeadline() {
+        return m_deadline;
+    }
+
+    void setDeadline(long deadline) {
+        m_deadline = deadline;
     }
 
-    synchronized void setStatus(Status status) {
-        m_status = status;
+    void setStatus(final Status status) {
+        synchronized (m_statusListeners) {
+            if (m_status == status)
+                return;
+            m_status = status;
+            for (StatusEntry e : m_statusListeners)
+                dispatchStatus(e, status);
+        }
     }
 
-    void setResult(final DefaultResult r) {
+    /**
+     * @return {@code false} if the command had already finished.
+     */
+    boolean setResult(final DefaultResult r) {
+        final List<CallbackEntry> callbacks;
         synchronized (m_sync) {
             // If the count has hit zero, then someone has already set either
             // a result or an exception, so bail.
             if (m_latch.getCount() == 0)
-                return;
+                return false;
 
             // We are the first, set our result/exception.
             m_result = r;
             m_latch.countDown();
+            callbacks = m_callbacks;
+            m_callbacks = null;
         }
+        for (CallbackEntry e : callbacks)
+            dispatchResult(e);
+        return true;
     }
 
-    void setThrowable(final Throwable t) {
+    /**
+     * @return {@code false} if the command had already finished.
+     */
+    boolean setThrowable(final Throwable t) {
+        final List<CallbackEntry> callbacks;
         synchronized (m_sync) {
             if (m_latch.getCount() == 0)
-                return;
+                return false;
             if (t instanceof AstrobeeException)
                 m_exception = (AstrobeeException) t;
             else
                 m_exception = new AstrobeeException(t);
             m_latch.countDown();
+            callbacks = m_callbacks;
+            m_callbacks = null;
         }
+        for (CallbackEntry e : callbacks)
+            dispatchResult(e);
+        return true;
     }
 
     @Override
@@ -108,4 +233,123 @@ class DefaultPendingResult implements PendingResult {
             throw m_exception;
         return m_result;
     }
+
+    @Override
+    public void addCallback(final Callback callback, final Executor executor) {
+        if (callback == null || executor == null)
+            throw new NullPointerException("callback and executor may not be null");
+
+        final CallbackEntry entry = new CallbackEntry(callback, executor);
+        synchronized (m_sync) {
+            if (m_callbacks != null) {
+                m_callbacks.add(entry);
+                return;
+            }
+        }
+        dispatchResult(entry);
+    }
+
+    @Override
+    public void addStatusListener(final StatusListener listener, final Executor executor) {
+        if (listener == null || executor == null)
+            throw new NullPointerException("listener and executor may not be null");
+
+        final StatusEntry entry = new StatusEntry(listener, executor);
+        synchronized (m_statusListeners) {
+            m_statusListeners.add(entry);
+            dispatchStatus(entry, m_status);
+        }
+    }
+
+    @Override
+    public void removeStatusListener(final StatusListener listener) {
+        for (StatusEntry e : m_statusListeners) {
+            if (e.listener == listener)
+                m_statusListeners.remove(e);
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        if (m_owner != null)
+            return m_owner.cancel(this);
+        return setThrowable(new CommandCancelledException(
+                "Command " + m_cmdId + " was cancelled"));
+    }
+
+    @Override
+    public void setTimeout(long timeout, final TimeUnit unit) {
+        if (m_owner == null)
+            throw new UnsupportedOperationException("Command is not tracked");
+        m_owner.setTimeout(this, unit.toNanos(timeout));
+    }
+
+    @Override
+    public Future<Result> asFuture() {
+        return new Future<Result>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return DefaultPendingResult.this.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return isDone() && m_exception instanceof CommandCancelledException;
+            }
+
+            @Override
+            public boolean isDone() {
+                return m_latch.getCount() == 0;
+            }
+
+            @Override
+            public Result get() throws InterruptedException, ExecutionException {
+                try {
+                    return getResult();
+                } catch (AstrobeeException e) {
+                    throw new ExecutionException(e);
+                }
+            }
+
+            @Override
+            public Result get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                if (!m_latch.await(timeout, unit))
+                    throw new TimeoutException("Command did not complete in time");
+                return get();
+            }
+        };
+    }
+
+    private void dispatchResult(final CallbackEntry e) {
+        // Only read once the latch is down, after which these never change
+        final Result result = m_result;
+        final AstrobeeException exception = m_exception;
+        try {
+            e.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (exception != null)
+                        e.callback.onError(exception);
+                    else
+                        e.callback.onResult(result);
+                }
+            });
+        } catch (RuntimeException ex) {
+            logger.error("Unable to dispatch result callback", ex);
+        }
+    }
+
+    private void dispatchStatus(final StatusEntry e, final Status status) {
+        try {
+            e.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    e.listener.onStatusChanged(DefaultPendingResult.this, status);
+                }
+            });
+        } catch (RuntimeException ex) {
+            logger.error("Unable to dispatch status change", ex);
+        }
+    }
 }
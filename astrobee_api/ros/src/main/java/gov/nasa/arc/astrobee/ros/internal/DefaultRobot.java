@@ -18,12 +18,24 @@
 
 package gov.nasa.arc.astrobee.ros.internal;
 
+import ff_msgs.CommandStamped;
 import gov.nasa.arc.astrobee.PendingResult;
 import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsBuffer;
+import gov.nasa.arc.astrobee.KinematicsListener;
+import gov.nasa.arc.astrobee.KinematicsPredicate;
 import gov.nasa.arc.astrobee.internal.CommandBuilder;
+import gov.nasa.arc.astrobee.internal.CommandEncoder;
+import gov.nasa.arc.astrobee.internal.CommandShape;
 import gov.nasa.arc.astrobee.internal.Publishable;
 import gov.nasa.arc.astrobee.internal.RobotImpl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 public class DefaultRobot extends RobotImpl {
     private final RobotNodeMain m_nodeMain;
 
@@ -33,7 +45,12 @@ public class DefaultRobot extends RobotImpl {
 
     @Override
     protected CommandBuilder makeCommandBuilder() {
-        return new DefaultCommandBuilder(m_nodeMain.getTopicMessageFactory());
+        return m_nodeMain.newCommandBuilder();
+    }
+
+    @Override
+    protected CommandEncoder makeCommandEncoder(final CommandShape shape) {
+        return m_nodeMain.newCommandEncoder(shape);
     }
 
     @Override
@@ -42,8 +59,41 @@ public class DefaultRobot extends RobotImpl {
                 ((CommandHolder) cmd).getCommand());
     }
 
+    @Override
+    protected List<PendingResult> publishAll(final List<Publishable> cmds) {
+        final List<CommandStamped> commands = new ArrayList<>(cmds.size());
+        for (Publishable cmd : cmds)
+            commands.add(((CommandHolder) cmd).getCommand());
+        return m_nodeMain.publishAll(commands);
+    }
+
     @Override
     public Kinematics getCurrentKinematics() {
         return m_nodeMain.getKinematics();
     }
+
+    @Override
+    public KinematicsBuffer getKinematicsBuffer() {
+        return m_nodeMain.getKinematicsBuffer();
+    }
+
+    @Override
+    public void addKinematicsListener(final KinematicsListener listener,
+                                      float maxRateHz,
+                                      final Executor executor) {
+        m_nodeMain.addKinematicsListener(listener, maxRateHz, executor);
+    }
+
+    @Override
+    public void removeKinematicsListener(final KinematicsListener listener) {
+        m_nodeMain.removeKinematicsListener(listener);
+    }
+
+    @Override
+    public Kinematics awaitKinematics(final KinematicsPredicate predicate,
+                                      long timeout,
+                                      final TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        return m_nodeMain.awaitKinematics(predicate, timeout, unit);
+    }
 }
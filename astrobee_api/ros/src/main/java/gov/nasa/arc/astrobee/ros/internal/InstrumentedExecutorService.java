@@ -0,0 +1,105 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import gov.nasa.arc.astrobee.ros.ExecutorGauges;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps an {@link ExecutorService} to keep {@link ExecutorGauges} on it.
+ * Each task is timed from when it is handed over to when it starts.
+ *
+ * Tasks returned by {@link #shutdownNow()} are the wrapped ones, and so
+ * are not the same objects that were submitted.
+ */
+public final class InstrumentedExecutorService extends AbstractExecutorService {
+    private final ExecutorService m_delegate;
+    private final TaskStats m_stats = new TaskStats();
+
+    private final class TimedTask implements Runnable {
+        private final Runnable m_task;
+        private final long m_queuedNanos = System.nanoTime();
+
+        TimedTask(final Runnable task) {
+            m_task = task;
+        }
+
+        @Override
+        public void run() {
+            m_stats.started(System.nanoTime() - m_queuedNanos, true);
+            try {
+                m_task.run();
+            } finally {
+                m_stats.finished();
+            }
+        }
+    }
+
+    public InstrumentedExecutorService(final ExecutorService delegate) {
+        if (delegate == null)
+            throw new NullPointerException("delegate may not be null");
+        m_delegate = delegate;
+    }
+
+    public ExecutorGauges getGauges() {
+        return m_stats;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null)
+            throw new NullPointerException("command may not be null");
+        m_stats.queued();
+        try {
+            m_delegate.execute(new TimedTask(command));
+        } catch (RejectedExecutionException e) {
+            m_stats.unqueued();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        m_delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return m_delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return m_delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return m_delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, final TimeUnit unit) throws InterruptedException {
+        return m_delegate.awaitTermination(timeout, unit);
+    }
+}
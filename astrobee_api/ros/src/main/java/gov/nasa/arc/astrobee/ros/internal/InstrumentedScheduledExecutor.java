@@ -0,0 +1,71 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import gov.nasa.arc.astrobee.ros.ExecutorGauges;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ScheduledThreadPoolExecutor} keeping {@link ExecutorGauges}.
+ *
+ * Every task in the pool is a delayed one, whether it was scheduled or just
+ * submitted, and how far past its delay it is when it starts is exactly its
+ * latency, so nothing needs wrapping. Likewise the queue depth is the
+ * number of queued tasks whose delay is up, which leaves out periodic tasks
+ * waiting for their next run.
+ */
+public final class InstrumentedScheduledExecutor extends ScheduledThreadPoolExecutor {
+    private final TaskStats m_stats = new TaskStats() {
+        @Override
+        public int getQueueDepth() {
+            int due = 0;
+            for (Runnable r : getQueue()) {
+                if (r instanceof Delayed && ((Delayed) r).getDelay(TimeUnit.NANOSECONDS) <= 0)
+                    due++;
+            }
+            return due;
+        }
+    };
+
+    public InstrumentedScheduledExecutor(int corePoolSize, final ThreadFactory threadFactory) {
+        super(corePoolSize, threadFactory);
+    }
+
+    public ExecutorGauges getGauges() {
+        return m_stats;
+    }
+
+    @Override
+    protected void beforeExecute(final Thread t, final Runnable r) {
+        super.beforeExecute(t, r);
+        long latency = 0;
+        if (r instanceof Delayed)
+            latency = -((Delayed) r).getDelay(TimeUnit.NANOSECONDS);
+        m_stats.started(latency, false);
+    }
+
+    @Override
+    protected void afterExecute(final Runnable r, final Throwable t) {
+        m_stats.finished();
+        super.afterExecute(r, t);
+    }
+}
@@ -0,0 +1,125 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.EkfState;
+import gov.nasa.arc.astrobee.KinematicsListener;
+import gov.nasa.arc.astrobee.TelemetryRateManager;
+import gov.nasa.arc.astrobee.ros.DefaultKinematics;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers EKF updates to one {@link KinematicsListener}, decimated to a
+ * maximum rate and conflated so at most one delivery is ever outstanding.
+ * The listener is never called concurrently with itself.
+ *
+ * {@link #offer(EkfState, long)} is called on the ROS thread and only does
+ * a rate check and a swap; decoding happens on the listener's executor.
+ */
+final class KinematicsSubscription implements Runnable {
+    private static final Log logger = LogFactory.getLog(KinematicsSubscription.class);
+
+    private final KinematicsListener m_listener;
+    private final Executor m_executor;
+    private final long m_intervalNanos;
+
+    // Null unless telemetry rates are managed
+    private volatile TelemetryRateManager.Demand m_demand = null;
+
+    // Only touched by the (single) ROS subscriber thread
+    private long m_nextDueNanos = Long.MIN_VALUE;
+
+    // The update waiting to be delivered, or null if none is outstanding
+    private final AtomicReference<EkfState> m_latest = new AtomicReference<>();
+
+    // Whether a delivery task is queued on or running in the executor
+    private final AtomicBoolean m_scheduled = new AtomicBoolean(false);
+
+    KinematicsSubscription(final KinematicsListener listener,
+                           float maxRateHz,
+                           final Executor executor) {
+        if (listener == null || executor == null)
+            throw new NullPointerException("listener and executor may not be null");
+        if (maxRateHz < 0 || Float.isNaN(maxRateHz))
+            throw new IllegalArgumentException("maxRateHz may not be negative");
+        m_listener = listener;
+        m_executor = executor;
+        m_intervalNanos = maxRateHz == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / maxRateHz);
+    }
+
+    KinematicsListener getListener() {
+        return m_listener;
+    }
+
+    void setDemand(final TelemetryRateManager.Demand demand) {
+        m_demand = demand;
+    }
+
+    /**
+     * Give up the EKF rate this listener demanded, if any.
+     */
+    void release() {
+        final TelemetryRateManager.Demand demand = m_demand;
+        if (demand != null)
+            demand.release();
+    }
+
+    void offer(final EkfState ekf, long nowNanos) {
+        if (m_nextDueNanos != Long.MIN_VALUE && nowNanos - m_nextDueNanos < 0)
+            return;
+        m_nextDueNanos = nowNanos + m_intervalNanos;
+
+        // If a delivery is already outstanding it will pick this one up
+        m_latest.set(ekf);
+        if (!m_scheduled.compareAndSet(false, true))
+            return;
+
+        try {
+            m_executor.execute(this);
+        } catch (RuntimeException e) {
+            m_scheduled.set(false);
+            logger.error("Unable to dispatch kinematics update", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            final EkfState ekf = m_latest.getAndSet(null);
+            if (ekf == null) {
+                m_scheduled.set(false);
+                // Catch an update that slipped in before we cleared the flag
+                if (m_latest.get() == null || !m_scheduled.compareAndSet(false, true))
+                    return;
+                continue;
+            }
+
+            try {
+                m_listener.onKinematicsChanged(new DefaultKinematics(ekf));
+            } catch (RuntimeException e) {
+                logger.error("Kinematics listener threw", e);
+            }
+        }
+    }
+}
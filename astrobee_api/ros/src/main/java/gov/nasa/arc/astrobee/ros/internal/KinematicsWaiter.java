@@ -0,0 +1,76 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import gov.nasa.arc.astrobee.AstrobeeRuntimeException;
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsPredicate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A thread blocked until the kinematics match a {@link KinematicsPredicate}.
+ *
+ * {@link #offer(Kinematics)} is called on the ROS thread for each update,
+ * and once by the waiting thread itself with the state it started from.
+ */
+final class KinematicsWaiter {
+    private final KinematicsPredicate m_predicate;
+    private final CountDownLatch m_latch = new CountDownLatch(1);
+
+    // Guarded by this, only written until the latch is down
+    private Kinematics m_match = null;
+    private RuntimeException m_failure = null;
+
+    KinematicsWaiter(final KinematicsPredicate predicate) {
+        if (predicate == null)
+            throw new NullPointerException("predicate may not be null");
+        m_predicate = predicate;
+    }
+
+    /**
+     * @return {@code true} once the waiter no longer needs updates.
+     */
+    synchronized boolean offer(final Kinematics kinematics) {
+        if (m_latch.getCount() == 0)
+            return true;
+        try {
+            if (!m_predicate.matches(kinematics))
+                return false;
+            m_match = kinematics;
+        } catch (RuntimeException e) {
+            // Rethrown to the waiting thread, which owns the predicate
+            m_failure = e;
+        }
+        m_latch.countDown();
+        return true;
+    }
+
+    Kinematics await(long timeout, final TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (!m_latch.await(timeout, unit))
+            throw new TimeoutException("Kinematics did not match in time");
+        synchronized (this) {
+            if (m_failure != null)
+                throw new AstrobeeRuntimeException("Kinematics predicate failed", m_failure);
+            return m_match;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import gov.nasa.arc.astrobee.AstrobeeException;
+import gov.nasa.arc.astrobee.CommandCancelledException;
+import gov.nasa.arc.astrobee.CommandTimeoutException;
+import gov.nasa.arc.astrobee.ros.CommandGauges;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every command that has been sent, or queued to be sent, and has not
+ * finished yet, by command ID. Acks are routed through here, and commands
+ * that never get their COMPLETED ack are failed once their deadline passes,
+ * so neither they nor whoever waits on them are stuck forever.
+ *
+ * Deadlines are kept in a timer wheel: a ring of slots, one per tick, each
+ * holding the commands due in that tick. Adding a deadline is a queue
+ * insert, and {@link #expire()} only looks at the slots for the ticks that
+ * have passed since it last ran, whatever the number of commands. Deadlines
+ * more than a turn away simply go around again.
+ */
+final class PendingCommands implements CommandGauges {
+    private static final Log logger = LogFactory.getLog(PendingCommands.class);
+
+    // Commands expire up to a tick after their deadline
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // About 51 seconds per turn
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final ConcurrentMap<String, DefaultPendingResult> m_pending =
+            new ConcurrentHashMap<>();
+
+    private final List<Queue<DefaultPendingResult>> m_wheel = new ArrayList<>(WHEEL_SIZE);
+
+    // Deadlines are in nanoseconds since we were created
+    private final long m_originNanos = System.nanoTime();
+
+    // The next tick to expire. Only advanced by the reaper.
+    private volatile long m_tick = 0;
+
+    private final long m_defaultTimeoutNanos;
+
+    // Null when tracing is disabled
+    private final CommandTrace m_trace;
+
+    private final AtomicLong m_completed = new AtomicLong();
+    private final AtomicLong m_expired = new AtomicLong();
+    private final AtomicLong m_cancelled = new AtomicLong();
+    private final AtomicLong m_dropped = new AtomicLong();
+
+    /**
+     * @param defaultTimeoutNanos How long a command may take before it
+     *                            expires, or 0 for no deadline.
+     * @param trace Where to record commands failing, or {@code null}.
+     */
+    PendingCommands(long defaultTimeoutNanos, final CommandTrace trace) {
+        m_defaultTimeoutNanos = defaultTimeoutNanos;
+        m_trace = trace;
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            m_wheel.add(new ConcurrentLinkedQueue<DefaultPendingResult>());
+    }
+
+    private long now() {
+        return System.nanoTime() - m_originNanos;
+    }
+
+    /**
+     * Start tracking a command, with the default deadline. Must happen
+     * before it is published, otherwise a fast ack could beat us here.
+     */
+    void add(final DefaultPendingResult pr) {
+        m_pending.put(pr.getCommandId(), pr);
+        if (m_defaultTimeoutNanos > 0)
+            setTimeout(pr, m_defaultTimeoutNanos);
+    }
+
+    DefaultPendingResult get(final String cmdId) {
+        return m_pending.get(cmdId);
+    }
+
+    /**
+     * The command got its result.
+     */
+    void completed(final DefaultPendingResult pr) {
+        m_pending.remove(pr.getCommandId(), pr);
+        m_completed.incrementAndGet();
+    }
+
+    /**
+     * @return {@code false} if the command had already finished.
+     */
+    boolean cancel(final DefaultPendingResult pr) {
+        return fail(pr, new CommandCancelledException(
+                "Command " + pr.getCommandId() + " was cancelled"), m_cancelled,
+                CommandTrace.CANCELLED);
+    }
+
+    /**
+     * The command was pushed out of a full command queue.
+     */
+    void dropped(final DefaultPendingResult pr) {
+        if (fail(pr, new AstrobeeException(
+                "Command dropped from full queue before it could be sent"), m_dropped,
+                CommandTrace.DROPPED))
+            logger.warn("Command queue full, dropped " + pr.getCommandId());
+    }
+
+    /**
+     * Stop tracking a command that was never handed out, without counting it.
+     */
+    void forget(final DefaultPendingResult pr) {
+        m_pending.remove(pr.getCommandId(), pr);
+    }
+
+    private boolean fail(final DefaultPendingResult pr,
+                         final AstrobeeException e,
+                         final AtomicLong counter,
+                         int event) {
+        // Whoever finishes the result first decides what it was
+        if (!pr.setThrowable(e))
+            return false;
+        if (m_trace != null)
+            m_trace.record(pr.getCommandId(), pr.getCommand().getCmdName(), event, 0, 0);
+        m_pending.remove(pr.getCommandId(), pr);
+        counter.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Replace the deadline of a command.
+     *
+     * @param timeoutNanos How long from now, or 0 or less for no deadline.
+     */
+    void setTimeout(final DefaultPendingResult pr, long timeoutNanos) {
+        if (timeoutNanos <= 0 || timeoutNanos >= NO_DEADLINE / 2) {
+            pr.setDeadline(NO_DEADLINE);
+            return;
+        }
+
+        final long deadline = now() + timeoutNanos;
+        pr.setDeadline(deadline);
+        schedule(pr, deadline);
+    }
+
+    private void schedule(final DefaultPendingResult pr, long deadline) {
+        // Round up, and never into a tick the reaper may have passed already
+        final long tick = Math.max(deadline / TICK_NANOS + 1, m_tick + 1);
+        m_wheel.get((int) (tick & WHEEL_MASK)).add(pr);
+    }
+
+    /**
+     * Fail every command whose deadline has passed with a
+     * {@link CommandTimeoutException}. Must only be called from one thread
+     * at a time, normally every {@link #TICK_NANOS}.
+     */
+    void expire() {
+        final long now = now();
+        final long target = now / TICK_NANOS;
+
+        // After a long stall, one turn still visits every slot
+        long tick = Math.max(m_tick, target - WHEEL_MASK);
+        List<DefaultPendingResult> later = null;
+        for (; tick <= target; tick++) {
+            final Queue<DefaultPendingResult> slot = m_wheel.get((int) (tick & WHEEL_MASK));
+            DefaultPendingResult pr;
+            while ((pr = slot.poll()) != null) {
+                // Finished, or already here under a later deadline
+                if (pr.isFinished() || pr.getDeadline() == NO_DEADLINE)
+                    continue;
+
+                if (pr.getDeadline() <= now) {
+                    if (fail(pr, new CommandTimeoutException("Command " + pr.getCommandId()
+                            + " did not complete in time"), m_expired, CommandTrace.EXPIRED))
+                        logger.warn("Command " + pr.getCommandId() + " expired");
+                } else {
+                    // Due in a later turn, or its deadline was pushed back
+                    if (later == null)
+                        later = new ArrayList<>();
+                    later.add(pr);
+                }
+            }
+        }
+        m_tick = tick;
+
+        if (later != null) {
+            for (DefaultPendingResult pr : later)
+                schedule(pr, pr.getDeadline());
+        }
+    }
+
+    @Override
+    public int getOutstanding() {
+        return m_pending.size();
+    }
+
+    @Override
+    public long getCompleted() {
+        return m_completed.get();
+    }
+
+    @Override
+    public long getExpired() {
+        return m_expired.get();
+    }
+
+    @Override
+    public long getCancelled() {
+        return m_cancelled.get();
+    }
+
+    @Override
+    public long getDropped() {
+        return m_dropped.get();
+    }
+}
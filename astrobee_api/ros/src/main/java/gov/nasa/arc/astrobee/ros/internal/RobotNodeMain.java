@@ -22,14 +22,26 @@ import ff_msgs.CommandStamped;
 import ff_msgs.EkfState;
 import gov.nasa.arc.astrobee.AstrobeeRuntimeException;
 import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.KinematicsBuffer;
+import gov.nasa.arc.astrobee.KinematicsListener;
+import gov.nasa.arc.astrobee.KinematicsPredicate;
 import gov.nasa.arc.astrobee.PendingResult;
+import gov.nasa.arc.astrobee.TelemetryRateManager;
+import gov.nasa.arc.astrobee.internal.CommandShape;
+import gov.nasa.arc.astrobee.ros.CommandGauges;
+import gov.nasa.arc.astrobee.ros.CommandLatencies;
 import gov.nasa.arc.astrobee.ros.DefaultKinematics;
+import gov.nasa.arc.astrobee.ros.DefaultKinematicsBuffer;
+import gov.nasa.arc.astrobee.ros.KinematicsHistory;
+import gov.nasa.arc.astrobee.ros.RobotConfiguration;
 import gov.nasa.arc.astrobee.ros.internal.util.Stringer;
+import gov.nasa.arc.astrobee.types.TelemetryType;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.ros.internal.node.topic.SubscriberIdentifier;
 import org.ros.message.MessageFactory;
 import org.ros.message.MessageListener;
+import org.ros.message.Time;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
@@ -38,40 +50,172 @@ import org.ros.node.topic.DefaultPublisherListener;
 import org.ros.node.topic.Publisher;
 import org.ros.node.topic.Subscriber;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class RobotNodeMain extends AbstractNodeMain implements MessageListener<AckStamped> {
     private final Log logger = LogFactory.getLog(RobotNodeMain.class);
 
-    private ConnectedNode m_node = null;
-    private Publisher<CommandStamped> m_cmdPublisher = null;
-    private boolean m_ready = false;
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
 
-    private final Map<String, DefaultPendingResult> m_pending = new HashMap<>();
-    private final Queue<CommandStamped> m_queue = new LinkedBlockingDeque<>();
+    // About 16 seconds of EKF updates
+    public static final int DEFAULT_HISTORY_CAPACITY = 1024;
 
-    private final Object m_kinematics_lock = new Object();
-    private DefaultKinematics m_kinematics = new DefaultKinematics();
+    public static final int DEFAULT_COMMAND_POOL_SIZE = CommandPool.DEFAULT_SIZE;
+
+    // Records of 32 bytes each
+    public static final int DEFAULT_TRACE_CAPACITY = 4096;
+
+    // Long enough for any single motion across the station
+    public static final long DEFAULT_COMMAND_TIMEOUT_SECONDS = 600;
+
+    // How many queued commands are published per pass over the queue
+    private static final int DRAIN_BATCH_SIZE = 32;
+
+    // The EKF rate asked for while someone waits on the kinematics
+    private static final float KINEMATICS_WAIT_RATE_HZ = 10;
+
+    private volatile ConnectedNode m_node = null;
+    private volatile Publisher<CommandStamped> m_cmdPublisher = null;
+    private volatile boolean m_ready = false;
+
+    // Routes acks to in-flight commands and expires those that never finish.
+    // Publishers and the ack subscriber only ever touch their own entries,
+    // so they never wait on each other.
+    private final PendingCommands m_pending;
+    private ScheduledFuture<?> m_reaper = null;
+
+    private final CommandLatencyRecorder m_latencies = new CommandLatencyRecorder();
+    // 0 when the latencies are not published
+    private final long m_metricsPeriodNanos;
+    private ScheduledFuture<?> m_metrics = null;
+
+    // Guards the hand-off between queueing and publishing directly, in both
+    // directions. Not taken while we are ready and the executive is
+    // listening.
+    private final Object m_queueLock = new Object();
+    private final CommandQueue m_queue;
+    private boolean m_draining = false;
+
+    // The newest EKF state, decoded in place without allocating
+    private final DefaultKinematicsBuffer m_kinematicsBuffer = new DefaultKinematicsBuffer();
+    private volatile DecodedKinematics m_kinematics =
+            new DecodedKinematics(0, new DefaultKinematics());
+
+    // Null when history is disabled
+    private final KinematicsHistory m_history;
+
+    private final List<KinematicsSubscription> m_kinematicsSubscriptions =
+            new CopyOnWriteArrayList<>();
+
+    private final List<KinematicsWaiter> m_kinematicsWaiters =
+            new CopyOnWriteArrayList<>();
+
+    private final CommandIdGenerator m_commandIds;
+
+    // Null when pooling is disabled
+    private final CommandPool m_commandPool;
+
+    // Null when tracing is disabled
+    private final CommandTrace m_trace;
+
+    private final boolean m_manageTelemetryRates;
+    private final Map<TelemetryType, Float> m_defaultTelemetryRates;
+    // Null when telemetry rates are not managed, or before we start
+    private volatile TelemetryRateManager m_telemetryRates = null;
+
+    private static final class DecodedKinematics {
+        final long sequence;
+        final DefaultKinematics kinematics;
+
+        DecodedKinematics(long sequence, final DefaultKinematics kinematics) {
+            this.sequence = sequence;
+            this.kinematics = kinematics;
+        }
+    }
+
+    public RobotNodeMain() {
+        this(new RobotConfiguration());
+    }
+
+    public RobotNodeMain(final RobotConfiguration config) {
+        this(config, config.getRobotName());
+    }
+
+    /**
+     * @param config Where to take the command queue, kinematics history and
+     *               command pool settings from.
+     * @param robotName The robot this node talks to, which may not be the
+     *                  one from {@code config}.
+     */
+    public RobotNodeMain(final RobotConfiguration config, final String robotName) {
+        m_queue = new CommandQueue(config.getCommandQueueCapacity(),
+                config.getCommandQueueOverflowPolicy());
+        final int historyCapacity = config.getKinematicsHistoryCapacity();
+        m_history = historyCapacity > 0 ? new KinematicsHistory(historyCapacity) : null;
+        final int traceCapacity = config.getCommandTraceCapacity();
+        m_trace = traceCapacity > 0 ? new CommandTrace(traceCapacity) : null;
+        m_pending = new PendingCommands(config.getCommandTimeoutNanos(), m_trace);
+        m_commandIds = new CommandIdGenerator(robotName);
+        m_metricsPeriodNanos = config.getLatencyMetricsPeriodNanos();
+        final int poolSize = config.getCommandPoolSize();
+        m_commandPool = poolSize > 0 ? new CommandPool(poolSize) : null;
+        m_manageTelemetryRates = config.isManagingTelemetryRates();
+        m_defaultTelemetryRates = config.getDefaultTelemetryRates();
+    }
 
     @Override
-    public synchronized void onStart(final ConnectedNode connectedNode) {
+    public void onStart(final ConnectedNode connectedNode) {
         m_node = connectedNode;
         m_cmdPublisher = connectedNode.newPublisher("command", CommandStamped._TYPE);
         m_cmdPublisher.addListener(new DefaultPublisherListener<CommandStamped>() {
             @Override
             public void onNewSubscriber(Publisher<CommandStamped> publisher, SubscriberIdentifier subscriberIdentifier) {
-                while (!m_queue.isEmpty()) {
-                    CommandStamped cmd = m_queue.poll();
-                    publisher.publish(cmd);
-                }
-                synchronized(RobotNodeMain.this) {
-                    m_ready = true;
-                }
+                drainQueue(publisher);
             }
         });
+        m_reaper = connectedNode.getScheduledExecutorService().scheduleAtFixedRate(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            m_pending.expire();
+                        } catch (RuntimeException e) {
+                            // Keep going, or nothing would ever expire again
+                            logger.error("Unable to expire pending commands", e);
+                        }
+                    }
+                }, PendingCommands.TICK_NANOS, PendingCommands.TICK_NANOS, TimeUnit.NANOSECONDS);
+
+        if (m_manageTelemetryRates) {
+            m_telemetryRates = new TelemetryRateManager(new DefaultRobot(this),
+                    connectedNode.getScheduledExecutorService(), m_defaultTelemetryRates);
+        }
+
+        if (m_metricsPeriodNanos > 0) {
+            final Publisher<std_msgs.String> metricsPublisher =
+                    connectedNode.newPublisher("api/command_latency", std_msgs.String._TYPE);
+            m_metrics = connectedNode.getScheduledExecutorService().scheduleAtFixedRate(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                final std_msgs.String msg = metricsPublisher.newMessage();
+                                msg.setData(m_latencies.format());
+                                metricsPublisher.publish(msg);
+                            } catch (RuntimeException e) {
+                                logger.error("Unable to publish command latencies", e);
+                            }
+                        }
+                    }, m_metricsPeriodNanos, m_metricsPeriodNanos, TimeUnit.NANOSECONDS);
+        }
+
         Subscriber<AckStamped> subscriber = connectedNode.newSubscriber("mgt/ack", AckStamped._TYPE);
         subscriber.addMessageListener(this);
 
@@ -79,65 +223,364 @@ public class RobotNodeMain extends AbstractNodeMain implements MessageListener<A
         ekfSub.addMessageListener(new MessageListener<EkfState>() {
             @Override
             public void onNewMessage(final EkfState ekfState) {
-                synchronized(m_kinematics_lock) {
-                    m_kinematics = new DefaultKinematics(ekfState);
-                }
+                m_kinematicsBuffer.update(ekfState);
+                if (m_history != null)
+                    m_history.add(ekfState);
+                if (!m_kinematicsWaiters.isEmpty())
+                    wakeKinematicsWaiters();
+                if (m_kinematicsSubscriptions.isEmpty())
+                    return;
+                final long now = System.nanoTime();
+                for (KinematicsSubscription sub : m_kinematicsSubscriptions)
+                    sub.offer(ekfState, now);
             }
         });
     }
 
     @Override
-    public synchronized void onNewMessage(final AckStamped ack) {
-        if (!m_pending.containsKey(ack.getCmdId())) {
+    public void onNewMessage(final AckStamped ack) {
+        final DefaultPendingResult pr = m_pending.get(ack.getCmdId());
+        if (pr == null) {
+            if (m_trace != null)
+                m_trace.record(ack.getCmdId(), null, CommandTrace.UNMATCHED_ACK,
+                        ack.getStatus().getStatus(), ack.getCompletedStatus().getStatus());
             logger.warn("Unmatched Ack received: " + Stringer.toString(ack));
             return;
         }
 
-        final DefaultPendingResult pr = m_pending.get(ack.getCmdId());
-        logger.debug("Updating status for " + Stringer.toString(pr.getCommand()));
-        pr.update(ack);
-        if (pr.isFinished()) {
-            m_pending.remove(ack.getCmdId());
+        if (m_trace != null)
+            m_trace.record(pr.getCommandId(), pr.getCommand().getCmdName(), CommandTrace.ACK,
+                    ack.getStatus().getStatus(), ack.getCompletedStatus().getStatus());
+        if (logger.isDebugEnabled())
+            logger.debug("Updating status for " + Stringer.toString(pr.getCommand()));
+        if (pr.update(ack)) {
+            m_pending.completed(pr);
+            // The executive has it, so rosjava is done with it too
+            if (m_commandPool != null)
+                m_commandPool.release(pr.getCommand());
         }
     }
 
     @Override
-    public synchronized void onShutdown(Node node) {
+    public void onShutdown(Node node) {
+        if (m_reaper != null)
+            m_reaper.cancel(false);
+        if (m_metrics != null)
+            m_metrics.cancel(false);
+        if (m_telemetryRates != null)
+            m_telemetryRates.shutdown();
         m_node = null;
         m_cmdPublisher = null;
     }
 
     public Kinematics getKinematics() {
-        synchronized(m_kinematics_lock) {
-            return m_kinematics;
+        DecodedKinematics decoded = m_kinematics;
+        if (decoded.sequence == m_kinematicsBuffer.getSequence())
+            return decoded.kinematics;
+
+        // Racing readers may both decode the same update, which is harmless
+        final double[] snapshot = new double[KinematicsBuffer.SIZE];
+        final long sequence = m_kinematicsBuffer.read(snapshot);
+        decoded = new DecodedKinematics(sequence, new DefaultKinematics(snapshot));
+        m_kinematics = decoded;
+        return decoded.kinematics;
+    }
+
+    public KinematicsBuffer getKinematicsBuffer() {
+        return m_kinematicsBuffer;
+    }
+
+    /**
+     * @return The {@link KinematicsHistory}, or {@code null} if disabled.
+     */
+    public KinematicsHistory getKinematicsHistory() {
+        return m_history;
+    }
+
+    public void addKinematicsListener(final KinematicsListener listener,
+                                      float maxRateHz,
+                                      final Executor executor) {
+        final KinematicsSubscription sub =
+                new KinematicsSubscription(listener, maxRateHz, executor);
+        // Listeners taking every update have no rate to ask for
+        final TelemetryRateManager telemetryRates = m_telemetryRates;
+        if (telemetryRates != null && maxRateHz > 0)
+            sub.setDemand(telemetryRates.addDemand(TelemetryType.EKF_STATE, maxRateHz));
+        m_kinematicsSubscriptions.add(sub);
+    }
+
+    /**
+     * @return The {@link TelemetryRateManager}, or {@code null} if rates are
+     *         not managed or the node has not started.
+     */
+    public TelemetryRateManager getTelemetryRates() {
+        return m_telemetryRates;
+    }
+
+    /**
+     * Block until the kinematics match {@code predicate}, woken by EKF
+     * updates rather than polling.
+     */
+    public Kinematics awaitKinematics(final KinematicsPredicate predicate,
+                                      long timeout,
+                                      final TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        final KinematicsWaiter waiter = new KinematicsWaiter(predicate);
+        final TelemetryRateManager.Demand demand = addWaiterDemand();
+        // Register first, so an update arriving while we look is not missed
+        m_kinematicsWaiters.add(waiter);
+        try {
+            // Before the first update there is nothing worth checking
+            if (m_kinematicsBuffer.getSequence() != 0)
+                waiter.offer(getKinematics());
+            return waiter.await(timeout, unit);
+        } finally {
+            m_kinematicsWaiters.remove(waiter);
+            if (demand != null)
+                demand.release();
         }
     }
 
-    synchronized MessageFactory getTopicMessageFactory() {
-        if (m_node == null)
+    /**
+     * @return A demand for the EKF while a caller waits on it, or
+     *         {@code null} if rates are not managed.
+     */
+    private TelemetryRateManager.Demand addWaiterDemand() {
+        final TelemetryRateManager telemetryRates = m_telemetryRates;
+        if (telemetryRates == null)
+            return null;
+        try {
+            return telemetryRates.addDemand(TelemetryType.EKF_STATE, KINEMATICS_WAIT_RATE_HZ);
+        } catch (IllegalStateException e) {
+            // Shutting down, so the wait times out anyway
+            return null;
+        }
+    }
+
+    private void wakeKinematicsWaiters() {
+        final Kinematics kinematics = getKinematics();
+        for (KinematicsWaiter waiter : m_kinematicsWaiters) {
+            if (waiter.offer(kinematics))
+                m_kinematicsWaiters.remove(waiter);
+        }
+    }
+
+    public void removeKinematicsListener(final KinematicsListener listener) {
+        for (KinematicsSubscription sub : m_kinematicsSubscriptions) {
+            if (sub.getListener() == listener && m_kinematicsSubscriptions.remove(sub))
+                sub.release();
+        }
+    }
+
+    MessageFactory getTopicMessageFactory() {
+        final ConnectedNode node = m_node;
+        if (node == null)
             throw new AstrobeeRuntimeException("Node is not ready or died");
-        return m_node.getTopicMessageFactory();
+        return node.getTopicMessageFactory();
+    }
+
+    DefaultCommandBuilder newCommandBuilder() {
+        return new DefaultCommandBuilder(getTopicMessageFactory(), m_commandIds, m_commandPool);
     }
 
-    synchronized PendingResult publish(CommandStamped cmd) {
-        if (m_cmdPublisher == null)
+    DefaultCommandEncoder newCommandEncoder(final CommandShape shape) {
+        return new DefaultCommandEncoder(getTopicMessageFactory(), m_commandIds, m_commandPool, shape);
+    }
+
+    PendingResult publish(CommandStamped cmd) {
+        final ConnectedNode node = m_node;
+        final Publisher<CommandStamped> publisher = m_cmdPublisher;
+        if (node == null || publisher == null)
             throw new AstrobeeRuntimeException("Node not ready or dead");
 
-        cmd.getHeader().setStamp(m_node.getCurrentTime());
-        DefaultPendingResult pr = new DefaultPendingResult(cmd);
+        cmd.getHeader().setStamp(node.getCurrentTime());
+        DefaultPendingResult pr = new DefaultPendingResult(cmd, m_pending,
+                m_latencies.forCommand(cmd.getCmdName()));
 
-        if (m_ready) {
-            logger.debug("Publishing " + Stringer.toString(cmd));
-            m_cmdPublisher.publish(cmd);
-        } else {
-            m_queue.add(cmd);
-            pr.setStatus(PendingResult.Status.QUEUED);
+        // Register before publishing, otherwise a fast ack could beat us here
+        m_pending.add(pr);
+
+        if (!m_ready || !publisher.hasSubscribers()) {
+            if (enqueue(pr, publisher))
+                return pr;
         }
 
-        m_pending.put(cmd.getCmdId(), pr);
+        if (m_trace != null)
+            m_trace.record(pr.getCommandId(), cmd.getCmdName(), CommandTrace.PUBLISHED, 0, 0);
+        if (logger.isDebugEnabled())
+            logger.debug("Publishing " + Stringer.toString(cmd));
+        pr.published();
+        publisher.publish(cmd);
         return pr;
     }
 
+    /**
+     * Publish several commands back to back. They are all registered before
+     * the first goes out, and either all go out now or all queue, in order.
+     */
+    List<PendingResult> publishAll(final List<CommandStamped> cmds) {
+        final ConnectedNode node = m_node;
+        final Publisher<CommandStamped> publisher = m_cmdPublisher;
+        if (node == null || publisher == null)
+            throw new AstrobeeRuntimeException("Node not ready or dead");
+
+        final Time stamp = node.getCurrentTime();
+        final List<DefaultPendingResult> prs = new ArrayList<>(cmds.size());
+        for (CommandStamped cmd : cmds) {
+            cmd.getHeader().setStamp(stamp);
+            final DefaultPendingResult pr = new DefaultPendingResult(cmd, m_pending,
+                    m_latencies.forCommand(cmd.getCmdName()));
+            m_pending.add(pr);
+            prs.add(pr);
+        }
+
+        // Once one has queued, the rest have to queue behind it
+        boolean queueing = !m_ready || !publisher.hasSubscribers();
+        for (DefaultPendingResult pr : prs) {
+            if (queueing && enqueue(pr, publisher))
+                continue;
+            queueing = false;
+            if (m_trace != null)
+                m_trace.record(pr.getCommandId(), pr.getCommand().getCmdName(),
+                        CommandTrace.PUBLISHED, 0, 0);
+            if (logger.isDebugEnabled())
+                logger.debug("Publishing " + Stringer.toString(pr.getCommand()));
+            pr.published();
+            publisher.publish(pr.getCommand());
+        }
+        return new ArrayList<PendingResult>(prs);
+    }
+
+    /**
+     * Queue a command while nobody is listening to us, or while previously
+     * queued commands are still being sent.
+     *
+     * @return {@code false} if the command should be published directly.
+     */
+    private boolean enqueue(final DefaultPendingResult pr,
+                            final Publisher<CommandStamped> publisher) {
+        DefaultPendingResult dropped = null;
+        boolean queued = false;
+        while (!queued) {
+            synchronized (m_queueLock) {
+                if (m_ready && publisher.hasSubscribers())
+                    return false;
+
+                // Stays false until the queue has been drained, so nothing can
+                // overtake what is already queued.
+                m_ready = false;
+                // Draining takes the queue lock, so only add once it cannot
+                // block, and wait for room below without it.
+                if (!m_queue.wouldBlock()) {
+                    pr.setStatus(PendingResult.Status.QUEUED);
+                    if (m_trace != null)
+                        m_trace.record(pr.getCommandId(), pr.getCommand().getCmdName(),
+                                CommandTrace.QUEUED, 0, 0);
+                    try {
+                        dropped = m_queue.add(pr);
+                    } catch (InterruptedException e) {
+                        m_pending.forget(pr);
+                        Thread.currentThread().interrupt();
+                        throw new AstrobeeRuntimeException("Interrupted waiting for room in command queue");
+                    } catch (AstrobeeRuntimeException e) {
+                        m_pending.forget(pr);
+                        throw e;
+                    }
+                    queued = true;
+                }
+            }
+
+            if (!queued) {
+                // The executive may be back, and only draining makes room
+                if (publisher.hasSubscribers())
+                    drainQueue(publisher);
+                try {
+                    m_queue.awaitRoom();
+                } catch (InterruptedException e) {
+                    m_pending.forget(pr);
+                    Thread.currentThread().interrupt();
+                    throw new AstrobeeRuntimeException("Interrupted waiting for room in command queue");
+                }
+            }
+        }
+
+        if (dropped != null)
+            m_pending.dropped(dropped);
+
+        // The executive may have come back before we noticed it left
+        if (publisher.hasSubscribers())
+            drainQueue(publisher);
+        return true;
+    }
+
+    /**
+     * Publish everything in the queue, oldest first, a batch at a time. New
+     * commands keep queueing behind us until the queue is empty, so order is
+     * preserved across reconnects.
+     */
+    private void drainQueue(final Publisher<CommandStamped> publisher) {
+        synchronized (m_queueLock) {
+            if (m_draining)
+                return;
+            m_draining = true;
+        }
+
+        final List<DefaultPendingResult> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        try {
+            while (true) {
+                if (m_queue.drainTo(batch, DRAIN_BATCH_SIZE) == 0) {
+                    synchronized (m_queueLock) {
+                        if (m_queue.isEmpty()) {
+                            m_ready = true;
+                            return;
+                        }
+                    }
+                    continue;
+                }
+
+                if (logger.isDebugEnabled())
+                    logger.debug("Publishing " + batch.size() + " queued commands");
+                for (DefaultPendingResult pr : batch) {
+                    // Cancelled or expired while queued
+                    if (pr.isFinished())
+                        continue;
+                    if (m_trace != null)
+                        m_trace.record(pr.getCommandId(), pr.getCommand().getCmdName(),
+                                CommandTrace.PUBLISHED, 0, 0);
+                    pr.published();
+                    publisher.publish(pr.getCommand());
+                }
+                batch.clear();
+            }
+        } finally {
+            synchronized (m_queueLock) {
+                m_draining = false;
+            }
+        }
+    }
+
+    /**
+     * @return Counts of outstanding, completed, expired, cancelled and
+     *         dropped commands.
+     */
+    public CommandGauges getCommandGauges() {
+        return m_pending;
+    }
+
+    /**
+     * @return How long commands took, by name.
+     */
+    public CommandLatencies getCommandLatencies() {
+        return m_latencies;
+    }
+
+    /**
+     * @return The {@link CommandTrace}, or {@code null} if disabled.
+     */
+    public CommandTrace getCommandTrace() {
+        return m_trace;
+    }
+
     @Override
     public GraphName getDefaultNodeName() {
         return GraphName.of("gs_node_main");
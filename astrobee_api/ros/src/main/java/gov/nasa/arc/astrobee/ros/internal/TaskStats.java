@@ -0,0 +1,93 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import gov.nasa.arc.astrobee.ros.ExecutorGauges;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters behind {@link ExecutorGauges}, updated by the tasks of one pool
+ * as they are queued, start and finish.
+ */
+class TaskStats implements ExecutorGauges {
+    private final AtomicInteger m_queued = new AtomicInteger();
+    private final AtomicInteger m_active = new AtomicInteger();
+    private final AtomicLong m_started = new AtomicLong();
+    private final AtomicLong m_completed = new AtomicLong();
+    private final AtomicLong m_latencySum = new AtomicLong();
+    private final AtomicLong m_latencyMax = new AtomicLong();
+
+    void queued() {
+        m_queued.incrementAndGet();
+    }
+
+    /**
+     * A task that was never started, e.g. because it was rejected.
+     */
+    void unqueued() {
+        m_queued.decrementAndGet();
+    }
+
+    void started(long latencyNanos, boolean wasQueued) {
+        if (wasQueued)
+            m_queued.decrementAndGet();
+        m_active.incrementAndGet();
+
+        if (latencyNanos < 0)
+            latencyNanos = 0;
+        m_started.incrementAndGet();
+        m_latencySum.addAndGet(latencyNanos);
+        long max = m_latencyMax.get();
+        while (latencyNanos > max && !m_latencyMax.compareAndSet(max, latencyNanos))
+            max = m_latencyMax.get();
+    }
+
+    void finished() {
+        m_active.decrementAndGet();
+        m_completed.incrementAndGet();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return m_queued.get();
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return m_active.get();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return m_completed.get();
+    }
+
+    @Override
+    public long getMeanLatencyNanos() {
+        // Not read atomically, which is close enough for a gauge
+        final long started = m_started.get();
+        return started == 0 ? 0 : m_latencySum.get() / started;
+    }
+
+    @Override
+    public long getMaxLatencyNanos() {
+        return m_latencyMax.get();
+    }
+}
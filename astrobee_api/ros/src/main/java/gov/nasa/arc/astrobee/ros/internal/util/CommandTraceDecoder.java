@@ -0,0 +1,213 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal.util;
+
+import gov.nasa.arc.astrobee.PendingResult;
+import gov.nasa.arc.astrobee.Result;
+import gov.nasa.arc.astrobee.ros.internal.CommandTrace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a dump written by {@link CommandTrace#dump(File)} back into
+ * per-command timelines. Run it on a dump to print them:
+ *
+ * <pre>java gov.nasa.arc.astrobee.ros.internal.util.CommandTraceDecoder trace.bin</pre>
+ */
+public final class CommandTraceDecoder {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String[] EVENT_NAMES = {
+            "?", "PUBLISHED", "QUEUED", "ACK", "UNMATCHED_ACK", "EXPIRED", "CANCELLED", "DROPPED"
+    };
+
+    /**
+     * One thing that happened to a command.
+     */
+    public static final class Event {
+        public final long timeNanos;
+        public final long sequence;
+        public final int commandHash;
+        public final String name;
+        public final int event;
+        public final int status;
+        public final long detail;
+
+        Event(long timeNanos, long sequence, int commandHash, final String name,
+              int event, int status, long detail) {
+            this.timeNanos = timeNanos;
+            this.sequence = sequence;
+            this.commandHash = commandHash;
+            this.name = name;
+            this.event = event;
+            this.status = status;
+            this.detail = detail;
+        }
+
+        /**
+         * @return The event, with the status and completed status for acks.
+         */
+        public String describe() {
+            final String what = event > 0 && event < EVENT_NAMES.length
+                    ? EVENT_NAMES[event] : "EVENT(" + event + ")";
+            if (event != CommandTrace.ACK && event != CommandTrace.UNMATCHED_ACK)
+                return what;
+            try {
+                final PendingResult.Status s = PendingResult.Status.fromValue((byte) status);
+                if (s != PendingResult.Status.COMPLETED)
+                    return what + " " + s;
+                return what + " " + s + " " + Result.Status.fromValue((byte) detail);
+            } catch (IllegalArgumentException e) {
+                return what + " status=" + status + " detail=" + detail;
+            }
+        }
+    }
+
+    private final long m_wallMillis;
+    private final long m_wallNanos;
+    private final List<Event> m_events;
+
+    public CommandTraceDecoder(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final ByteBuffer in = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (in.getInt() != CommandTrace.MAGIC)
+                throw new IOException(file + " is not a command trace");
+            final int version = in.getInt();
+            if (version != CommandTrace.VERSION)
+                throw new IOException("Unsupported command trace version " + version);
+            m_wallMillis = in.getLong();
+            m_wallNanos = in.getLong();
+
+            final String[] names = new String[in.getInt()];
+            for (int i = 0; i < names.length; i++) {
+                final byte[] bytes = new byte[in.getShort() & 0xFFFF];
+                in.get(bytes);
+                names[i] = new String(bytes, UTF_8);
+            }
+
+            final int count = in.getInt();
+            m_events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final long time = in.getLong();
+                final long key = in.getLong();
+                final long detail = in.getLong();
+                final long sequence = in.getLong();
+                final int nameIndex = (int) (key >>> 16) & 0xFFFF;
+                m_events.add(new Event(time, sequence, (int) (key >>> 32),
+                        nameIndex < names.length ? names[nameIndex] : null,
+                        (int) (key >>> 8) & 0xFF, (int) key & 0xFF, detail));
+            }
+        } finally {
+            raf.close();
+        }
+
+        // Concurrent writers may have claimed records out of time order
+        Collections.sort(m_events, new Comparator<Event>() {
+            @Override
+            public int compare(Event a, Event b) {
+                final long d = a.timeNanos - b.timeNanos;
+                if (d != 0)
+                    return d < 0 ? -1 : 1;
+                return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+            }
+        });
+    }
+
+    /**
+     * @return Every event, in the order they happened.
+     */
+    public List<Event> getEvents() {
+        return m_events;
+    }
+
+    /**
+     * @return The events of each command, in the order each command first
+     *         shows up.
+     */
+    public Map<Integer, List<Event>> getTimelines() {
+        final Map<Integer, List<Event>> timelines = new LinkedHashMap<>();
+        for (Event e : m_events) {
+            List<Event> timeline = timelines.get(e.commandHash);
+            if (timeline == null) {
+                timeline = new ArrayList<>();
+                timelines.put(e.commandHash, timeline);
+            }
+            timeline.add(e);
+        }
+        return timelines;
+    }
+
+    /**
+     * @return The wall clock time, in milliseconds, of a time in the trace.
+     */
+    public long toWallMillis(long timeNanos) {
+        return m_wallMillis - (m_wallNanos - timeNanos) / 1000000L;
+    }
+
+    public void print(final PrintStream out) {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        for (Map.Entry<Integer, List<Event>> entry : getTimelines().entrySet()) {
+            final List<Event> timeline = entry.getValue();
+            String name = null;
+            for (Event e : timeline) {
+                if (e.name != null) {
+                    name = e.name;
+                    break;
+                }
+            }
+
+            final Event first = timeline.get(0);
+            final Event last = timeline.get(timeline.size() - 1);
+            out.println(String.format("%08x %s at %s, %.3f ms", entry.getKey(),
+                    name == null ? "(unknown)" : name,
+                    format.format(new Date(toWallMillis(first.timeNanos))),
+                    (last.timeNanos - first.timeNanos) / 1e6));
+            long previous = first.timeNanos;
+            for (Event e : timeline) {
+                out.println(String.format("  %+10.3f ms %+10.3f ms  %s",
+                        (e.timeNanos - first.timeNanos) / 1e6,
+                        (e.timeNanos - previous) / 1e6,
+                        e.describe()));
+                previous = e.timeNanos;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: CommandTraceDecoder <trace file>");
+            System.exit(1);
+        }
+        new CommandTraceDecoder(new File(args[0])).print(System.out);
+    }
+}
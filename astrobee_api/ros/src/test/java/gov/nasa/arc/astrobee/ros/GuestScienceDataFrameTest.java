@@ -0,0 +1,125 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Frames packed by {@link GuestScienceDataFrame}, and by hand the way the
+ * guest science manager's DataBatcher packs them, taken apart again.
+ */
+public class GuestScienceDataFrameTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static byte[] payload(int i, int length) {
+        final byte[] data = new byte[length];
+        for (int j = 0; j < length; j++)
+            data[j] = (byte) (i + j);
+        return data;
+    }
+
+    @Test
+    public void oneRecordComesBackWithItsAge() {
+        final byte[] data = "{\"Summary\": \"Started\"}".getBytes(UTF8);
+        final long now = System.nanoTime();
+        final GuestScienceDataFrame frame = new GuestScienceDataFrame();
+        frame.add(data, now - TimeUnit.MILLISECONDS.toNanos(250));
+
+        final byte[] packed = frame.toByteArray(now);
+        assertTrue(GuestScienceDataFrame.isFrame(packed));
+        final List<GuestScienceDataFrame.Record> records = GuestScienceDataFrame.unpack(packed);
+        assertEquals(1, records.size());
+        assertArrayEquals(data, records.get(0).getData());
+        assertEquals(250, records.get(0).getAgeMillis());
+    }
+
+    @Test
+    public void fullFrameHoldsAtMost255Records() {
+        final long now = System.nanoTime();
+        final GuestScienceDataFrame frame = new GuestScienceDataFrame();
+        for (int i = 0; i < 255; i++) {
+            assertTrue("record " + i + " should fit", frame.fits(2));
+            frame.add(payload(i, 2), now);
+        }
+        assertFalse(frame.fits(2));
+
+        final List<GuestScienceDataFrame.Record> records =
+                GuestScienceDataFrame.unpack(frame.toByteArray(now));
+        assertEquals(255, records.size());
+        for (int i = 0; i < 255; i++)
+            assertArrayEquals("record " + i, payload(i, 2), records.get(i).getData());
+    }
+
+    @Test
+    public void oversizePayloadPassesThroughUnframed() {
+        final GuestScienceDataFrame frame = new GuestScienceDataFrame();
+        assertTrue(frame.fits(GuestScienceDataFrame.MAX_PAYLOAD));
+        assertFalse(frame.fits(GuestScienceDataFrame.MAX_PAYLOAD + 1));
+
+        // Sent as it is, so the ground sees a single payload
+        final byte[] data = payload(7, GuestScienceDataFrame.MAX_PAYLOAD + 1);
+        assertFalse(GuestScienceDataFrame.isFrame(data));
+        final List<GuestScienceDataFrame.Record> records = GuestScienceDataFrame.unpack(data);
+        assertEquals(1, records.size());
+        assertArrayEquals(data, records.get(0).getData());
+        assertEquals(0, records.get(0).getAgeMillis());
+    }
+
+    @Test
+    public void compressedRecordIsDecompressed() {
+        final byte[] data = "{\"Summary\": \"Received Custom Command\"}".getBytes(UTF8);
+        final byte[] compressed = GuestScienceDataCompression.compress(data);
+        assertTrue(GuestScienceDataCompression.isCompressed(compressed));
+
+        final long now = System.nanoTime();
+        final GuestScienceDataFrame frame = new GuestScienceDataFrame();
+        frame.add(payload(1, 3), now);
+        frame.add(compressed, now);
+
+        final List<GuestScienceDataFrame.Record> records =
+                GuestScienceDataFrame.unpack(frame.toByteArray(now));
+        assertEquals(2, records.size());
+        assertArrayEquals(payload(1, 3), records.get(0).getData());
+        assertArrayEquals(data, records.get(1).getData());
+    }
+
+    @Test
+    public void frameLaidOutByHandIsUnpacked() {
+        // Marker, version, count, then age and length little endian per record
+        final byte[] packed = {
+                0, 'G', 'S', 'B', 1, 2,
+                0x2C, 0x01, 3, 0, 'a', 'b', 'c',
+                0, 0, 1, 0, 'd',
+        };
+        final List<GuestScienceDataFrame.Record> records = GuestScienceDataFrame.unpack(packed);
+        assertEquals(2, records.size());
+        assertEquals(300, records.get(0).getAgeMillis());
+        assertArrayEquals("abc".getBytes(UTF8), records.get(0).getData());
+        assertEquals(0, records.get(1).getAgeMillis());
+        assertArrayEquals("d".getBytes(UTF8), records.get(1).getData());
+    }
+}
@@ -0,0 +1,141 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Where {@link LatencyHistogram} puts samples, and what it reads back.
+ */
+public class LatencyHistogramTest {
+    private static final TimeUnit US = TimeUnit.MICROSECONDS;
+
+    private LatencyHistogram m_histogram;
+
+    @Before
+    public void setUp() {
+        m_histogram = new LatencyHistogram();
+    }
+
+    private void record(long micros, int times) {
+        for (int i = 0; i < times; i++)
+            m_histogram.record(US.toNanos(micros));
+    }
+
+    @Test
+    public void smallValuesHaveABucketEach() {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(31, LatencyHistogram.bucketOf(31));
+        assertEquals(32, LatencyHistogram.bucketOf(32));
+        assertEquals(63, LatencyHistogram.bucketOf(63));
+        assertEquals(63, LatencyHistogram.lowestIn(63));
+        assertEquals(63, LatencyHistogram.highestIn(63));
+    }
+
+    @Test
+    public void bucketsWidenFrom64() {
+        assertEquals(64, LatencyHistogram.bucketOf(64));
+        assertEquals(64, LatencyHistogram.bucketOf(65));
+        assertEquals(65, LatencyHistogram.bucketOf(66));
+        assertEquals(64, LatencyHistogram.lowestIn(64));
+        assertEquals(65, LatencyHistogram.highestIn(64));
+    }
+
+    @Test
+    public void maximumLandsInTheLastBucket() {
+        final int last = LatencyHistogram.BUCKETS - 1;
+        assertEquals(last, LatencyHistogram.bucketOf(LatencyHistogram.MAX_MICROS));
+        assertEquals(LatencyHistogram.MAX_MICROS, LatencyHistogram.highestIn(last));
+    }
+
+    @Test
+    public void bucketsTileTheRangeWithin3Percent() {
+        long next = 0;
+        for (int b = 0; b < LatencyHistogram.BUCKETS; b++) {
+            final long lowest = LatencyHistogram.lowestIn(b);
+            final long highest = LatencyHistogram.highestIn(b);
+            assertEquals("bucket " + b + " starts where the last ended", next, lowest);
+            assertEquals(b, LatencyHistogram.bucketOf(lowest));
+            assertEquals(b, LatencyHistogram.bucketOf(highest));
+            assertTrue("bucket " + b + " is too wide", (highest - lowest) * 32 <= lowest);
+            next = highest + 1;
+        }
+        assertEquals(LatencyHistogram.MAX_MICROS + 1, next);
+    }
+
+    @Test
+    public void percentilesAreTheTopOfTheirBucket() {
+        record(10, 90);
+        record(1000, 5);
+        record(2000, 5);
+        final LatencyHistogram.Snapshot s = m_histogram.snapshot();
+
+        assertEquals(100, s.getCount());
+        assertEquals(10, s.getPercentile(0, US), 0);
+        assertEquals(10, s.getPercentile(50, US), 0);
+        assertEquals(10, s.getPercentile(90, US), 0);
+        // 1000 shares its bucket with everything up to 1007
+        assertEquals(1007, s.getPercentile(91, US), 0);
+        // but nothing is reported above the largest sample
+        assertEquals(2000, s.getPercentile(100, US), 0);
+        assertEquals(2, s.getPercentile(100, TimeUnit.MILLISECONDS), 0);
+    }
+
+    @Test
+    public void emptySnapshotReadsZero() {
+        final LatencyHistogram.Snapshot s = m_histogram.snapshot();
+        assertEquals(0, s.getCount());
+        assertEquals(0, s.getMean(US), 0);
+        assertEquals(0, s.getMax(US), 0);
+        assertEquals(0, s.getPercentile(99, US), 0);
+    }
+
+    @Test
+    public void outOfRangeSamplesAreClamped() {
+        m_histogram.record(-5);
+        m_histogram.record(Long.MAX_VALUE);
+        final LatencyHistogram.Snapshot s = m_histogram.snapshot();
+        assertEquals(2, s.getCount());
+        assertEquals(0, s.getPercentile(50, US), 0);
+        assertEquals(LatencyHistogram.MAX_MICROS, s.getMax(US), 1e-3);
+    }
+
+    @Test
+    public void snapshotAndResetStartsAgain() {
+        record(100, 1);
+        record(300, 1);
+        final LatencyHistogram.Snapshot first = m_histogram.snapshotAndReset();
+        assertEquals(2, first.getCount());
+        assertEquals(200, first.getMean(US), 0);
+        assertEquals(300, first.getMax(US), 0);
+
+        record(50, 1);
+        final LatencyHistogram.Snapshot second = m_histogram.snapshotAndReset();
+        assertEquals(1, second.getCount());
+        assertEquals(50, second.getMean(US), 0);
+        assertEquals(50, second.getMax(US), 0);
+
+        assertEquals(0, m_histogram.snapshot().getCount());
+    }
+}
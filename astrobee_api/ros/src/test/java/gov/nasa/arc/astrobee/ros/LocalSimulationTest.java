@@ -0,0 +1,149 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros;
+
+import gov.nasa.arc.astrobee.Kinematics;
+import gov.nasa.arc.astrobee.PendingResult;
+import gov.nasa.arc.astrobee.Result;
+import gov.nasa.arc.astrobee.Robot;
+import gov.nasa.arc.astrobee.types.Point;
+import gov.nasa.arc.astrobee.types.Quaternion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Moves sent through a {@link LocalSimulation}, over the real rosjava
+ * transport, to a {@link SimulatedExecutive}.
+ */
+public class LocalSimulationTest {
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    private LocalSimulation m_sim;
+    private Robot m_robot;
+
+    @Before
+    public void setUp() throws Exception {
+        m_sim = new LocalSimulation(new SimulatedExecutive(new SimulatedExecutiveConfiguration()
+                .setAckDelay(1, 0, TimeUnit.MILLISECONDS)
+                .setPlanningTime(10, TimeUnit.MILLISECONDS)
+                .setLinearSpeed(2.0)
+                .setEkfRate(100)
+                .setLocalizationTime(0, TimeUnit.MILLISECONDS)
+                .setSeed(1)));
+        m_robot = m_sim.getRobot();
+    }
+
+    @After
+    public void tearDown() {
+        m_sim.shutdown();
+    }
+
+    /**
+     * The statuses a command goes through, as its acks come in.
+     */
+    private static final class StatusRecorder implements PendingResult.StatusListener {
+        private final List<PendingResult.Status> m_statuses = new ArrayList<>();
+        private final CountDownLatch m_completed = new CountDownLatch(1);
+
+        StatusRecorder(final PendingResult pending) {
+            pending.addStatusListener(this, DIRECT);
+        }
+
+        @Override
+        public void onStatusChanged(final PendingResult pending, final PendingResult.Status status) {
+            synchronized (m_statuses) {
+                m_statuses.add(status);
+            }
+            if (status == PendingResult.Status.COMPLETED)
+                m_completed.countDown();
+        }
+
+        /**
+         * The result is set just before the status, so wait for both.
+         */
+        List<PendingResult.Status> await() throws InterruptedException {
+            assertTrue("never completed", m_completed.await(5, TimeUnit.SECONDS));
+            synchronized (m_statuses) {
+                // Results start out executing, before the first ack
+                if (m_statuses.size() > 1
+                        && m_statuses.get(0) == PendingResult.Status.EXECUTING
+                        && m_statuses.get(1) == PendingResult.Status.QUEUED)
+                    return new ArrayList<>(m_statuses.subList(1, m_statuses.size()));
+                return new ArrayList<>(m_statuses);
+            }
+        }
+    }
+
+    @Test
+    public void simpleMove6DofIsAckedAndFlown() throws Exception {
+        final Point first = new Point(0.5, 0, 0);
+        final Point second = new Point(0.5, 0.5, 0.25);
+        final Quaternion rot = new Quaternion(0, 0, 0.7071068f, 0.7071068f);
+
+        final PendingResult flying = m_robot.simpleMove6DOF(first, new Quaternion());
+        final PendingResult queued = m_robot.simpleMove6DOF(second, rot);
+        final StatusRecorder flyingStatus = new StatusRecorder(flying);
+        final StatusRecorder queuedStatus = new StatusRecorder(queued);
+
+        final Result result = queued.getResult();
+        assertTrue(result.getMessage(), result.hasSucceeded());
+        assertTrue(flying.getResult().hasSucceeded());
+
+        assertEquals(Arrays.asList(PendingResult.Status.EXECUTING, PendingResult.Status.COMPLETED),
+                flyingStatus.await());
+        assertEquals(Arrays.asList(PendingResult.Status.QUEUED,
+                PendingResult.Status.EXECUTING,
+                PendingResult.Status.COMPLETED),
+                queuedStatus.await());
+
+        // The pose on gnc/ekf catches up within a tick or two
+        Kinematics k = null;
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            k = m_robot.getCurrentKinematics();
+            if (k != null && k.getPosition() != null
+                    && Math.abs(k.getPosition().getY() - second.getY()) < 1e-6)
+                break;
+            Thread.sleep(10);
+        }
+        assertNotNull(k);
+        assertEquals(Kinematics.Confidence.GOOD, k.getConfidence());
+        assertEquals(second.getX(), k.getPosition().getX(), 1e-6);
+        assertEquals(second.getY(), k.getPosition().getY(), 1e-6);
+        assertEquals(second.getZ(), k.getPosition().getZ(), 1e-6);
+        assertEquals(rot.getZ(), k.getOrientation().getZ(), 1e-6);
+        assertEquals(rot.getW(), k.getOrientation().getW(), 1e-6);
+    }
+}
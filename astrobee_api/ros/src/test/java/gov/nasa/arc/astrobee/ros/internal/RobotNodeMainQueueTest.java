@@ -0,0 +1,196 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.ros.internal;
+
+import ff_msgs.CommandStamped;
+import gov.nasa.arc.astrobee.ros.OverflowPolicy;
+import gov.nasa.arc.astrobee.ros.RobotConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.message.Time;
+import org.ros.node.ConnectedNode;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.PublisherListener;
+import org.ros.node.topic.Subscriber;
+import std_msgs.Header;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Commands sent before the executive subscribes, against stand-ins for the
+ * rosjava node and command publisher.
+ */
+public class RobotNodeMainQueueTest {
+    private static final int CAPACITY = 4;
+    private static final int COMMANDS = 3 * CAPACITY;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final ScheduledExecutorService m_executor =
+            Executors.newSingleThreadScheduledExecutor();
+    private final List<String> m_published =
+            Collections.synchronizedList(new ArrayList<String>());
+    private volatile boolean m_subscribed = false;
+    private volatile PublisherListener<CommandStamped> m_listener = null;
+    private Publisher<CommandStamped> m_publisher;
+    private RobotNodeMain m_nodeMain;
+
+    @Before
+    public void setUp() {
+        m_publisher = fake(Publisher.class, new InvocationHandler() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "addListener":
+                        m_listener = (PublisherListener<CommandStamped>) args[0];
+                        return null;
+                    case "hasSubscribers":
+                        return m_subscribed;
+                    case "publish":
+                        m_published.add(((CommandStamped) args[0]).getCmdId());
+                        return null;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+        final ConnectedNode node = fake(ConnectedNode.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "newPublisher":
+                        return "command".equals(args[0]) ? m_publisher : fake(Publisher.class, null);
+                    case "newSubscriber":
+                        return fake(Subscriber.class, null);
+                    case "getScheduledExecutorService":
+                        return m_executor;
+                    case "getCurrentTime":
+                        return new Time();
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+
+        final RobotConfiguration config = new RobotConfiguration(
+                Collections.<String, String>emptyMap())
+                .setCommandQueueCapacity(CAPACITY)
+                .setCommandQueueOverflowPolicy(OverflowPolicy.BLOCK);
+        m_nodeMain = new RobotNodeMain(config, "bsharp");
+        m_nodeMain.onStart(node);
+    }
+
+    @After
+    public void tearDown() {
+        m_executor.shutdownNow();
+    }
+
+    @Test
+    public void fillingTheQueueBeforeTheExecutiveSubscribesDoesNotDeadlock() throws Exception {
+        final Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < COMMANDS; i++)
+                    m_nodeMain.publish(command("cmd" + i));
+            }
+        }, "sender");
+        sender.start();
+
+        // Wait for the sender to block on the full queue
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (sender.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(Thread.State.WAITING, sender.getState());
+        assertTrue(m_published.isEmpty());
+
+        // The executive subscribes, on a rosjava thread of its own
+        m_subscribed = true;
+        final Thread subscriber = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                m_listener.onNewSubscriber(m_publisher, null);
+            }
+        }, "subscriber");
+        subscriber.start();
+
+        sender.join(TIMEOUT_MILLIS);
+        subscriber.join(TIMEOUT_MILLIS);
+        assertFalse("sender deadlocked", sender.isAlive());
+        assertFalse("subscriber deadlocked", subscriber.isAlive());
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < COMMANDS; i++)
+            expected.add("cmd" + i);
+        assertEquals(expected, m_published);
+    }
+
+    private static CommandStamped command(final String id) {
+        final Header header = fake(Header.class, null);
+        return fake(CommandStamped.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getHeader":
+                        return header;
+                    case "getCmdId":
+                        return id;
+                    case "getCmdName":
+                        return "noOp";
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(final Class<?> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                handler != null ? handler : new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return defaultValue(method);
+                    }
+                });
+    }
+
+    private static Object defaultValue(final Method method) {
+        final Class<?> type = method.getReturnType();
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == double.class)
+            return 0.0;
+        return null;
+    }
+}
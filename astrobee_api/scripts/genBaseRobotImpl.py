@@ -3,6 +3,10 @@
 """
 A library and command-line tool for generating base robot java classes/files
 from an XPJSON schema.
+
+Writes BaseRobotImpl, whose methods fill in each command through a
+CommandEncoder, and CommandShapes, holding the name and argument types of
+every command so implementations can lay commands out ahead of time.
 """
 
 import os
@@ -59,20 +63,51 @@ TEMPLATE_FUNC_ARGS_END = '''
 '''[1:-1]
 
 TEMPLATE_FUNC_BODY_BEG = '''
-        final CommandBuilder builder = makeCommandBuilder();
-        builder.setName("%(commandId)s")
+        return publish(makeCommandEncoder(CommandShapes.%(commandIdAllCaps)s)
 '''[1:-1]
 
 TEMPLATE_FUNC_BODY_ARG = '''
-                .addArgument("%(paramId)s", %(paramId)s)
+                .%(paramSetter)s(%(paramIndex)d, %(paramId)s)
 '''[1:-1]
 
-TEMPLATE_FUNC_END_ARG = '''
-                .addArgument("%(paramId)s", %(paramId)s);
-        return publish(builder.build());
+TEMPLATE_FUNC_BODY_END = '''
+                .build());
     }
 '''[1:-1]
 
+TEMPLATE_SHAPES_MAIN = '''// Copyright 2017 Intelligent Robotics Group, NASA ARC
+
+package gov.nasa.arc.astrobee.internal;
+
+public final class CommandShapes {
+    private CommandShapes() { }
+%(body)s}
+'''
+# END TEMPLATE_SHAPES_MAIN
+
+TEMPLATE_SHAPE = '''
+    public static final CommandShape %(commandIdAllCaps)s = new CommandShape("%(commandId)s",
+            new String[]{%(argNames)s},
+            new int[]{%(argTypes)s});
+'''
+
+# Java type of a parameter -> (CommandEncoder setter, CommandShape type)
+ENCODER_TYPES = {
+    'boolean': ('setBoolean', 'BOOLEAN'),
+    'double': ('setDouble', 'DOUBLE'),
+    'float': ('setFloat', 'FLOAT'),
+    'int': ('setInt', 'INT'),
+    'long': ('setLong', 'LONG'),
+    'String': ('setString', 'STRING'),
+    'Vec3d': ('setVec3d', 'VEC3D'),
+    'Point': ('setVec3d', 'VEC3D'),
+    'Mat33f': ('setMat33f', 'MAT33F'),
+    'Quaternion': ('setMat33f', 'MAT33F'),
+}
+
+# Anything else is one of our enumerated types
+ENCODER_ENUM = ('setEnum', 'STRING')
+
 def getCommandContext(cmd):
     assert '.' in cmd.id, 'CommandSpec without category: %s' % cmd
     category, baseId = cmd.id.split('.', 1)
@@ -115,10 +150,14 @@ def getParamContext(param):
     if notes == None:
         notes = ''
 
+    setter, shapeType = ENCODER_TYPES.get(valueType, ENCODER_ENUM)
+
     result = {
         'paramId': xpjsonAstrobee.fixName(baseId),
         'paramNotes': notes,
-        'paramValueType': valueType
+        'paramValueType': valueType,
+        'paramSetter': setter,
+        'paramShapeType': shapeType
     }
     return result
 
@@ -136,16 +175,16 @@ def genCommandSpecDecls(cmd):
         for i in range(len(cmd.params)):
             ctx = commandCtx.copy()
             ctx.update(getParamContext(cmd.params[i]))
+            ctx['paramIndex'] = i
             if (i + 1) == len(cmd.params):
                 resultList.append(TEMPLATE_FUNC_ARGS_END % ctx)
-                bodyList.append(TEMPLATE_FUNC_END_ARG % ctx + '\n\n')
             else:
                 resultList.append(TEMPLATE_FUNC_ARGS % ctx)
-                bodyList.append(TEMPLATE_FUNC_BODY_ARG % ctx + '\n')
+            bodyList.append(TEMPLATE_FUNC_BODY_ARG % ctx + '\n')
+        bodyList.append(TEMPLATE_FUNC_BODY_END + '\n\n')
     else:
         resultList.append(') {')
-        bodyList.append(';\n')
-        bodyList.append('        return publish(builder.build());\n    }\n\n')
+        bodyList.append('.build());\n    }\n\n')
 
     resultList.append('\n')
     # clean up function definition
@@ -170,6 +209,14 @@ def genCommandSpecDecls(cmd):
 
     return ''.join(resultList + bodyList)
 
+def genCommandShape(cmd):
+    ctx = getCommandContext(cmd)
+    params = [getParamContext(param) for param in cmd.params]
+    ctx['argNames'] = ', '.join('"%s"' % p['paramId'] for p in params)
+    ctx['argTypes'] = ', '.join('CommandShape.%s' % p['paramShapeType'] for p in params)
+    return TEMPLATE_SHAPE % ctx
+
+
 def genCommandConstants(inSchemaPath, baseRobotImplPath):
     schema = xpjsonAstrobee.loadDocument(inSchemaPath)
 
@@ -185,6 +232,14 @@ def genCommandConstants(inSchemaPath, baseRobotImplPath):
         outStream.write(TEMPLATE_MAIN % {'body': body})
     logging.info('wrote base robot implementation to %s', filename)
 
+    shapes = ''.join([genCommandShape(spec) for spec in commandSpecs])
+
+    filename = baseRobotImplPath + '/internal/CommandShapes.java'
+
+    with open(filename, 'w') as outStream:
+        outStream.write(TEMPLATE_SHAPES_MAIN % {'body': shapes})
+    logging.info('wrote command shapes to %s', filename)
+
 
 def main():
     import optparse
@@ -0,0 +1,182 @@
+/* Copyright (c) 2017, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ *
+ * All rights reserved.
+ *
+ * The Astrobee platform is licensed under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gov.nasa.arc.astrobee.android.gs.manager;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs the small payloads an apk sends on one topic into frames of up to
+ * 2048 bytes, sent once full or once the first payload in them has waited
+ * long enough. Payloads too big to share a frame are sent as they are,
+ * after whatever was waiting ahead of them.
+ *
+ * Same format as gov.nasa.arc.astrobee.ros.GuestScienceDataFrame, which
+ * takes frames apart on the ground: a 4 byte marker, a version byte and the
+ * number of records, then for each record how many milliseconds before the
+ * message was stamped it was sent and its length, both unsigned 16 bit
+ * little endian, followed by its data.
+ */
+class DataBatcher {
+    private static final String LOG_TAG = "GuestScienceManager";
+    private static final int MAX_SIZE = 2048;
+    private static final byte[] MARKER = { 0, 'G', 'S', 'B' };
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MARKER.length + 2;
+    private static final int RECORD_HEADER_SIZE = 4;
+    private static final int MAX_RECORDS = 0xFF;
+    private static final int MAX_AGE = 0xFFFF;
+
+    interface Sink {
+        void publish(String apkName, String topic, byte dataType, byte[] data);
+    }
+
+    private final Sink mSink;
+    private final long mMaxDelayMs;
+    private final ScheduledExecutorService mExecutor;
+
+    // Guarded by this
+    private final Map<String, Batch> mBatches = new HashMap<>();
+
+    private static final class Batch {
+        final String apkName;
+        final String topic;
+        final byte dataType;
+        final List<byte[]> payloads = new ArrayList<>();
+        final List<Long> addedMs = new ArrayList<>();
+        int size = HEADER_SIZE;
+        // Bumped on every flush, so a late deadline leaves the next frame be
+        long generation = 0;
+
+        Batch(String apkName, String topic, byte dataType) {
+            this.apkName = apkName;
+            this.topic = topic;
+            this.dataType = dataType;
+        }
+
+        boolean fits(int length) {
+            return payloads.size() < MAX_RECORDS &&
+                    size + RECORD_HEADER_SIZE + length <= MAX_SIZE;
+        }
+    }
+
+    DataBatcher(Sink sink, long maxDelayMs) {
+        mSink = sink;
+        mMaxDelayMs = maxDelayMs;
+        mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "gs-data-batcher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    synchronized void add(String apkName, String topic, byte dataType, byte[] data) {
+        final String key = apkName + '\0' + topic + '\0' + dataType;
+        Batch batch = mBatches.get(key);
+        if (batch == null) {
+            batch = new Batch(apkName, topic, dataType);
+            mBatches.put(key, batch);
+        }
+
+        if (data.length > MAX_SIZE - HEADER_SIZE - RECORD_HEADER_SIZE) {
+            flush(batch);
+            mSink.publish(apkName, topic, dataType, data);
+            return;
+        }
+        if (!batch.fits(data.length)) {
+            flush(batch);
+        }
+
+        batch.payloads.add(data);
+        batch.addedMs.add(System.currentTimeMillis());
+        batch.size += RECORD_HEADER_SIZE + data.length;
+        if (batch.payloads.size() == 1) {
+            scheduleFlush(batch, batch.generation);
+        }
+    }
+
+    /**
+     * Send everything that is waiting, and stop.
+     */
+    synchronized void shutdown() {
+        for (Batch batch : mBatches.values()) {
+            flush(batch);
+        }
+        mExecutor.shutdown();
+    }
+
+    private void scheduleFlush(final Batch batch, final long generation) {
+        mExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DataBatcher.this) {
+                    if (batch.generation == generation) {
+                        flush(batch);
+                    }
+                }
+            }
+        }, mMaxDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush(Batch batch) {
+        if (batch.payloads.isEmpty()) {
+            return;
+        }
+        final byte[] frame = new byte[batch.size];
+        System.arraycopy(MARKER, 0, frame, 0, MARKER.length);
+        frame[MARKER.length] = VERSION;
+        frame[MARKER.length + 1] = (byte) batch.payloads.size();
+        final long now = System.currentTimeMillis();
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < batch.payloads.size(); i++) {
+            final byte[] payload = batch.payloads.get(i);
+            final long age = Math.max(0, Math.min(now - batch.addedMs.get(i), MAX_AGE));
+            offset = putShort(frame, offset, (int) age);
+            offset = putShort(frame, offset, payload.length);
+            System.arraycopy(payload, 0, frame, offset, payload.length);
+            offset += payload.length;
+        }
+        batch.payloads.clear();
+        batch.addedMs.clear();
+        batch.size = HEADER_SIZE;
+        batch.generation++;
+        try {
+            mSink.publish(batch.apkName, batch.topic, batch.dataType, frame);
+        } catch (RuntimeException e) {
+            // Most likely on the flush thread, where nobody would hear of it
+            Log.e(LOG_TAG, "Unable to send guest science data of " + batch.apkName, e);
+        }
+    }
+
+    private static int putShort(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        return offset + 2;
+    }
+}
@@ -94,6 +94,9 @@ class ManagerNode extends AbstractNodeMain implements MessageListener<CommandSta
 
     private GuestScienceState mState;
 
+    // Null unless small payloads are packed into frames
+    private volatile DataBatcher mDataBatcher;
+
     /* Lazy initialization singleton pattern */
     private ManagerNode() { }
 
@@ -312,26 +315,37 @@ class ManagerNode extends AbstractNodeMain implements MessageListener<CommandSta
             }
         }
 
-        GuestScienceData dataMsg = mMessageFactory.newFromType(GuestScienceData._TYPE);
-        Header hdr = mMessageFactory.newFromType(Header._TYPE);
-
-        hdr.setStamp(mNodeConfig.getTimeProvider().getCurrentTime());
-        dataMsg.setHeader(hdr);
-
-        dataMsg.setApkName(apkFullName);
-
+        byte dataType;
         if (msg.what == MessageType.STRING.toInt()) {
-            dataMsg.setDataType(GuestScienceData.STRING);
+            dataType = GuestScienceData.STRING;
         } else if (msg.what == MessageType.JSON.toInt()) {
-            dataMsg.setDataType(GuestScienceData.JSON);
+            dataType = GuestScienceData.JSON;
         } else if (msg.what == MessageType.BINARY.toInt()) {
-            dataMsg.setDataType(GuestScienceData.BINARY);
+            dataType = GuestScienceData.BINARY;
         } else {
             mLogger.error(LOG_TAG, "Message type in guest science message is unknown so the message " +
                     "will not be sent to the ground.");
             return;
         }
 
+        DataBatcher batcher = mDataBatcher;
+        if (batcher != null) {
+            batcher.add(apkFullName, topic, dataType, data);
+        } else {
+            publishGuestScienceData(apkFullName, topic, dataType, data);
+        }
+    }
+
+    private synchronized void publishGuestScienceData(String apkFullName, String topic,
+                                                      byte dataType, byte[] data) {
+        GuestScienceData dataMsg = mMessageFactory.newFromType(GuestScienceData._TYPE);
+        Header hdr = mMessageFactory.newFromType(Header._TYPE);
+
+        hdr.setStamp(mNodeConfig.getTimeProvider().getCurrentTime());
+        dataMsg.setHeader(hdr);
+
+        dataMsg.setApkName(apkFullName);
+        dataMsg.setDataType(dataType);
         dataMsg.setTopic(topic);
 
         // If there isn't data, don't copy it over as it will crash
@@ -340,7 +354,33 @@ class ManagerNode extends AbstractNodeMain implements MessageListener<CommandSta
             dataMsg.setData(dataBuff);
         }
         mDataPublisher.publish(dataMsg);
-   }
+    }
+
+    /**
+     * Pack the small payloads each apk sends on a topic into frames, sent
+     * once full or once the first payload has waited the given delay, so
+     * chatty apks send fewer messages. The ground has to take the frames
+     * apart, see DataBatcher.
+     *
+     * @param maxDelayMs How long a payload may wait for others, or 0 to send
+     *                   each payload as its own message, as by default.
+     */
+    public void setDataBatchDelay(long maxDelayMs) {
+        DataBatcher old = mDataBatcher;
+        if (maxDelayMs > 0) {
+            mDataBatcher = new DataBatcher(new DataBatcher.Sink() {
+                @Override
+                public void publish(String apkName, String topic, byte dataType, byte[] data) {
+                    publishGuestScienceData(apkName, topic, dataType, data);
+                }
+            }, maxDelayMs);
+        } else {
+            mDataBatcher = null;
+        }
+        if (old != null) {
+            old.shutdown();
+        }
+    }
 
     @Override
     public GraphName getDefaultNodeName() {
@@ -34,6 +34,11 @@ public class ManagerService extends RosService {
     private static final URI    ROS_MASTER_URI = URI.create("http://llp:11311");
     private static final String ROS_HOSTNAME = "hlp";
 
+    // How long, in milliseconds, small guest science payloads may wait to be
+    // sent together. Not batched if missing or 0.
+    public static final String EXTRA_DATA_BATCH_DELAY_MS =
+            "gov.nasa.arc.astrobee.android.gs.DATA_BATCH_DELAY_MS";
+
     private ManagerTimeoutTimer mStartTimer;
 
     @Override
@@ -62,6 +67,9 @@ public class ManagerService extends RosService {
 
         mStartTimer = new ManagerTimeoutTimer(5000, 2500);
 
+        ManagerNode.INSTANCE().setDataBatchDelay(
+                intent.getLongExtra(EXTRA_DATA_BATCH_DELAY_MS, 0));
+
         return super.onStartCommand(intent, flags, startId);
     }
 
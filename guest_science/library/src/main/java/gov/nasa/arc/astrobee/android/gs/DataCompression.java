@@ -0,0 +1,98 @@
+package gov.nasa.arc.astrobee.android.gs;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * DataCompression - Deflates guest science data with a preset dictionary of
+ * what JSON status messages are typically made of, so even short ones
+ * shrink.
+ *
+ * Copy of the compressing half of
+ * gov.nasa.arc.astrobee.ros.GuestScienceDataCompression, which decompresses
+ * on the ground: a 4 byte marker and the dictionary version, then raw
+ * deflate data. Keep the two in step, and change the dictionary only
+ * together with its version.
+ */
+
+final class DataCompression {
+    private static final byte[] MARKER = { 0, 'G', 'S', 'Z' };
+    private static final byte DICTIONARY_VERSION = 1;
+    private static final int HEADER_SIZE = MARKER.length + 1;
+
+    // Taken from the status messages of the example and project apks. Deflate
+    // reaches back at most 32K and finds the end of the dictionary cheapest,
+    // so the most common pieces are last.
+    private static final byte[] DICTIONARY = (
+            "{\"Experiment Idx\": \"Desired IDX\": \"Reported IDX\": \"DL_MS\": " +
+            "\"Final Perch Position\": \"Position\": \"Location\": \"Voltage\": " +
+            "\"Current\": \"Percentage\": \"Charge\": \"Serial Number\": \"Present\": " +
+            "\"Found\": \"Delay\": \"Feedback\": \"Last Status Read Time\": " +
+            "\"Experiment in Progress\": \"Error Status\": \"Gripper Status\": " +
+            "\"Gripper Cmd\": \"Wrist Lock\": \"Adhesive Engage\": " +
+            "\"Automatic Mode Enable\": \"Command Status\": \"Astrobee Cmd\": " +
+            "true, false, null, 0.0, 1, \"title\": \"\", \"value\": \"\", " +
+            "\"ERROR\": \"Error parsing JSON\", \"Message\": \"\", \"Status\": \"\", " +
+            "\"Summary\": \"Received Custom Command\"}{\"Summary\": \"Stopped\"}" +
+            "{\"Summary\": \"Started\"}{\"Summary\": \"").getBytes(Charset.forName("UTF-8"));
+
+    private static final ThreadLocal<Deflater> sDeflater = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_COMPRESSION, true);
+        }
+    };
+
+    private DataCompression() { }
+
+    /**
+     * @return The data compressed and marked as such, or the data itself if
+     *         that is no smaller. Data starting like compressed data or a
+     *         frame of batched data is always compressed, so the ground
+     *         cannot mistake it for either.
+     */
+    static byte[] compress(byte[] data) {
+        boolean escape = isMarked(data);
+        if (data.length <= HEADER_SIZE && !escape) {
+            return data;
+        }
+
+        Deflater deflater = sDeflater.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(data);
+        deflater.finish();
+
+        // Anything bigger than the data is of no use, unless escaping
+        byte[] out = new byte[Math.max(data.length, HEADER_SIZE + 16)];
+        System.arraycopy(MARKER, 0, out, 0, MARKER.length);
+        out[MARKER.length] = DICTIONARY_VERSION;
+        int size = HEADER_SIZE;
+        while (!deflater.finished()) {
+            if (size == out.length) {
+                if (!escape) {
+                    return data;
+                }
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            size += deflater.deflate(out, size, out.length - size);
+        }
+        if (!escape && size >= data.length) {
+            return data;
+        }
+
+        byte[] compressed = new byte[size];
+        System.arraycopy(out, 0, compressed, 0, size);
+        return compressed;
+    }
+
+    /**
+     * Whether the data starts with what compressed data and DataBatcher
+     * frames both start with.
+     */
+    private static boolean isMarked(byte[] data) {
+        return data.length >= 3 && data[0] == MARKER[0] && data[1] == MARKER[1] &&
+                data[2] == MARKER[2];
+    }
+}
@@ -22,6 +22,7 @@ public abstract class StartGuestScienceService extends Service {
     private Messenger mService = null;
     private String mFullApkName = "";
     private String mDataBasePath = "";
+    private volatile boolean mCompressData = false;
 
     private static final String LIB_LOG_TAG = "GuestScienceLib";
     private static final String SERVICE_PACKAGE_NAME =
@@ -173,10 +174,26 @@ public abstract class StartGuestScienceService extends Service {
         sendMsg(type, topic, byteData);
     }
 
+    /**
+     * Note: The ground tells compressed data and frames of batched data
+     * from the rest by their first bytes, {0, 'G', 'S', ...}. Binary data
+     * starting with those is misread there, unless compression is on,
+     * which always escapes it.
+     */
     public void sendData(MessageType type, String topic, byte[] data) {
         sendMsg(type, topic, data);
     }
 
+    /**
+     * Compress the data sent, where that makes it smaller, so more fits in a
+     * message: the 2K limit then applies to the compressed data. The ground
+     * has to decompress it, with
+     * gov.nasa.arc.astrobee.ros.GuestScienceDataCompression.
+     */
+    public void setDataCompression(boolean compress) {
+        mCompressData = compress;
+    }
+
     public void sendMsg(MessageType type, String topic, byte[] data) {
         if (!mBound) {
             Log.e(LIB_LOG_TAG, "Not bound to guest science manager. This shouldn't happen. " +
@@ -184,9 +201,13 @@ public abstract class StartGuestScienceService extends Service {
             return;
         }
 
+        if (mCompressData) {
+            data = DataCompression.compress(data);
+        }
+
         if (data.length > 2048) {
             throw new RuntimeException("Data passed to sendData function is too big to send to " +
-                    "ground. Must be 2K.");
+                    "ground. Must be 2K" + (mCompressData ? " once compressed." : "."));
         }
 
         Bundle dataBundle = new Bundle();